@@ -18,6 +18,8 @@ package org.opencypher.v9_0.ast
 import org.opencypher.v9_0.util.ASTNode
 import org.opencypher.v9_0.util.Eagerly
 
+import java.util.Objects
+
 import scala.language.implicitConversions
 
 object ASTAnnotationMap {
@@ -61,6 +63,29 @@ object ASTAnnotationMap {
     }
 
     override def hashCode(): Int =
-      (node, node.position).hashCode
+      31 * node.hashCode + Objects.hashCode(node.position)
+  }
+
+  /**
+   * A key that identifies a node instance, rather than a node and its position.
+   *
+   * Equality and hashing only look at the reference, so lookups cost the same regardless of the size of the subtree.
+   * Only use this for maps that are always queried with the same instances they were built from,
+   * since equal copies of a node at the same position are different keys.
+   */
+  final class NodeIdentity[+N <: ASTNode](val node: N) {
+
+    override def equals(that: Any): Boolean = that match {
+      case that: NodeIdentity[_] => this.node eq that.node
+      case _                     => false
+    }
+
+    override def hashCode(): Int = System.identityHashCode(node)
+
+    override def toString: String = s"NodeIdentity($node)"
+  }
+
+  object NodeIdentity {
+    def apply[N <: ASTNode](node: N): NodeIdentity[N] = new NodeIdentity(node)
   }
 }
@@ -16,6 +16,7 @@
 package org.opencypher.v9_0.ast
 
 import org.opencypher.v9_0.ast.Union.UnionMapping
+import org.opencypher.v9_0.ast.semantics.ParallelSemanticCheck
 import org.opencypher.v9_0.ast.semantics.Scope
 import org.opencypher.v9_0.ast.semantics.SemanticAnalysisTooling
 import org.opencypher.v9_0.ast.semantics.SemanticCheck
@@ -460,10 +461,43 @@ sealed trait Union extends QueryPart with SemanticAnalysisTooling {
       SemanticState.recordCurrentScope(this)
 
   def semanticCheck: SemanticCheck =
-    semanticCheckAbstract(
-      part => SemanticCheck.nestedCheck(part.semanticCheck),
-      query => query.semanticCheck
-    )
+    SemanticCheck.fromState { state =>
+      if (state.features(SemanticFeature.ParallelUnionParts))
+        semanticCheckInParallel
+      else
+        semanticCheckAbstract(
+          part => SemanticCheck.nestedCheck(part.semanticCheck),
+          query => query.semanticCheck
+        )
+    }
+
+  /**
+   * Checks the single queries of this and all nested unions in parallel, see [[ParallelSemanticCheck]].
+   * Each of them is checked in a scope of its own, and only reads the symbols of the enclosing scopes.
+   * Queries with subqueries are left to the sequential check, since subqueries work in scopes under the root scope.
+   */
+  private def semanticCheckInParallel: SemanticCheck = {
+    val independentQueries = unionedQueries.reverse.filterNot(_.folder.treeExists { case _: SubqueryCall => true })
+
+    ParallelSemanticCheck.fork(independentQueries.map(_.semanticCheck).toIndexedSeq) { replays =>
+      val checks = new java.util.IdentityHashMap[SingleQuery, SemanticCheck]()
+      independentQueries.zip(replays).foreach { case (query, replay) => checks.put(query, replay) }
+
+      def queryCheck(query: SingleQuery): SemanticCheck =
+        Option(checks.get(query)).getOrElse(query.semanticCheck)
+
+      def unionCheck(union: Union): SemanticCheck =
+        union.semanticCheckAbstract(
+          {
+            case query: SingleQuery => queryCheck(query)
+            case union: Union       => SemanticCheck.nestedCheck(unionCheck(union))
+          },
+          queryCheck
+        )
+
+      unionCheck(this)
+    }
+  }
 
   override def checkImportingWith: SemanticCheck =
     part.checkImportingWith chain
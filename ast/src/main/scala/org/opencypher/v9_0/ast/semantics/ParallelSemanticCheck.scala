@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.semantics
+
+import org.opencypher.v9_0.ast.semantics.SemanticState.ScopeLocation
+import org.opencypher.v9_0.ast.semantics.SemanticState.ScopeZipper
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executor
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.LongAdder
+
+import scala.util.Try
+
+/**
+ * Runs the checks of independent branches, such as the parts of a UNION, in parallel.
+ *
+ * Every branch has to be a check which the sequential check runs in a new, empty child scope, and which only reads
+ * the symbols of the enclosing scopes and the state of its own nodes. All branches are started when the check
+ * created by [[fork]] runs, each on the state at that point and in a new child scope of the current one.
+ * In their place, the sequential check then replays what each branch has added to the state: its scope, its types,
+ * its recorded scopes, which are moved to where the sequential check would have recorded them, and its notifications
+ * and errors. The result is therefore the same as running the branches one after the other.
+ * Branches that failed, or whose results cannot be replayed, are checked again where they would have been.
+ */
+object ParallelSemanticCheck {
+
+  private val sequentialFallbacks = new LongAdder
+
+  /**
+   * The number of branches so far that failed, or whose results could not be replayed, and were checked again.
+   * Each of them costs the work of checking it twice, so this should stay at zero for the queries that are forked.
+   */
+  def fallbacks: Long = sequentialFallbacks.sum()
+
+  /**
+   * Starts all `branches`, and returns the check that `join` makes of the checks replaying their results.
+   * The replaying checks are in the same order as `branches`.
+   */
+  def fork(
+    branches: IndexedSeq[SemanticCheck],
+    executor: Executor = ForkJoinPool.commonPool()
+  )(
+    join: IndexedSeq[SemanticCheck] => SemanticCheck
+  ): SemanticCheck =
+    SemanticCheck.fromContext { context =>
+      SemanticCheck.fromState { state =>
+        // Transient maps must not be shared with other threads
+        val forkState = state.persistent
+        val branchState = forkState.newChildScope
+        val results = branches.map { branch =>
+          CompletableFuture.supplyAsync[SemanticCheckResult](() => branch.run(branchState, context), executor)
+        }
+        join(branches.indices.map(i => replay(branches(i), results(i), forkState)))
+      }
+    }
+
+  private def replay(
+    branch: SemanticCheck,
+    result: CompletableFuture[SemanticCheckResult],
+    forkState: SemanticState
+  ): SemanticCheck =
+    SemanticCheck.fromState { state =>
+      Try(result.join()).toOption.flatMap(merge(state, _, forkState)) match {
+        case Some(merged) => SemanticCheck.fromFunction(_ => merged)
+        case None =>
+          sequentialFallbacks.increment()
+          branch
+      }
+    }
+
+  /**
+   * The result of a branch that was checked in a new child scope of the scope of `forkState`,
+   * as if it had been checked on `state`.
+   */
+  private def merge(
+    state: SemanticState,
+    result: SemanticCheckResult,
+    forkState: SemanticState
+  ): Option[SemanticCheckResult] = {
+    val forkScope = forkState.currentScope.location
+    val siblingsAtFork = forkScope.elem.children.size
+    val branchState = result.state
+
+    state.currentScope.location match {
+      case ScopeZipper.Location(scope, ScopeZipper.TreeContext(left, parent, Nil))
+        if scope.isEmpty && scope.children.isEmpty =>
+        // The branch added its scopes to the scope of the fork, after the scopes that were already there.
+        // Move them to the parent of the current scope, after the scopes that are there.
+        def moved(location: ScopeZipper.Location): Option[ScopeZipper.Location] = location.context match {
+          case ScopeZipper.TreeContext(l, p, r) if p eq forkScope =>
+            Some(location.copy(context = ScopeZipper.TreeContext(l.dropRight(siblingsAtFork) ++ left, parent, r)))
+          case ScopeZipper.TreeContext(l, p, r) =>
+            moved(p).map(movedParent => location.copy(context = ScopeZipper.TreeContext(l, movedParent, r)))
+          case ScopeZipper.Top =>
+            None
+        }
+
+        val currentScope = moved(branchState.currentScope.location)
+        val recordedScopes = added(forkState.recordedScopes, branchState.recordedScopes).map {
+          case (node, location) => moved(location.location).map(node -> ScopeLocation(_))
+        }.toSeq
+
+        if (currentScope.isEmpty || recordedScopes.exists(_.isEmpty)) {
+          None
+        } else {
+          val merged = state.copy(
+            currentScope = ScopeLocation(currentScope.get),
+            typeTable = added(forkState.typeTable, branchState.typeTable).foldLeft(state.typeTable) {
+              case (table, (expression, typeInfo)) => table.updated(expression, typeInfo)
+            },
+            recordedScopes = recordedScopes.flatten.foldLeft(state.recordedScopes) {
+              case (recorded, (node, location)) => recorded.updated(node, location)
+            },
+            notifications = state.notifications ++ branchState.notifications,
+            features = changed(forkState.features, branchState.features, state.features),
+            declareVariablesToSuppressDuplicateErrors = changed(
+              forkState.declareVariablesToSuppressDuplicateErrors,
+              branchState.declareVariablesToSuppressDuplicateErrors,
+              state.declareVariablesToSuppressDuplicateErrors
+            ),
+            variablesInQpp =
+              added(forkState.variablesInQpp, branchState.variablesInQpp).foldLeft(state.variablesInQpp) {
+                case (variables, (variable, position)) => variables.updated(variable, position)
+              }
+          )
+          Some(SemanticCheckResult(merged, result.errors))
+        }
+
+      case _ =>
+        None
+    }
+  }
+
+  private def added[K, V](before: Map[K, V], after: Map[K, V]): Iterator[(K, V)] =
+    after.iterator.filter { case (key, value) => !before.get(key).contains(value) }
+
+  private def changed[T](before: T, after: T, current: T): T =
+    if (after != before) after else current
+}
@@ -15,7 +15,6 @@
  */
 package org.opencypher.v9_0.ast.semantics
 
-import org.opencypher.v9_0.ast.semantics.SemanticCheck.when
 import org.opencypher.v9_0.expressions.Expression.SemanticContext
 import org.opencypher.v9_0.util.ErrorMessageProvider
 import org.opencypher.v9_0.util.InputPosition
@@ -45,24 +44,23 @@ sealed trait SemanticCheck {
    * {{{
    * val check = first chain second chain third
    * }}}
+   *
+   * Chaining with [[SemanticCheck.success]] on either side returns the other check as it is.
    */
   def chain(next: SemanticCheck): SemanticCheck = {
-    for {
-      a <- this
-      b <- next
-    } yield SemanticCheckResult(b.state, a.errors ++ b.errors)
+    if (this eq SemanticCheck.success)
+      next
+    else if (next eq SemanticCheck.success)
+      this
+    else
+      SemanticCheck.Chain(this, next)
   }
 
   /** Creates a new combined check which runs `this` followed by `next`, but only if there were no errors.
    * 
    * If `this` produces any errors, `next` is skipped.
    */
-  def ifOkChain(next: => SemanticCheck): SemanticCheck = {
-    for {
-      a <- this
-      b <- when(a.errors.isEmpty)(next)
-    } yield SemanticCheckResult(b.state, a.errors ++ b.errors)
-  }
+  def ifOkChain(next: => SemanticCheck): SemanticCheck = SemanticCheck.IfOkChain(this, () => next)
 
   /** Creates a new check which applies `f` to the result of `this` check.
    * 
@@ -147,6 +145,12 @@ object SemanticCheck {
 
   final private[semantics] case class Leaf(f: SemanticState => SemanticCheckResult) extends SemanticCheck
 
+  /** Runs `first` followed by `next`, see [[SemanticCheck.chain]]. */
+  final private[semantics] case class Chain(first: SemanticCheck, next: SemanticCheck) extends SemanticCheck
+
+  /** Runs `first` followed by `next`, if `first` produced no errors, see [[SemanticCheck.ifOkChain]]. */
+  final private[semantics] case class IfOkChain(first: SemanticCheck, next: () => SemanticCheck) extends SemanticCheck
+
   final private[semantics] case class Map(check: SemanticCheck, f: SemanticCheckResult => SemanticCheckResult)
       extends SemanticCheck
 
@@ -15,67 +15,100 @@
  */
 package org.opencypher.v9_0.ast.semantics
 
-import scala.annotation.tailrec
-
 object SemanticCheckInterpreter {
 
+  /**
+   * Runs the check on a state with transient maps (see [[TransientAnnotationMap]]), which the leaves of the check
+   * update in place as long as they continue from the latest state, and turns them back into persistent maps once at
+   * the end. A run nested in the leaf of another one continues on the transient maps of the outer run.
+   */
   def runCheck(
     check: SemanticCheck,
     initialState: SemanticState,
     context: SemanticCheckContext
   ): SemanticCheckResult = {
-    run(SemanticCheckResult.success(initialState), List(ExecutableCheck(check)))(context, Vector.empty)
+    val outermost = !initialState.isTransient
+    val state = if (outermost) initialState.transient else initialState
+    val result = withStack(run(SemanticCheckResult.success(state), check, context, _))
+    if (outermost) result.copy(state = result.state.persistent) else result
   }
 
-  @tailrec
+  /**
+   * Runs the check on an explicit stack of continuations, so that deep checks do not overflow the call stack.
+   * Each frame is a tag and a payload, which saves wrapping every continuation in an object of its own.
+   */
   private def run(
-    result: SemanticCheckResult,
-    checkStack: List[ExecutableCheck]
-  )(implicit context: SemanticCheckContext, debugAnnotations: Vector[String]): SemanticCheckResult = {
-
-    checkStack match {
-      case Nil =>
-        result
-
-      case ExecutableCheck.Wrapper(check) :: checkStackTail =>
-        check match {
-          case SemanticCheck.Leaf(f) =>
-            run(f(result.state), checkStackTail)
-
-          case SemanticCheck.Map(check, func) =>
-            run(result, ExecutableCheck(check) :: ExecutableCheck.Map(func) :: checkStackTail)
-
-          case SemanticCheck.FlatMap(check, func) =>
-            run(result, ExecutableCheck(check) :: ExecutableCheck.FlatMap(func) :: checkStackTail)
-
-          case SemanticCheck.CheckFromContext(f) =>
-            run(result, ExecutableCheck(f(context)) :: checkStackTail)
-
-          case SemanticCheck.Annotated(check, annotation) =>
-            run(result, addDebugPrints(check, checkStackTail))(context, debugAnnotations :+ annotation)
-        }
-
-      case ExecutableCheck.Map(func) :: checkStackTail =>
-        run(func(result), checkStackTail)
-
-      case ExecutableCheck.FlatMap(func) :: checkStackTail =>
-        run(result, ExecutableCheck(func(result)) :: checkStackTail)
-
-      case ExecutableCheck.PopAnnotation :: checkStackTail =>
-        run(result, checkStackTail)(context, debugAnnotations.init)
-
-      case ExecutableCheck.PrintAnnotations :: checkStackTail =>
-        printAnnotations(debugAnnotations)
-        run(result, checkStackTail)
+    initial: SemanticCheckResult,
+    check: SemanticCheck,
+    context: SemanticCheckContext,
+    stack: ContinuationStack
+  ): SemanticCheckResult = {
+    var result = initial
+    var debugAnnotations = Vector.empty[String]
+    stack.push(Frame.Check, check)
+
+    while (stack.nonEmpty) {
+      val payload = stack.topPayload
+      val tag = stack.pop()
+      tag match {
+        case Frame.Check =>
+          payload match {
+            case SemanticCheck.Leaf(f) =>
+              result = f(result.state)
+
+            case SemanticCheck.Chain(first, next) =>
+              stack.push(Frame.Chain, next)
+              stack.push(Frame.Check, first)
+
+            case SemanticCheck.IfOkChain(first, next) =>
+              stack.push(Frame.IfOkChain, next)
+              stack.push(Frame.Check, first)
+
+            case SemanticCheck.Map(check, func) =>
+              stack.push(Frame.Map, func)
+              stack.push(Frame.Check, check)
+
+            case SemanticCheck.FlatMap(check, func) =>
+              stack.push(Frame.FlatMap, func)
+              stack.push(Frame.Check, check)
+
+            case SemanticCheck.CheckFromContext(f) =>
+              stack.push(Frame.Check, f(context))
+
+            case SemanticCheck.Annotated(check, annotation) =>
+              if (SemanticCheck.DEBUG_ENABLED) {
+                debugAnnotations = debugAnnotations :+ annotation
+                printAnnotations(debugAnnotations)
+                stack.push(Frame.PrintAnnotations, null)
+                stack.push(Frame.PopAnnotation, null)
+              }
+              stack.push(Frame.Check, check)
+          }
+
+        case Frame.Chain =>
+          if (result.errors.nonEmpty) stack.push(Frame.PrependErrors, result.errors)
+          stack.push(Frame.Check, payload)
+
+        case Frame.PrependErrors =>
+          result = SemanticCheckResult(result.state, payload.asInstanceOf[Seq[SemanticErrorDef]] ++ result.errors)
+
+        case Frame.IfOkChain =>
+          if (result.errors.isEmpty) stack.push(Frame.Check, payload.asInstanceOf[() => SemanticCheck]())
+
+        case Frame.Map =>
+          result = payload.asInstanceOf[SemanticCheckResult => SemanticCheckResult](result)
+
+        case Frame.FlatMap =>
+          stack.push(Frame.Check, payload.asInstanceOf[SemanticCheckResult => SemanticCheck](result))
+
+        case Frame.PopAnnotation =>
+          debugAnnotations = debugAnnotations.init
+
+        case Frame.PrintAnnotations =>
+          printAnnotations(debugAnnotations)
+      }
     }
-  }
-
-  private def addDebugPrints(check: SemanticCheck, checkStack: List[ExecutableCheck]): List[ExecutableCheck] = {
-    ExecutableCheck.PrintAnnotations ::
-      ExecutableCheck(check) ::
-      ExecutableCheck.PopAnnotation ::
-      ExecutableCheck.PrintAnnotations ::
-      checkStack
+    result
   }
 
   private def printAnnotations(annotations: Vector[String]): Unit = {
@@ -86,15 +119,67 @@ object SemanticCheckInterpreter {
     println()
   }
 
-  sealed private trait ExecutableCheck
+  private object Frame {
+    final val Check: Byte = 0
+    final val Chain: Byte = 1
+    final val PrependErrors: Byte = 2
+    final val IfOkChain: Byte = 3
+    final val Map: Byte = 4
+    final val FlatMap: Byte = 5
+    final val PopAnnotation: Byte = 6
+    final val PrintAnnotations: Byte = 7
+  }
+
+  /**
+   * Every thread keeps one stack, which the outermost run on that thread uses.
+   * Runs nested in the leaves of another run get a fresh stack, as the shared one is still in use.
+   */
+  private val stacks = ThreadLocal.withInitial[ContinuationStack](() => new ContinuationStack)
+
+  private def withStack(f: ContinuationStack => SemanticCheckResult): SemanticCheckResult = {
+    val shared = stacks.get()
+    if (shared.inUse) {
+      f(new ContinuationStack)
+    } else {
+      shared.inUse = true
+      try f(shared)
+      finally shared.release()
+    }
+  }
+
+  final private class ContinuationStack {
+    private var tags = new Array[Byte](64)
+    private var payloads = new Array[AnyRef](64)
+    private var size = 0
+    var inUse = false
+
+    def nonEmpty: Boolean = size > 0
+
+    def push(tag: Byte, payload: AnyRef): Unit = {
+      if (size == tags.length) {
+        tags = java.util.Arrays.copyOf(tags, size * 2)
+        payloads = java.util.Arrays.copyOf(payloads, size * 2)
+      }
+      tags(size) = tag
+      payloads(size) = payload
+      size += 1
+    }
+
+    def topPayload: AnyRef = payloads(size - 1)
 
-  private object ExecutableCheck {
-    def apply(check: SemanticCheck): ExecutableCheck = Wrapper(check)
+    def pop(): Byte = {
+      size -= 1
+      payloads(size) = null
+      tags(size)
+    }
 
-    final case class Map(f: SemanticCheckResult => SemanticCheckResult) extends ExecutableCheck
-    final case class FlatMap(f: SemanticCheckResult => SemanticCheck) extends ExecutableCheck
-    final case class Wrapper(check: SemanticCheck) extends ExecutableCheck
-    final case object PopAnnotation extends ExecutableCheck
-    final case object PrintAnnotations extends ExecutableCheck
+    /**
+     * Drops the frames left over by a run that failed with an exception, and lets the next run use the stack.
+     */
+    def release(): Unit = {
+      java.util.Arrays.fill(payloads, 0, size, null)
+      size = 0
+      inUse = false
+    }
   }
 }
@@ -43,6 +43,13 @@ object SemanticFeature {
     override def name: String = "Quantified path patterns"
   }
 
+  /**
+   * Checks the parts of a UNION in parallel, see [[ParallelSemanticCheck]].
+   * This does not change the result of semantic analysis, only how long it takes for queries with many parts.
+   * It is not a language feature, so it cannot be selected by name with [[fromString]].
+   */
+  case object ParallelUnionParts extends SemanticFeature
+
   private val allSemanticFeatures = Set(
     MultipleDatabases,
     MultipleGraphs,
@@ -104,6 +104,14 @@ final case class ExpressionTypeInfo(specified: TypeSpec, expected: Option[TypeSp
 
 object Scope {
   val empty: Scope = Scope(symbolTable = HashMap.empty, children = Vector())
+
+  // Merges the smaller of two groupings into the larger one.
+  private def mergeGroups[K, V](a: Map[K, Set[V]], b: Map[K, Set[V]]): Map[K, Set[V]] = {
+    val (larger, smaller) = if (a.size >= b.size) (a, b) else (b, a)
+    smaller.foldLeft(larger) {
+      case (acc, (key, values)) => acc.updated(key, acc.get(key).fold(values)(_ ++ values))
+    }
+  }
 }
 
 final case class Scope(symbolTable: Map[String, Symbol], children: Seq[Scope]) extends TreeElem[Scope] {
@@ -126,37 +134,34 @@ final case class Scope(symbolTable: Map[String, Symbol], children: Seq[Scope]) e
   def updateVariable(variable: String, types: TypeSpec, definition: SymbolUse, uses: Set[SymbolUse]): Scope =
     copy(symbolTable = symbolTable.updated(variable, Symbol(variable, types, definition, uses)))
 
+  // Scopes are immutable, so the indexes over the subtree of a scope are built at most once, from the indexes of
+  // its children. Declaring or updating a variable only replaces the current scope and its ancestors, so the next
+  // lookup rebuilds just those and reuses the indexes of every other subtree.
+
+  private lazy val subtreeSymbolDefinitions: Map[String, Set[SymbolUse]] =
+    children.foldLeft(symbolDefinitions.groupBy(_.name)) {
+      (acc, child) => Scope.mergeGroups(acc, child.subtreeSymbolDefinitions)
+    }
+
+  private lazy val subtreeSymbols: Map[String, Set[Symbol]] =
+    children.foldLeft(symbolTable.map { case (name, symbol) => name -> Set(symbol) }) {
+      (acc, child) => Scope.mergeGroups(acc, child.subtreeSymbols)
+    }
+
+  private lazy val subtreeVariableDefinitions: Map[SymbolUse, SymbolUse] =
+    children.foldLeft(variableDefinitions)(_ ++ _.subtreeVariableDefinitions)
+
   /**
    * All symbol definitions of this scope and its children,
    * grouped by name.
    */
-  def allSymbolDefinitions: Map[String, Set[SymbolUse]] = {
-    allScopes.foldLeft(Map.empty[String, Set[SymbolUse]]) {
-      case (acc0, scope) =>
-        scope.symbolDefinitions.foldLeft(acc0) {
-          case (acc, symDef) if acc.contains(symDef.name) =>
-            acc.updated(symDef.name, acc(symDef.name) + symDef)
-          case (acc, symDef) =>
-            acc.updated(symDef.name, Set(symDef))
-        }
-    }
-  }
+  def allSymbolDefinitions: Map[String, Set[SymbolUse]] = subtreeSymbolDefinitions
 
   /**
    * All symbols of this scope and its children,
    * grouped by name.
    */
-  def allSymbols: Map[String, Set[Symbol]] = {
-    allScopes.foldLeft(Map.empty[String, Set[Symbol]]) {
-      case (acc0, scope) =>
-        scope.symbolTable.foldLeft(acc0) {
-          case (acc, (str, symbol)) if acc.contains(str) =>
-            acc.updated(str, acc(str) + symbol)
-          case (acc, (str, symbol)) =>
-            acc.updated(str, Set(symbol))
-        }
-    }
-  }
+  def allSymbols: Map[String, Set[Symbol]] = subtreeSymbols
 
   /**
    * All symbols of this scope.
@@ -167,8 +172,7 @@ final case class Scope(symbolTable: Map[String, Symbol], children: Seq[Scope]) e
   /**
    * @return A map from any use (read or definition) of a variable to its definition, in all scopes.
    */
-  def allVariableDefinitions: Map[SymbolUse, SymbolUse] =
-    allScopes.map(_.variableDefinitions).reduce(_ ++ _)
+  def allVariableDefinitions: Map[SymbolUse, SymbolUse] = subtreeVariableDefinitions
 
   /**
    * @return A map from any reference of a variable to its definition, in the current scope.
@@ -405,4 +409,25 @@ case class SemanticState(
     recordedScopes.get(astNode).map(_.scope)
 
   def withFeature(feature: SemanticFeature): SemanticState = copy(features = features + feature)
+
+  /**
+   * This state with a transient type table and recorded scopes, see [[TransientAnnotationMap]].
+   */
+  private[semantics] def transient: SemanticState =
+    copy(typeTable = TransientAnnotationMap(typeTable), recordedScopes = TransientAnnotationMap(recordedScopes))
+
+  private[semantics] def isTransient: Boolean =
+    TransientAnnotationMap.isTransient(typeTable) || TransientAnnotationMap.isTransient(recordedScopes)
+
+  /**
+   * This state with persistent maps only, which is safe to share.
+   */
+  private[semantics] def persistent: SemanticState =
+    if (isTransient)
+      copy(
+        typeTable = TransientAnnotationMap.persistent(typeTable),
+        recordedScopes = TransientAnnotationMap.persistent(recordedScopes)
+      )
+    else
+      this
 }
@@ -45,6 +45,57 @@ object SemanticTable {
     recordedScopes: ASTAnnotationMap[ASTNode, Scope] = ASTAnnotationMap.empty
   ) =
     new SemanticTable(types, recordedScopes)
+
+  /**
+   * The entries of a table whose keys have node ids, in a vector indexed by id, or null where there is no entry.
+   * Tables derived from each other share most of the vector, so adding an entry does not copy all of them.
+   */
+  final private class NodeIdIndex(entries: Vector[(Expression, ExpressionTypeInfo)]) {
+
+    def apply(expr: Expression): ExpressionTypeInfo = {
+      val i = expr.nodeId.x
+      if (i < entries.length) {
+        val entry = entries(i)
+        if (entry != null && (entry._1 eq expr)) entry._2 else null
+      } else {
+        null
+      }
+    }
+
+    def updated(expr: Expression, typeInfo: ExpressionTypeInfo): NodeIdIndex = {
+      val i = expr.nodeId.x
+      val padded = if (i < entries.length) entries else entries.padTo(i + 1, null)
+      new NodeIdIndex(padded.updated(i, (expr, typeInfo)))
+    }
+  }
+
+  private def indexNodeIds(types: ASTAnnotationMap[Expression, ExpressionTypeInfo]): NodeIdIndex = {
+    var size = 0
+    types.keysIterator.foreach(key => size = math.max(size, key.node.nodeId.x + 1))
+    val entries = new Array[(Expression, ExpressionTypeInfo)](size)
+    types.foreach {
+      case (PositionedNode(key), typeInfo) if key.hasNodeId =>
+        entries(key.nodeId.x) = (key, typeInfo)
+      case _ =>
+    }
+    new NodeIdIndex(entries.toVector)
+  }
+
+  private type VariableIndex = Map[String, Map[PositionedNode[Expression], ExpressionTypeInfo]]
+
+  private def indexVariables(types: ASTAnnotationMap[Expression, ExpressionTypeInfo]): VariableIndex =
+    types.foldLeft(Map.empty: VariableIndex) {
+      case (index, (key @ PositionedNode(Variable(name)), typ)) => indexVariable(index, name, key, typ)
+      case (index, _)                                           => index
+    }
+
+  private def indexVariable(
+    index: VariableIndex,
+    name: String,
+    key: PositionedNode[Expression],
+    typ: ExpressionTypeInfo
+  ): VariableIndex =
+    index.updated(name, index.getOrElse(name, Map.empty).updated(key, typ))
 }
 
 class SemanticTable(
@@ -55,51 +106,91 @@ class SemanticTable(
   val resolvedRelTypeNames: mutable.Map[String, RelTypeId] = new mutable.HashMap[String, RelTypeId]
 ) extends Cloneable {
 
-  def getTypeFor(s: String): TypeSpec =
-    try {
-      val reducedType = types.collect {
-        case (PositionedNode(Variable(name)), typ) if name == s => typ.specified
-      }.reduce(_ & _)
+  /**
+   * The entries of [[types]] for variables, keyed by variable name.
+   *
+   * Built on the first lookup by name and then carried over to the tables derived by [[addTypeInfo]] and [[copy]],
+   * so that looking up a variable does not scan all typed expressions.
+   */
+  @volatile private var variableIndex: SemanticTable.VariableIndex = _
+
+  /**
+   * The entries of [[types]] whose keys have node ids (see [[org.opencypher.v9_0.util.attribution.NodeIds]]),
+   * so that expressions from a tree with ids are looked up by index instead of hashing.
+   *
+   * Built on the first lookup of an expression with an id, and then carried over like [[variableIndex]].
+   * An entry is only used for the very instance it was recorded for; anything else is looked up in [[types]].
+   */
+  @volatile private var nodeIdIndex: SemanticTable.NodeIdIndex = _
+
+  private def indexedTypeInfo(expr: Expression): ExpressionTypeInfo =
+    if (expr.hasNodeId) {
+      var index = nodeIdIndex
+      if (index == null) {
+        index = SemanticTable.indexNodeIds(types)
+        nodeIdIndex = index
+      }
+      index(expr)
+    } else {
+      null
+    }
+
+  private def typeInfo(expr: Expression): Option[ExpressionTypeInfo] = {
+    val typeInfo = indexedTypeInfo(expr)
+    if (typeInfo != null) Some(typeInfo) else types.get(expr)
+  }
 
-      if (reducedType.isEmpty)
-        throw new IllegalStateException(s"This semantic table contains conflicting type information for variable $s")
+  private def typeInfoOrFail(expr: Expression): ExpressionTypeInfo = {
+    val typeInfo = indexedTypeInfo(expr)
+    if (typeInfo != null) typeInfo else types(expr)
+  }
 
-      reducedType
-    } catch {
-      case e: UnsupportedOperationException =>
-        throw new IllegalStateException(s"Did not find any type information for variable $s", e)
+  private def variableTypes(name: String): Map[PositionedNode[Expression], ExpressionTypeInfo] = {
+    var index = variableIndex
+    if (index == null) {
+      index = SemanticTable.indexVariables(types)
+      variableIndex = index
     }
+    index.getOrElse(name, Map.empty)
+  }
+
+  def getTypeFor(s: String): TypeSpec = {
+    val variableTypeInfos = variableTypes(s)
+    if (variableTypeInfos.isEmpty)
+      throw new IllegalStateException(s"Did not find any type information for variable $s")
+
+    val reducedType = variableTypeInfos.valuesIterator.map(_.specified).reduce(_ & _)
+
+    if (reducedType.isEmpty)
+      throw new IllegalStateException(s"This semantic table contains conflicting type information for variable $s")
+
+    reducedType
+  }
 
   def getActualTypeFor(expr: Expression): TypeSpec =
-    types.getOrElse(
-      expr,
+    typeInfo(expr).getOrElse(
       throw new IllegalStateException(s"Did not find any type information for expression $expr")
     ).actual
 
   def getOptionalActualTypeFor(expr: Expression): Option[TypeSpec] =
-    types.get(expr).map(_.actual)
+    typeInfo(expr).map(_.actual)
 
   /**
    * Returns the actual type of the specified variable name if it exists and has no conflicting type information, else none.
    */
   def getOptionalActualTypeFor(variableName: String): Option[TypeSpec] = {
-    val matchedTypes = types.collect {
-      case (PositionedNode(Variable(name)), typ) if name == variableName => typ.actual
-    }
+    val matchedTypes = variableTypes(variableName)
 
     if (matchedTypes.nonEmpty) {
-      Some(matchedTypes.reduce(_ intersect _))
+      Some(matchedTypes.valuesIterator.map(_.actual).reduce(_ intersect _))
         .filterNot(_.isEmpty) // Ignores cases when semantic table contains conflicting type information
     } else {
       None
     }
   }
 
-  def containsNode(expr: String): Boolean = types.exists {
-    case (PositionedNode(v @ Variable(name)), _) =>
-      name == expr && isNode(v) // NOTE: Profiling showed that checking node type last is better
-    case _ => false
-  }
+  def containsNode(expr: String): Boolean =
+    variableTypes(expr).valuesIterator.exists(_.specified == CTNode.invariant)
 
   def id(labelName: LabelName): Option[LabelId] = resolvedLabelNames.get(labelName.name)
 
@@ -107,7 +198,7 @@ class SemanticTable(
 
   def id(resolvedRelTypeName: RelTypeName): Option[RelTypeId] = resolvedRelTypeNames.get(resolvedRelTypeName.name)
 
-  def seen(expression: Expression): Boolean = types.contains(expression)
+  def seen(expression: Expression): Boolean = indexedTypeInfo(expression) != null || types.contains(expression)
 
   def isNode(expr: String): Boolean = getTypeFor(expr) == CTNode.invariant
 
@@ -128,25 +219,25 @@ class SemanticTable(
 
   def isNodeCollection(expr: String): Boolean = getTypeFor(expr) == CTList(CTNode).invariant
 
-  def isNode(expr: Expression): Boolean = types(expr).specified == CTNode.invariant
+  def isNode(expr: Expression): Boolean = typeInfoOrFail(expr).specified == CTNode.invariant
 
-  def isInteger(expression: Expression): Boolean = types(expression).specified == CTInteger.invariant
+  def isInteger(expression: Expression): Boolean = typeInfoOrFail(expression).specified == CTInteger.invariant
 
   /**
    * Same as isNode, but will simply return false if no semantic information is available instead of failing.
    */
-  def isNodeNoFail(expr: Expression): Boolean = types.get(expr).map(_.specified).contains(CTNode.invariant)
+  def isNodeNoFail(expr: Expression): Boolean = typeInfo(expr).map(_.specified).contains(CTNode.invariant)
 
-  def isRelationship(expr: Expression): Boolean = types(expr).specified == CTRelationship.invariant
+  def isRelationship(expr: Expression): Boolean = typeInfoOrFail(expr).specified == CTRelationship.invariant
 
   /**
    * Same as isRelationship, but will simply return false if no semantic information is available instead of failing.
    */
   def isRelationshipNoFail(expr: Expression): Boolean =
-    types.get(expr).map(_.specified).contains(CTRelationship.invariant)
+    typeInfo(expr).map(_.specified).contains(CTRelationship.invariant)
 
   def isMapNoFail(expr: Expression): Boolean =
-    types.get(expr).map(_.specified).contains(CTMap.invariant)
+    typeInfo(expr).map(_.specified).contains(CTMap.invariant)
 
   def addNode(expr: Variable): SemanticTable =
     addTypeInfo(expr, CTNode.invariant)
@@ -157,8 +248,29 @@ class SemanticTable(
   def addTypeInfoCTAny(expr: Expression): SemanticTable =
     addTypeInfo(expr, CTAny.invariant)
 
-  def addTypeInfo(expr: Expression, typeSpec: TypeSpec): SemanticTable =
-    copy(types = types.updated(expr, ExpressionTypeInfo(typeSpec, None)))
+  def addTypeInfo(expr: Expression, typeSpec: TypeSpec): SemanticTable = {
+    val typeInfo = ExpressionTypeInfo(typeSpec, None)
+    val table = copy(types = types.updated(expr, typeInfo))
+    val index = variableIndex
+    if (index != null) {
+      table.variableIndex = expr match {
+        case v @ Variable(name) => SemanticTable.indexVariable(index, name, PositionedNode(v), typeInfo)
+        case _                  => index
+      }
+    }
+    val idIndex = nodeIdIndex
+    if (idIndex != null) {
+      // An equal key that is already in the table might be indexed under another id, so only carry the index over
+      // if the entry is new, or is replaced under the very instance that is indexed.
+      val isNewEntry = !types.contains(expr)
+      if (expr.hasNodeId && (isNewEntry || idIndex(expr) != null)) {
+        table.nodeIdIndex = idIndex.updated(expr, typeInfo)
+      } else if (isNewEntry) {
+        table.nodeIdIndex = idIndex
+      }
+    }
+    table
+  }
 
   def replaceExpressions(rewriter: Rewriter): SemanticTable = {
     val replacements = types.keys.toIndexedSeq.map { keyExpression =>
@@ -178,12 +290,18 @@ class SemanticTable(
     resolvedLabelIds: mutable.Map[String, LabelId] = resolvedLabelNames,
     resolvedPropertyKeyNames: mutable.Map[String, PropertyKeyId] = resolvedPropertyKeyNames,
     resolvedRelTypeNames: mutable.Map[String, RelTypeId] = resolvedRelTypeNames
-  ) =
-    new SemanticTable(
+  ): SemanticTable = {
+    val table = new SemanticTable(
       types,
       recordedScopes,
       resolvedLabelIds.clone(),
       resolvedPropertyKeyNames.clone(),
       resolvedRelTypeNames.clone()
     )
+    if (types eq this.types) {
+      table.variableIndex = variableIndex
+      table.nodeIdIndex = nodeIdIndex
+    }
+    table
+  }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.semantics
+
+import org.opencypher.v9_0.ast.ASTAnnotationMap.ASTAnnotationMap
+import org.opencypher.v9_0.ast.ASTAnnotationMap.PositionedNode
+import org.opencypher.v9_0.ast.semantics.TransientAnnotationMap.Entry
+import org.opencypher.v9_0.ast.semantics.TransientAnnotationMap.Log
+import org.opencypher.v9_0.util.ASTNode
+
+import scala.collection.immutable.AbstractMap
+import scala.jdk.CollectionConverters.IteratorHasAsScala
+
+/**
+ * An [[ASTAnnotationMap]] for the type table and the recorded scopes of a [[SemanticState]] while it is being checked,
+ * see [[SemanticCheckInterpreter]].
+ *
+ * Checks update these maps once per expression, and nearly always continue from the state they have just created.
+ * All versions derived from one another share an append-only log of updates on top of a persistent base map,
+ * so that updating the latest version is an insertion into a mutable hash map, rather than a path copy in a
+ * persistent one. Each version only sees the updates up to its own, so older states can still be read and updated:
+ * updating a version that is not the latest one starts a new log with what it sees as its base.
+ *
+ * Not thread-safe: all versions sharing a log must be used by one thread, as within one run of the interpreter.
+ * Use [[TransientAnnotationMap.persistent]] before handing a map to other code.
+ */
+final private[semantics] class TransientAnnotationMap[K <: ASTNode, V] private (log: Log[K, V], version: Int)
+    extends AbstractMap[PositionedNode[K], V] {
+
+  // The entry of the chain that this version sees, or null.
+  private def visible(latest: Entry[K, V]): Entry[K, V] = {
+    var entry = latest
+    while (entry != null && entry.version > version) entry = entry.previous
+    entry
+  }
+
+  private def visibleEntry(key: PositionedNode[K]): Entry[K, V] = visible(log.entries.get(key))
+
+  private def logIterator: Iterator[(PositionedNode[K], V)] =
+    log.entries.values().iterator().asScala.flatMap { latest =>
+      val entry = visible(latest)
+      if (entry != null) Some(entry.key -> entry.value) else None
+    }
+
+  override def get(key: PositionedNode[K]): Option[V] = {
+    val entry = visibleEntry(key)
+    if (entry != null) Some(entry.value) else log.base.get(key)
+  }
+
+  override def updated[V1 >: V](key: PositionedNode[K], value: V1): Map[PositionedNode[K], V1] =
+    if (version == log.length) {
+      val widened = log.asInstanceOf[Log[K, V1]]
+      val previous = widened.entries.get(key)
+      val isNewKey = previous == null && !widened.base.contains(key)
+      widened.append(new Entry(widened.length + 1, key, value, previous), isNewKey)
+      new TransientAnnotationMap(widened, widened.length)
+    } else {
+      TransientAnnotationMap(persistent).updated(key, value)
+    }
+
+  override def removed(key: PositionedNode[K]): Map[PositionedNode[K], V] =
+    persistent.removed(key)
+
+  override def iterator: Iterator[(PositionedNode[K], V)] =
+    log.base.iterator.filter { case (key, _) => visibleEntry(key) == null } ++ logIterator
+
+  override def size: Int = log.sizes(version)
+
+  override def knownSize: Int = size
+
+  /**
+   * This version as a persistent map.
+   */
+  def persistent: ASTAnnotationMap[K, V] =
+    if (version == 0) log.base
+    else log.base ++ logIterator
+}
+
+private[semantics] object TransientAnnotationMap {
+
+  /**
+   * A transient map with the contents of `map`.
+   */
+  def apply[K <: ASTNode, V](map: ASTAnnotationMap[K, V]): ASTAnnotationMap[K, V] = map match {
+    case transient: TransientAnnotationMap[K, V] => transient
+    case _                                       => new TransientAnnotationMap(new Log(map), 0)
+  }
+
+  def isTransient(map: Map[_, _]): Boolean = map.isInstanceOf[TransientAnnotationMap[_ <: ASTNode, _]]
+
+  /**
+   * `map` as a persistent map, which is safe to share.
+   */
+  def persistent[K <: ASTNode, V](map: ASTAnnotationMap[K, V]): ASTAnnotationMap[K, V] = map match {
+    case transient: TransientAnnotationMap[K, V] => transient.persistent
+    case _                                       => map
+  }
+
+  /**
+   * A value of a key, set by the update that created `version`, and the previous value of the same key in the log.
+   */
+  final private class Entry[K <: ASTNode, +V](
+    val version: Int,
+    val key: PositionedNode[K],
+    val value: V,
+    val previous: Entry[K, V]
+  )
+
+  final private class Log[K <: ASTNode, V](val base: ASTAnnotationMap[K, V]) {
+    val entries = new java.util.HashMap[PositionedNode[K], Entry[K, V]]()
+
+    // the number of updates, which is also the latest version
+    var length = 0
+
+    // the size of every version
+    var sizes: Array[Int] = Array(base.size, 0, 0, 0, 0, 0, 0, 0)
+
+    def append(entry: Entry[K, V], isNewKey: Boolean): Unit = {
+      entries.put(entry.key, entry)
+      if (length + 1 == sizes.length) sizes = java.util.Arrays.copyOf(sizes, sizes.length * 2)
+      sizes(length + 1) = sizes(length) + (if (isNewKey) 1 else 0)
+      length += 1
+    }
+  }
+}
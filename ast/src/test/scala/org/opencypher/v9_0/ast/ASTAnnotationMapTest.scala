@@ -15,6 +15,7 @@
  */
 package org.opencypher.v9_0.ast
 
+import org.opencypher.v9_0.ast.ASTAnnotationMap.NodeIdentity
 import org.opencypher.v9_0.ast.ASTAnnotationMap.PositionedNode
 import org.opencypher.v9_0.util.ASTNode
 import org.opencypher.v9_0.util.InputPosition
@@ -104,4 +105,19 @@ class ASTAnnotationMapTest extends CypherFunSuite {
     val p = PositionedNode(Exp("1")(null))
     noException should be thrownBy p.hashCode
   }
+
+  test("ASTNode.hashCode() is equal for equal nodes and does not change") {
+    val n1 = Exp("1")(InputPosition(0, 0, 0))
+    val n2 = Exp("1")(InputPosition(1, 0, 0))
+    assert(n1.hashCode === n2.hashCode)
+    assert(n1.hashCode === n1.hashCode)
+  }
+
+  test("NodeIdentity is equal for the same instance only") {
+    val n1 = Exp("1")(InputPosition(0, 0, 0))
+    val n2 = Exp("1")(InputPosition(0, 0, 0))
+    assert(NodeIdentity(n1) === NodeIdentity(n1))
+    assert(NodeIdentity(n1).hashCode === NodeIdentity(n1).hashCode)
+    assert(NodeIdentity(n1) !== NodeIdentity(n2))
+  }
 }
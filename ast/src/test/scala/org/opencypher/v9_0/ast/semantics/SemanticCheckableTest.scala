@@ -380,4 +380,44 @@ class SemanticCheckableTest extends CypherFunSuite with SemanticAnalysisTooling
     check.run(SemanticState.clean, SemanticCheckContext.default) shouldBe
       SemanticCheckResult.success(SemanticState.clean)
   }
+
+  test("long chain of checks with errors should not cause stack overflow") {
+    val error = SemanticError("an error", DummyPosition(0))
+    val leftNested = Vector.fill(10000)(SemanticCheck.error(error)).reduceLeft(_ chain _)
+    val rightNested = Vector.fill(10000)(SemanticCheck.error(error)).reduceRight(_ chain _)
+    val okChain = Vector.fill(10000)(SemanticCheck.fromFunction(SemanticCheckResult.success)).reduce(_ ifOkChain _)
+
+    leftNested.run(SemanticState.clean, SemanticCheckContext.default).errors shouldBe Seq.fill(10000)(error)
+    rightNested.run(SemanticState.clean, SemanticCheckContext.default).errors shouldBe Seq.fill(10000)(error)
+    okChain.run(SemanticState.clean, SemanticCheckContext.default).errors shouldBe empty
+  }
+
+  test("chaining with success should return the other check") {
+    val check = SemanticCheck.fromFunction(SemanticCheckResult.success)
+
+    (SemanticCheck.success chain check) should be theSameInstanceAs check
+    (check chain SemanticCheck.success) should be theSameInstanceAs check
+  }
+
+  test("should run checks nested in the leaves of another check") {
+    val error1 = SemanticError("an error", DummyPosition(0))
+    val error2 = SemanticError("another error", DummyPosition(0))
+    val inner = SemanticCheck.error(error1) chain SemanticCheck.error(error2)
+    val outer = SemanticCheck.fromFunctionWithContext { (state, context) =>
+      val result = inner.run(state, context)
+      SemanticCheckResult(result.state, result.errors.reverse)
+    }
+
+    (outer chain inner).run(SemanticState.clean, SemanticCheckContext.default).errors shouldBe
+      Seq(error2, error1, error1, error2)
+  }
+
+  test("should run checks after a check failed with an exception") {
+    val error = SemanticError("an error", DummyPosition(0))
+    val failing = SemanticCheck.error(error) chain SemanticCheck.fromFunction(_ => throw new IllegalStateException())
+
+    an[IllegalStateException] should be thrownBy failing.run(SemanticState.clean, SemanticCheckContext.default)
+    (SemanticCheck.error(error) chain SemanticCheck.error(error))
+      .run(SemanticState.clean, SemanticCheckContext.default).errors shouldBe Seq(error, error)
+  }
 }
@@ -294,6 +294,29 @@ class SemanticStateTest extends CypherFunSuite {
     actual.scopeTree should equal(expected.scopeTree)
   }
 
+  test("should keep the symbol definitions of the scope tree up to date when declaring variables") {
+    val foo = Variable("foo")(DummyPosition(0))
+    val bar = Variable("bar")(DummyPosition(1))
+    val foo2 = Variable("foo")(DummyPosition(2))
+    val fooUse = Variable("foo")(DummyPosition(3))
+
+    val s1 = SemanticState.clean.declareVariable(foo, CTNode).right.get
+    s1.scopeTree.allSymbolDefinitions should equal(Map("foo" -> Set(SymbolUse(foo))))
+
+    val s2 = s1.newChildScope.declareVariable(bar, CTNode).right.get
+    val s3 = s2.newSiblingScope.declareVariable(foo2, CTNode).right.get
+    s3.scopeTree.allSymbolDefinitions should equal(Map(
+      "foo" -> Set(SymbolUse(foo), SymbolUse(foo2)),
+      "bar" -> Set(SymbolUse(bar))
+    ))
+    s3.scopeTree.allSymbols("foo").map(_.definition) should equal(Set(SymbolUse(foo), SymbolUse(foo2)))
+
+    val s4 = s3.ensureVariableDefined(fooUse).right.get
+    s4.scopeTree.allVariableDefinitions(SymbolUse(fooUse)) should equal(SymbolUse(foo2))
+    s3.scopeTree.allVariableDefinitions.get(SymbolUse(fooUse)) should be(None)
+    s1.scopeTree.allSymbolDefinitions should equal(Map("foo" -> Set(SymbolUse(foo))))
+  }
+
   implicit class ChainableSemanticStateEither(either: Either[SemanticError, SemanticState]) {
 
     def chain(next: SemanticState => Either[SemanticError, SemanticState]): Either[SemanticError, SemanticState] = {
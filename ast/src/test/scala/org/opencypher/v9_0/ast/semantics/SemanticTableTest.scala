@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.semantics
+
+import org.opencypher.v9_0.expressions.ListLiteral
+import org.opencypher.v9_0.expressions.Variable
+import org.opencypher.v9_0.util.InputPosition
+import org.opencypher.v9_0.util.Rewriter
+import org.opencypher.v9_0.util.attribution.NodeIds
+import org.opencypher.v9_0.util.bottomUp
+import org.opencypher.v9_0.util.symbols.CTInteger
+import org.opencypher.v9_0.util.symbols.CTNode
+import org.opencypher.v9_0.util.symbols.CTRelationship
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class SemanticTableTest extends CypherFunSuite {
+
+  private def variable(name: String, offset: Int): Variable = Variable(name)(InputPosition(offset, 1, offset + 1))
+
+  test("should find the type of a variable by name") {
+    val table = SemanticTable()
+      .addNode(variable("n", 0))
+      .addRelationship(variable("r", 1))
+
+    table.isNode("n") shouldBe true
+    table.isRelationship("r") shouldBe true
+    table.containsNode("n") shouldBe true
+    table.containsNode("r") shouldBe false
+    table.getOptionalActualTypeFor("m") shouldBe None
+    an[IllegalStateException] should be thrownBy table.getTypeFor("m")
+  }
+
+  test("should keep the variable index up to date when adding type information after a lookup") {
+    val table = SemanticTable().addNode(variable("n", 0))
+    table.isNode("n") shouldBe true
+    table.isNodeNoFail("m") shouldBe false
+
+    val updated = table.addRelationship(variable("m", 1))
+
+    updated.isRelationship("m") shouldBe true
+    updated.isNode("n") shouldBe true
+    table.isNodeNoFail("m") shouldBe false
+  }
+
+  test("should combine the type information of all occurrences of a variable") {
+    val table = SemanticTable()
+      .addNode(variable("n", 0))
+      .addTypeInfo(variable("n", 1), CTNode.invariant)
+    table.isNode("n") shouldBe true
+
+    val conflicting = table.addTypeInfo(variable("n", 2), CTInteger.invariant)
+
+    conflicting.getOptionalActualTypeFor("n") shouldBe None
+    conflicting.isNodeNoFail("n") shouldBe false
+    an[IllegalStateException] should be thrownBy conflicting.getTypeFor("n")
+  }
+
+  test("should replace type information of an occurrence that is typed again") {
+    val n = variable("n", 0)
+    val table = SemanticTable().addNode(n)
+    table.isNode("n") shouldBe true
+
+    table.addTypeInfo(n, CTRelationship.invariant).isRelationship("n") shouldBe true
+  }
+
+  test("should find variables by their new names after replacing expressions") {
+    val table = SemanticTable().addNode(variable("n", 0))
+    table.isNode("n") shouldBe true
+
+    val renamed = table.replaceExpressions(bottomUp(Rewriter.lift {
+      case v @ Variable("n") => Variable("m")(v.position)
+    }))
+
+    renamed.isNode("m") shouldBe true
+    renamed.getOptionalActualTypeFor("n") shouldBe None
+  }
+
+  test("should find variables in a copy") {
+    val table = SemanticTable().addNode(variable("n", 0))
+    table.isNode("n") shouldBe true
+
+    table.copy().isNode("n") shouldBe true
+    table.clone().isNode("n") shouldBe true
+    table.copy(types = table.addRelationship(variable("m", 1)).types).isRelationship("m") shouldBe true
+  }
+
+  test("should look up expressions with node ids") {
+    val n = variable("n", 0)
+    val m = variable("m", 1)
+    NodeIds.assign(n)
+    NodeIds.assign(m)
+    val table = SemanticTable().addNode(n).addRelationship(m)
+
+    table.getActualTypeFor(n) shouldBe CTNode.invariant
+    table.isRelationship(m) shouldBe true
+    table.seen(variable("n", 0)) shouldBe true
+    table.isNode(variable("n", 0)) shouldBe true
+    table.seen(variable("n", 2)) shouldBe false
+  }
+
+  test("should keep lookups by node id consistent with the types when adding type information") {
+    val n = variable("n", 0)
+    val m = variable("m", 1)
+    NodeIds.assign(n)
+    NodeIds.assign(m)
+    val table = SemanticTable().addNode(n)
+    table.isNode(n) shouldBe true
+
+    val withM = table.addNode(m)
+    withM.isNode(m) shouldBe true
+    withM.isNode(n) shouldBe true
+    table.seen(m) shouldBe false
+
+    val retyped = withM.addTypeInfo(n, CTInteger.invariant)
+    retyped.isInteger(n) shouldBe true
+    withM.isNode(n) shouldBe true
+
+    val retypedByCopy = withM.addTypeInfo(variable("n", 0), CTRelationship.invariant)
+    retypedByCopy.isRelationship(n) shouldBe true
+  }
+
+  test("should keep lookups by node id of earlier tables when adding many expressions") {
+    val variables = (0 until 1000).map(i => variable(s"v$i", i))
+    val list = ListLiteral(variables)(InputPosition.NONE)
+    NodeIds.assign(list)
+    val first = SemanticTable().addNode(variables.head)
+    first.isNode(variables.head) shouldBe true
+
+    val tables = variables.tail.scanLeft(first)(_.addNode(_))
+
+    tables.last.isNode(variables.head) shouldBe true
+    variables.forall(tables.last.isNode) shouldBe true
+    tables(10).seen(variables(11)) shouldBe false
+    tables(10).isNode(variables(10)) shouldBe true
+  }
+
+  test("should find renamed variables that kept their node ids") {
+    val n = variable("n", 0)
+    NodeIds.assign(n)
+    val table = SemanticTable().addNode(n)
+    table.isNode(n) shouldBe true
+
+    val rewriter = bottomUp(Rewriter.lift {
+      case v @ Variable("n") => v.renameId("m")
+    })
+    val renamed = table.replaceExpressions(rewriter)
+    val m = n.endoRewrite(rewriter)
+
+    m.nodeId shouldBe n.nodeId
+    renamed.isNode(m) shouldBe true
+    renamed.seen(n) shouldBe false
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.semantics
+
+import org.opencypher.v9_0.ast.ASTAnnotationMap
+import org.opencypher.v9_0.ast.ASTAnnotationMap.ASTAnnotationMap
+import org.opencypher.v9_0.ast.ASTAnnotationMap.PositionedNode
+import org.opencypher.v9_0.expressions.Expression
+import org.opencypher.v9_0.expressions.Variable
+import org.opencypher.v9_0.util.DummyPosition
+import org.opencypher.v9_0.util.symbols.CTInteger
+import org.opencypher.v9_0.util.symbols.CTNode
+import org.opencypher.v9_0.util.symbols.CTString
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class TransientAnnotationMapTest extends CypherFunSuite {
+
+  private val a = Variable("a")(DummyPosition(0))
+  private val b = Variable("b")(DummyPosition(1))
+  private val c = Variable("c")(DummyPosition(2))
+
+  private def transient(entries: (Expression, Int)*): ASTAnnotationMap[Expression, Int] =
+    TransientAnnotationMap(ASTAnnotationMap(entries: _*))
+
+  private def persistent(entries: (Expression, Int)*): ASTAnnotationMap[Expression, Int] =
+    ASTAnnotationMap(entries: _*)
+
+  test("should behave like a persistent map when updating the latest version") {
+    val v0 = transient(a -> 1)
+    val v1 = v0.updated(PositionedNode(b), 2)
+    val v2 = v1.updated(PositionedNode(a), 3)
+
+    v2 should equal(persistent(a -> 3, b -> 2))
+    v2.size should equal(2)
+    v2.get(PositionedNode(a)) should equal(Some(3))
+    v2.get(PositionedNode(Variable("a")(DummyPosition(0)))) should equal(Some(3))
+    v2.get(PositionedNode(Variable("a")(DummyPosition(5)))) should equal(None)
+  }
+
+  test("older versions should not see later updates") {
+    val v0 = transient(a -> 1)
+    val v1 = v0.updated(PositionedNode(b), 2)
+    v1.updated(PositionedNode(a), 3)
+
+    v0 should equal(persistent(a -> 1))
+    v0.size should equal(1)
+    v1 should equal(persistent(a -> 1, b -> 2))
+    v1.get(PositionedNode(a)) should equal(Some(1))
+    v0.contains(PositionedNode(b)) should be(false)
+  }
+
+  test("updating an older version should not affect the later ones") {
+    val v0 = transient(a -> 1)
+    val v1 = v0.updated(PositionedNode(b), 2)
+    val v2 = v1.updated(PositionedNode(a), 3)
+
+    val branch = v1.updated(PositionedNode(c), 4)
+    val branchOfBranch = branch.updated(PositionedNode(b), 5)
+
+    branch should equal(persistent(a -> 1, b -> 2, c -> 4))
+    branchOfBranch should equal(persistent(a -> 1, b -> 5, c -> 4))
+    v2 should equal(persistent(a -> 3, b -> 2))
+    v2.updated(PositionedNode(c), 6) should equal(persistent(a -> 3, b -> 2, c -> 6))
+  }
+
+  test("should remove keys into a persistent map") {
+    val v1 = transient(a -> 1).updated(PositionedNode(b), 2)
+
+    val removed = v1.removed(PositionedNode(a))
+
+    removed should equal(persistent(b -> 2))
+    TransientAnnotationMap.isTransient(removed) should be(false)
+  }
+
+  test("should turn into a persistent map with the same contents") {
+    val v2 = transient(a -> 1).updated(PositionedNode(b), 2).updated(PositionedNode(a), 3)
+
+    val frozen = TransientAnnotationMap.persistent(v2)
+
+    TransientAnnotationMap.isTransient(frozen) should be(false)
+    frozen should equal(persistent(a -> 3, b -> 2))
+  }
+
+  test("semantic checks should leave persistent maps in the final state") {
+    val check = SemanticCheck.fromFunction(state => SemanticCheckResult.success(state.specifyType(c, CTString).right.get))
+      .chain(SemanticCheck.fromFunction(state => SemanticCheckResult.success(state.recordCurrentScope(a))))
+    val initial = SemanticState.clean.declareVariable(a, CTNode).right.get.specifyType(b, CTInteger).right.get
+
+    val result = check.run(initial, SemanticCheckContext.default)
+
+    result.state.isTransient should be(false)
+    result.state.typeTable.keySet.map(_.node) should equal(Set(a, b, c))
+    result.state.recordedScopes.keySet.map(_.node) should equal(Set(a))
+    initial.typeTable.keySet.map(_.node) should equal(Set(a, b))
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.benchmarks.AttributeBenchmark.Cardinalities
+import org.opencypher.v9_0.benchmarks.AttributeBenchmark.Key
+import org.opencypher.v9_0.benchmarks.AttributeBenchmark.PrimitiveCardinalities
+import org.opencypher.v9_0.util.Cardinality
+import org.opencypher.v9_0.util.attribution.Attribute
+import org.opencypher.v9_0.util.attribution.DoubleAttribute
+import org.opencypher.v9_0.util.attribution.Id
+import org.opencypher.v9_0.util.attribution.Identifiable
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures attributes of cardinalities, the way planners fill, read and clone them.
+ *
+ * Every benchmark runs once on an [[Attribute]] of [[Cardinality]] and once on a [[DoubleAttribute]] of the same.
+ * `cloneAndSet` clones a filled attribute and changes a single value in the clone.
+ *
+ * Run with `-prof gc` to also see the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class AttributeBenchmark {
+
+  @Param(Array("64", "1024", "16384"))
+  var size: Int = _
+
+  private var filled: Cardinalities = _
+  private var primitiveFilled: PrimitiveCardinalities = _
+
+  @Setup
+  def setup(): Unit = {
+    filled = fill(new Cardinalities)
+    primitiveFilled = fill(new PrimitiveCardinalities)
+  }
+
+  private def fill[A <: Attribute[Key, Cardinality]](attribute: A): A = {
+    var i = 0
+    while (i < size) {
+      attribute.set(Id(i), Cardinality(i))
+      i += 1
+    }
+    attribute
+  }
+
+  private def sum(attribute: Attribute[Key, Cardinality]): Double = {
+    var total = 0.0
+    var i = 0
+    while (i < size) {
+      total += attribute.get(Id(i)).amount
+      i += 1
+    }
+    total
+  }
+
+  @Benchmark
+  def set(): Attribute[Key, Cardinality] = fill(new Cardinalities)
+
+  @Benchmark
+  def setPrimitive(): Attribute[Key, Cardinality] = fill(new PrimitiveCardinalities)
+
+  @Benchmark
+  def get(): Double = sum(filled)
+
+  @Benchmark
+  def getPrimitive(): Double = sum(primitiveFilled)
+
+  @Benchmark
+  def getPrimitiveDouble(): Double = {
+    var total = 0.0
+    var i = 0
+    while (i < size) {
+      total += primitiveFilled.getDouble(Id(i))
+      i += 1
+    }
+    total
+  }
+
+  @Benchmark
+  def cloneAndSet(): Attribute[Key, Cardinality] = {
+    val clone = filled.clone[Cardinalities]
+    clone.set(Id(size), Cardinality.SINGLE)
+    clone
+  }
+
+  @Benchmark
+  def cloneAndSetPrimitive(): Attribute[Key, Cardinality] = {
+    val clone = primitiveFilled.clone[PrimitiveCardinalities]
+    clone.set(Id(size), Cardinality.SINGLE)
+    clone
+  }
+}
+
+object AttributeBenchmark {
+
+  case class Key(override val id: Id) extends Identifiable
+
+  class Cardinalities extends Attribute[Key, Cardinality]
+
+  class PrimitiveCardinalities extends DoubleAttribute[Key, Cardinality](_.amount, Cardinality(_))
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.ast.semantics.SemanticErrorDef
+import org.opencypher.v9_0.frontend.PlannerName
+import org.opencypher.v9_0.frontend.phases.BaseContext
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.NO_TRACING
+import org.opencypher.v9_0.frontend.phases.Monitors
+import org.opencypher.v9_0.util.CancellationChecker
+import org.opencypher.v9_0.util.CypherExceptionFactory
+import org.opencypher.v9_0.util.ErrorMessageProvider
+import org.opencypher.v9_0.util.InternalNotificationLogger
+import org.opencypher.v9_0.util.NotImplementedErrorMessageProvider
+import org.opencypher.v9_0.util.OpenCypherExceptionFactory
+import org.opencypher.v9_0.util.devNullLogger
+
+import java.lang.reflect.Proxy
+
+import scala.reflect.ClassTag
+
+/**
+ * A context for running frontend phases in benchmarks. It does not trace, log or monitor anything,
+ * and fails on the first semantic error.
+ */
+object BenchmarkContext extends BaseContext {
+
+  object plannerName extends PlannerName {
+    override def name: String = "benchmark"
+    override def toTextOutput: String = "benchmark"
+    override def version: String = "benchmark"
+  }
+
+  override def tracer: CompilationPhaseTracer = NO_TRACING
+
+  override def notificationLogger: InternalNotificationLogger = devNullLogger
+
+  override val cypherExceptionFactory: CypherExceptionFactory = OpenCypherExceptionFactory(None)
+
+  override val monitors: Monitors = new Monitors {
+    override def addMonitorListener[T](monitor: T, tags: String*): Unit = ()
+
+    // Monitors only have methods without results, so a proxy that does nothing can stand in for any of them.
+    override def newMonitor[T <: AnyRef : ClassTag](tags: String*): T = {
+      val monitorClass = implicitly[ClassTag[T]].runtimeClass
+      Proxy.newProxyInstance(monitorClass.getClassLoader, Array(monitorClass), (_, _, _) => null).asInstanceOf[T]
+    }
+  }
+
+  override def errorHandler: Seq[SemanticErrorDef] => Unit =
+    errors => errors.headOption.foreach(e => throw cypherExceptionFactory.syntaxException(e.msg, e.position))
+
+  override def errorMessageProvider: ErrorMessageProvider = NotImplementedErrorMessageProvider
+
+  override def cancellationChecker: CancellationChecker = CancellationChecker.NeverCancelled
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.tools.tck.api.CypherTCK
+import org.opencypher.tools.tck.api.Execute
+
+/**
+ * Sets of queries that benchmarks can run over, selected by name with a `corpus` parameter.
+ *
+ *  - `tck`: all queries of the TCK scenarios, the same ones that `FeatureQueryTest`s run.
+ *  - `synthetic`: the shared [[BenchmarkQueries]], including large generated queries.
+ */
+object BenchmarkCorpus {
+
+  val TCK = "tck"
+  val SYNTHETIC = "synthetic"
+
+  lazy val tck: Seq[String] =
+    CypherTCK.allTckScenarios
+      .flatMap(_.steps.collect {
+        case Execute(query, _, _) => query
+      })
+      .distinct
+
+  lazy val synthetic: Seq[String] = Seq(
+    BenchmarkQueries.small,
+    BenchmarkQueries.medium,
+    BenchmarkQueries.large(50),
+    BenchmarkQueries.large(500)
+  )
+
+  def apply(name: String): Seq[String] = name match {
+    case TCK       => tck
+    case SYNTHETIC => synthetic
+    case _         => throw new IllegalArgumentException(s"Unknown corpus $name")
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.ast.factory.neo4j.JavaCCParser
+import org.opencypher.v9_0.util.OpenCypherExceptionFactory
+
+/**
+ * Queries shared by the benchmarks.
+ */
+object BenchmarkQueries {
+
+  val small: String = "MATCH (n:Person {name: $name})-[:KNOWS]->(m) WHERE m.age > 30 RETURN m.name AS name"
+
+  val medium: String =
+    """MATCH (a:Person)-[r:KNOWS*1..3]->(b:Person)
+      |WHERE a.name STARTS WITH 'A' AND NOT b.name = 'Bob' AND (a.age > 30 OR b.age < 20)
+      |WITH a, b, count(r) AS c, collect(DISTINCT b.name) AS names
+      |ORDER BY c DESC
+      |LIMIT 10
+      |UNWIND names AS name
+      |OPTIONAL MATCH (b)-[:LIVES_IN]->(city:City)
+      |RETURN a.name, name, city.name, [x IN range(0, c) WHERE x % 2 = 0 | x * 2] AS evens
+      |""".stripMargin
+
+  /**
+   * A query with many predicates and return items, the shape generated by reporting tools.
+   */
+  def large(width: Int): String = {
+    val predicates = (0 until width).map(i => s"(n.p$i = $i OR n.q$i IN [$i, ${i + 1}, ${i + 2}])")
+    val returnItems = (0 until width).map(i => s"n.p$i + m.q$i AS r$i")
+    s"MATCH (n:Label)-[:REL]->(m) WHERE ${predicates.mkString(" AND ")} RETURN ${returnItems.mkString(", ")}"
+  }
+
+  /**
+   * A UNION ALL of many similar parts, the shape of generated reporting queries.
+   */
+  def union(parts: Int): String =
+    (0 until parts).map { i =>
+      s"MATCH (n:L$i)-[r:R$i]->(m) WHERE n.p = $i AND m.q STARTS WITH 'x' " +
+        "WITH n, count(m) AS c RETURN n.name AS name, c"
+    }.mkString(" UNION ALL ")
+
+  def parse(query: String): Statement =
+    JavaCCParser.parse(query, OpenCypherExceptionFactory(None))
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.expressions.Variable
+import org.opencypher.v9_0.util.ASTNode
+import org.opencypher.v9_0.util.Rewritable
+import org.opencypher.v9_0.util.Rewritable.RewritableAny
+import org.opencypher.v9_0.util.Rewriter
+import org.opencypher.v9_0.util.topDown
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+
+import java.lang.reflect.Method
+import java.util.concurrent.TimeUnit
+
+import scala.collection.mutable
+
+/**
+ * Compares copying AST nodes through [[Rewritable.copyConstructor]] with the reflective
+ * `Method.invoke` path it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class CopyConstructorBenchmark {
+
+  private var statement: Statement = _
+  private var nodes: Array[ASTNode] = _
+  private var args: Array[Array[AnyRef]] = _
+
+  private val renameVariables = topDown(Rewriter.lift {
+    case v: Variable => v.renameId(v.name + "_")
+  })
+
+  @Setup
+  def setup(): Unit = {
+    statement = BenchmarkQueries.parse(BenchmarkQueries.large(50))
+    nodes = statement.folder.findAllByClass[ASTNode]
+      .filter(node => node.getClass.getMethods.exists(_.getName == "copy"))
+      .toArray
+    args = nodes.map { node =>
+      val children = node.productIterator.map(_.asInstanceOf[AnyRef]).toArray
+      val constructor = Rewritable.copyConstructor(node)
+      if (constructor.parameterTypes.length == children.length + 1 && constructor.lastParamIsPosition)
+        children :+ node.position
+      else
+        children
+    }
+  }
+
+  @Benchmark
+  def methodHandleCopy(bh: Blackhole): Unit = {
+    var i = 0
+    while (i < nodes.length) {
+      val node = nodes(i)
+      bh.consume(Rewritable.copyConstructor(node).copy(node, args(i)))
+      i += 1
+    }
+  }
+
+  @Benchmark
+  def reflectiveCopy(bh: Blackhole): Unit = {
+    var i = 0
+    while (i < nodes.length) {
+      val node = nodes(i)
+      bh.consume(CopyConstructorBenchmark.reflectiveCopyMethod(node).invoke(node, args(i): _*))
+      i += 1
+    }
+  }
+
+  @Benchmark
+  def rewriteAllVariables(): AnyRef =
+    statement.rewrite(renameVariables)
+}
+
+object CopyConstructorBenchmark {
+
+  // The lookup that was used by Rewritable before copy constructors were adapted into method handles
+  private val reflectiveCopyMethods = new ThreadLocal[mutable.HashMap[Class[_], Method]]() {
+
+    override def initialValue: mutable.HashMap[Class[_], Method] =
+      new mutable.HashMap[Class[_], Method]
+  }
+
+  private def reflectiveCopyMethod(product: Product): Method =
+    reflectiveCopyMethods.get.getOrElseUpdate(
+      product.getClass,
+      product.getClass.getMethods.find(_.getName == "copy").get
+    )
+}
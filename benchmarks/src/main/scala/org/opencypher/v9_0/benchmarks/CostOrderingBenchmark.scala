@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.util.Cardinality
+import org.opencypher.v9_0.util.Cost
+import org.opencypher.v9_0.util.CostPerRow
+import org.opencypher.v9_0.util.PredicateOrdering
+import org.opencypher.v9_0.util.Selectivity
+import org.opencypher.v9_0.util.VolcanoCartesianOrdering
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+
+import java.util.concurrent.TimeUnit
+
+import scala.util.Random
+
+/**
+ * Measures ordering predicates and the components of Cartesian products, the way planners do.
+ *
+ * `predicatesByOrdering` and `componentsByOrdering` sort tuples of the cost model classes with their [[Ordering]],
+ * `predicatesByIndex` and `componentsByIndex` sort the indices of the same values, given as arrays of doubles.
+ *
+ * Run with `-prof gc` to also see the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class CostOrderingBenchmark {
+
+  @Param(Array("8", "64", "1024"))
+  var size: Int = _
+
+  private var predicates: IndexedSeq[(CostPerRow, Selectivity)] = _
+  private var costsPerRow: Array[Double] = _
+  private var selectivities: Array[Double] = _
+
+  private var components: IndexedSeq[(Cost, Cardinality)] = _
+  private var costs: Array[Double] = _
+  private var cardinalities: Array[Double] = _
+
+  @Setup
+  def setup(): Unit = {
+    val random = new Random(42)
+    predicates = IndexedSeq.fill(size)((CostPerRow(1 + random.nextDouble()), Selectivity(random.nextDouble())))
+    costsPerRow = predicates.map(_._1.cost).toArray
+    selectivities = predicates.map(_._2.factor).toArray
+
+    components = IndexedSeq.fill(size)((Cost(1 + random.nextDouble() * 1000), Cardinality(random.nextDouble() * 1000)))
+    costs = components.map(_._1.gummyBears).toArray
+    cardinalities = components.map(_._2.amount).toArray
+  }
+
+  @Benchmark
+  def predicatesByOrdering(): IndexedSeq[(CostPerRow, Selectivity)] =
+    predicates.sorted(PredicateOrdering)
+
+  @Benchmark
+  def predicatesByIndex(): Array[Int] =
+    PredicateOrdering.sortedIndices(costsPerRow, selectivities)
+
+  @Benchmark
+  def componentsByOrdering(): IndexedSeq[(Cost, Cardinality)] =
+    components.sorted(VolcanoCartesianOrdering)
+
+  @Benchmark
+  def componentsByIndex(): Array[Int] =
+    VolcanoCartesianOrdering.sortedIndices(costs, cardinalities)
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.ast.factory.neo4j.JavaCCParser
+import org.opencypher.v9_0.ast.prettifier.ExpressionStringifier
+import org.opencypher.v9_0.ast.prettifier.Prettifier
+import org.opencypher.v9_0.ast.semantics.SemanticFeature
+import org.opencypher.v9_0.frontend.phases.ASTRewriter
+import org.opencypher.v9_0.frontend.phases.BaseState
+import org.opencypher.v9_0.frontend.phases.InitialState
+import org.opencypher.v9_0.frontend.phases.Namespacer
+import org.opencypher.v9_0.frontend.phases.PreparatoryRewriting
+import org.opencypher.v9_0.frontend.phases.SemanticAnalysis
+import org.opencypher.v9_0.frontend.phases.rewriting.cnf.CNFNormalizer
+import org.opencypher.v9_0.frontend.phases.rewriting.cnf.CnfPhase
+import org.opencypher.v9_0.rewriting.ListStepAccumulator
+import org.opencypher.v9_0.rewriting.rewriters.Forced
+import org.opencypher.v9_0.rewriting.rewriters.literalReplacement
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.StepSequencer
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+
+import java.util.concurrent.TimeUnit
+
+import scala.util.Try
+
+/**
+ * Measures each stage of the frontend on its own, over all queries of a [[BenchmarkCorpus]].
+ * One operation is one pass of the stage over the whole corpus.
+ *
+ * Every stage gets the input it would see in the pipeline, which is computed once during setup:
+ * parsing starts from the query text, semantic analysis from the statement after [[PreparatoryRewriting]],
+ * and all later stages from the analysed statement.
+ * Queries that fail any of the stages, such as the TCK queries that expect errors, are left out.
+ *
+ * Run with `-prof gc` to also see the allocation rate of each stage.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class FrontendPipelineBenchmark {
+
+  @Param(Array("tck", "synthetic"))
+  var corpus: String = _
+
+  private val context = BenchmarkContext
+
+  private val analysis = SemanticAnalysis(warn = false, SemanticFeature.QuantifiedPathPatterns)
+
+  // The CNF steps in the order in which they run, without the semantic analysis they need in between
+  private val cnfPhases: Seq[CnfPhase] =
+    StepSequencer(ListStepAccumulator[StepSequencer.Step]())
+      .orderSteps(CNFNormalizer.steps.toSet[StepSequencer.Step] + SemanticAnalysis, Set.empty)
+      .steps
+      .collect { case phase: CnfPhase => phase }
+
+  private val prettifier = Prettifier(ExpressionStringifier())
+
+  private var queries: Array[String] = _
+  private var prepared: Array[BaseState] = _
+  private var analysed: Array[BaseState] = _
+
+  @Setup
+  def setup(): Unit = {
+    val states = BenchmarkCorpus(corpus).flatMap { query =>
+      Try {
+        val initial = InitialState(query, None, context.plannerName, new AnonymousVariableNameGenerator)
+          .withStatement(JavaCCParser.parse(query, context.cypherExceptionFactory))
+        val preparedState = PreparatoryRewriting.process(initial, context)
+        val analysedState = analysis.process(preparedState, context)
+        // Make sure that the query makes it through all stages
+        rewrite(analysedState)
+        Namespacer.process(analysedState, context)
+        normalize(analysedState)
+        replaceLiterals(analysedState)
+        prettifier.asString(analysedState.statement())
+        (query, preparedState, analysedState)
+      }.toOption
+    }
+    if (states.isEmpty) {
+      throw new IllegalStateException(s"No query of the $corpus corpus made it through the frontend.")
+    }
+
+    queries = states.map(_._1).toArray
+    prepared = states.map(_._2).toArray
+    analysed = states.map(_._3).toArray
+  }
+
+  @Benchmark
+  def parse(bh: Blackhole): Unit = {
+    var i = 0
+    while (i < queries.length) {
+      bh.consume(JavaCCParser.parse(queries(i), context.cypherExceptionFactory))
+      i += 1
+    }
+  }
+
+  @Benchmark
+  def semanticAnalysis(bh: Blackhole): Unit =
+    forEach(prepared, bh)(analysis.process(_, context))
+
+  @Benchmark
+  def astRewriting(bh: Blackhole): Unit =
+    forEach(analysed, bh)(rewrite)
+
+  @Benchmark
+  def cnfNormalization(bh: Blackhole): Unit =
+    forEach(analysed, bh)(normalize)
+
+  @Benchmark
+  def namespacing(bh: Blackhole): Unit =
+    forEach(analysed, bh)(Namespacer.process(_, context))
+
+  @Benchmark
+  def literalExtraction(bh: Blackhole): Unit =
+    forEach(analysed, bh)(replaceLiterals)
+
+  @Benchmark
+  def prettifying(bh: Blackhole): Unit =
+    forEach(analysed, bh)(state => prettifier.asString(state.statement()))
+
+  private def forEach(states: Array[BaseState], bh: Blackhole)(stage: BaseState => AnyRef): Unit = {
+    var i = 0
+    while (i < states.length) {
+      bh.consume(stage(states(i)))
+      i += 1
+    }
+  }
+
+  private def rewrite(state: BaseState): Statement =
+    ASTRewriter.rewrite(
+      state.statement(),
+      state.semantics(),
+      Map.empty,
+      context.cypherExceptionFactory,
+      new AnonymousVariableNameGenerator
+    )
+
+  private def normalize(state: BaseState): BaseState =
+    cnfPhases.foldLeft(state)((current, phase) => phase.process(current, context))
+
+  private def replaceLiterals(state: BaseState): (Statement, Map[String, Any]) = {
+    val (rewriter, extractedParams) = literalReplacement(state.statement(), Forced, state.semantics())
+    (state.statement().endoRewrite(rewriter), extractedParams)
+  }
+}
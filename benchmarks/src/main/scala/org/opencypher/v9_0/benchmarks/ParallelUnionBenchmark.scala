@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.ast.semantics.SemanticFeature
+import org.opencypher.v9_0.frontend.phases.BaseState
+import org.opencypher.v9_0.frontend.phases.InitialState
+import org.opencypher.v9_0.frontend.phases.PreparatoryRewriting
+import org.opencypher.v9_0.frontend.phases.SemanticAnalysis
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures [[SemanticAnalysis]] of a UNION ALL with many parts, with and without checking the parts in parallel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class ParallelUnionBenchmark {
+
+  @Param(Array("20", "200"))
+  var parts: Int = _
+
+  private val context = BenchmarkContext
+
+  private val sequentialAnalysis = SemanticAnalysis(warn = false)
+
+  private val parallelAnalysis = SemanticAnalysis(warn = false, SemanticFeature.ParallelUnionParts)
+
+  private var prepared: BaseState = _
+
+  @Setup
+  def setup(): Unit = {
+    val query = BenchmarkQueries.union(parts)
+    val initial = InitialState(query, None, context.plannerName, new AnonymousVariableNameGenerator)
+      .withStatement(BenchmarkQueries.parse(query))
+    prepared = PreparatoryRewriting.process(initial, context)
+  }
+
+  @Benchmark
+  def sequential(): BaseState =
+    sequentialAnalysis.process(prepared, context)
+
+  @Benchmark
+  def parallel(): BaseState =
+    parallelAnalysis.process(prepared, context)
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.ast.semantics.SemanticCheck
+import org.opencypher.v9_0.ast.semantics.SemanticCheckContext
+import org.opencypher.v9_0.ast.semantics.SemanticChecker
+import org.opencypher.v9_0.ast.semantics.SemanticFeature
+import org.opencypher.v9_0.ast.semantics.SemanticState
+import org.opencypher.v9_0.frontend.phases.BaseState
+import org.opencypher.v9_0.frontend.phases.InitialState
+import org.opencypher.v9_0.frontend.phases.PreparatoryRewriting
+import org.opencypher.v9_0.frontend.phases.SemanticAnalysis
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.ErrorMessageProvider
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures [[SemanticAnalysis]] of a single query of growing size.
+ *
+ * `semanticAnalysis` runs the whole phase, including building the semantic table and recording scopes.
+ * `runCheck` only runs the check of the statement, which is where the [[SemanticCheck]] interpreter spends its time.
+ * `buildCheck` only builds the check of the statement without running it. Most checks of nested expressions are
+ * built while running, so this is the part of the tree that is built up front.
+ *
+ * Run with `-prof gc` to also see how much the interpreter allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class SemanticAnalysisBenchmark {
+
+  @Param(Array("small", "medium", "large"))
+  var query: String = _
+
+  private val context = BenchmarkContext
+
+  private val analysis = SemanticAnalysis(warn = false, SemanticFeature.QuantifiedPathPatterns)
+
+  private val checkContext = new SemanticCheckContext {
+    override def errorMessageProvider: ErrorMessageProvider = context.errorMessageProvider
+  }
+
+  private var prepared: BaseState = _
+  private var statement: Statement = _
+
+  @Setup
+  def setup(): Unit = {
+    val text = query match {
+      case "small"  => BenchmarkQueries.small
+      case "medium" => BenchmarkQueries.medium
+      case "large"  => BenchmarkQueries.large(200)
+    }
+    val initial = InitialState(text, None, context.plannerName, new AnonymousVariableNameGenerator)
+      .withStatement(BenchmarkQueries.parse(text))
+    prepared = PreparatoryRewriting.process(initial, context)
+    statement = prepared.statement()
+  }
+
+  @Benchmark
+  def semanticAnalysis(): BaseState =
+    analysis.process(prepared, context)
+
+  @Benchmark
+  def runCheck(): SemanticState =
+    SemanticChecker.check(statement, SemanticState.clean, checkContext).state
+
+  @Benchmark
+  def buildCheck(): SemanticCheck =
+    statement.semanticCheck
+}
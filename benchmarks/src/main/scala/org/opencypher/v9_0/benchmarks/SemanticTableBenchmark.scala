@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.ast.ASTAnnotationMap
+import org.opencypher.v9_0.ast.semantics.ExpressionTypeInfo
+import org.opencypher.v9_0.ast.semantics.SemanticTable
+import org.opencypher.v9_0.expressions.Expression
+import org.opencypher.v9_0.expressions.Variable
+import org.opencypher.v9_0.util.attribution.NodeIds
+import org.opencypher.v9_0.util.symbols.CTAny
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures [[SemanticTable.getActualTypeFor]] for all expressions of a large query.
+ *
+ * `memoizedKeys` looks up the same instances over and over, so their hashes are only computed once.
+ * `freshKeys` looks up equal copies from a new parse every time, which pays for hashing every subtree,
+ * like every lookup did before hashes were memoized.
+ * `nodeIdKeys` looks up the same instances in a table of a query with node ids, which reads them from arrays.
+ * `variableNames` looks up the types of all variable occurrences by name, like planners do per plan candidate.
+ * `addedVariables` adds a variable to the table before every such lookup, so the table keeps changing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class SemanticTableBenchmark {
+
+  @Param(Array("50", "500"))
+  var width: Int = _
+
+  private var table: SemanticTable = _
+  private var expressions: Array[Expression] = _
+  private var freshExpressions: Array[Expression] = _
+  private var variables: Array[Variable] = _
+  private var numberedTable: SemanticTable = _
+  private var numberedExpressions: Array[Expression] = _
+
+  private def allExpressions(withNodeIds: Boolean = false): Array[Expression] = {
+    val statement = BenchmarkQueries.parse(BenchmarkQueries.large(width))
+    if (withNodeIds) NodeIds.assign(statement)
+    statement.folder.findAllByClass[Expression].toArray
+  }
+
+  private def tableOf(expressions: Array[Expression]): SemanticTable = {
+    val types = expressions.toSeq.map(_ -> ExpressionTypeInfo(CTAny.invariant))
+    SemanticTable(types = ASTAnnotationMap(types: _*))
+  }
+
+  @Setup
+  def setup(): Unit = {
+    expressions = allExpressions()
+    table = tableOf(expressions)
+    variables = expressions.collect { case v: Variable => v }
+    numberedExpressions = allExpressions(withNodeIds = true)
+    numberedTable = tableOf(numberedExpressions)
+  }
+
+  @Setup(Level.Invocation)
+  def reparse(): Unit = {
+    freshExpressions = allExpressions()
+  }
+
+  @Benchmark
+  def memoizedKeys(bh: Blackhole): Unit =
+    lookupAll(table, expressions, bh)
+
+  @Benchmark
+  def freshKeys(bh: Blackhole): Unit =
+    lookupAll(table, freshExpressions, bh)
+
+  @Benchmark
+  def nodeIdKeys(bh: Blackhole): Unit =
+    lookupAll(numberedTable, numberedExpressions, bh)
+
+  @Benchmark
+  def variableNames(bh: Blackhole): Unit = {
+    var i = 0
+    while (i < variables.length) {
+      bh.consume(table.getOptionalActualTypeFor(variables(i).name))
+      i += 1
+    }
+  }
+
+  @Benchmark
+  def addedVariables(bh: Blackhole): Unit = {
+    var current = table
+    var i = 0
+    while (i < variables.length) {
+      current = current.addNode(variables(i))
+      bh.consume(current.isNodeNoFail(variables(i).name))
+      i += 1
+    }
+  }
+
+  private def lookupAll(table: SemanticTable, keys: Array[Expression], bh: Blackhole): Unit = {
+    var i = 0
+    while (i < keys.length) {
+      bh.consume(table.getActualTypeFor(keys(i)))
+      i += 1
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.ast.factory.neo4j.JavaCCParser
+import org.opencypher.v9_0.expressions.Expression
+import org.opencypher.v9_0.util.OpenCypherExceptionFactory
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures parsing with and without sharing equal property key names and label names, see
+ * [[org.opencypher.v9_0.expressions.SymbolicNameInterner]].
+ *
+ * `parse` parses a large query. Run it with `-prof gc` to compare the bytes allocated per parsed query.
+ * `hashFreshStatement` hashes all expressions of a freshly parsed query, like the first lookups of them in a
+ * semantic table do. Shared names have their memoized hash computed once, instead of once per occurrence.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class SymbolicNameInterningBenchmark {
+
+  @Param(Array("50", "500"))
+  var width: Int = _
+
+  @Param(Array("false", "true"))
+  var intern: Boolean = _
+
+  private val exceptionFactory = OpenCypherExceptionFactory(None)
+
+  private var query: String = _
+  private var expressions: Array[Expression] = _
+
+  private def parseQuery(): Statement =
+    JavaCCParser.parse(query, exceptionFactory, internSymbolicNames = intern)
+
+  @Setup
+  def setup(): Unit = {
+    query = BenchmarkQueries.large(width)
+  }
+
+  @Setup(Level.Invocation)
+  def reparse(): Unit = {
+    expressions = parseQuery().folder.findAllByClass[Expression].toArray
+  }
+
+  @Benchmark
+  def parse(): Statement = parseQuery()
+
+  @Benchmark
+  def hashFreshStatement(bh: Blackhole): Unit = {
+    var i = 0
+    while (i < expressions.length) {
+      bh.consume(expressions(i).hashCode())
+      i += 1
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.benchmarks
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.expressions.NotEquals
+import org.opencypher.v9_0.expressions.SignedDecimalIntegerLiteral
+import org.opencypher.v9_0.util.Rewritable.RewritableAny
+import org.opencypher.v9_0.util.Rewriter
+import org.opencypher.v9_0.util.bottomUp
+import org.opencypher.v9_0.util.topDown
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures [[topDown]] and [[bottomUp]] on large statements, both with rules that never match, where no node needs
+ * to be copied, and with a rule that only changes the few `0` literals.
+ * The targeted variants declare the classes their rules change, so that subtrees without them are skipped.
+ * Run with `-prof gc` to see the allocation per rewrite.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class TraversalBenchmark {
+
+  @Param(Array("50", "1000"))
+  var width: Int = _
+
+  private var statement: Statement = _
+
+  private val changeOneLiteral = Rewriter.lift {
+    case l: SignedDecimalIntegerLiteral if l.stringVal == "0" => SignedDecimalIntegerLiteral("-1")(l.position)
+  }
+
+  private val topDownNoop = topDown(Rewriter.noop)
+  private val bottomUpNoop = bottomUp(Rewriter.noop)
+  private val topDownOneChange = topDown(changeOneLiteral)
+  private val bottomUpOneChange = bottomUp(changeOneLiteral)
+  private val topDownTargetedAbsent = topDown(Rewriter.targeting(classOf[NotEquals])(Rewriter.noop))
+  private val bottomUpTargetedOneChange =
+    bottomUp(Rewriter.targeting(classOf[SignedDecimalIntegerLiteral])(changeOneLiteral))
+
+  @Setup
+  def setup(): Unit = {
+    statement = BenchmarkQueries.parse(BenchmarkQueries.large(width))
+  }
+
+  @Benchmark
+  def topDownUnchanged(): AnyRef =
+    statement.rewrite(topDownNoop)
+
+  @Benchmark
+  def bottomUpUnchanged(): AnyRef =
+    statement.rewrite(bottomUpNoop)
+
+  @Benchmark
+  def topDownSingleChange(): AnyRef =
+    statement.rewrite(topDownOneChange)
+
+  @Benchmark
+  def bottomUpSingleChange(): AnyRef =
+    statement.rewrite(bottomUpOneChange)
+
+  @Benchmark
+  def topDownTargetedAbsentClass(): AnyRef =
+    statement.rewrite(topDownTargetedAbsent)
+
+  @Benchmark
+  def bottomUpTargetedSingleChange(): AnyRef =
+    statement.rewrite(bottomUpTargetedOneChange)
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.expressions
+
+import org.opencypher.v9_0.util.InputPosition
+
+import java.util
+
+/**
+ * Shares one instance between equal property key names, label names and relationship type names of a query.
+ *
+ * These names are leaves whose equality does not depend on their position, and queries repeat them a lot, e.g. the
+ * same property key in a predicate and a projection. Sharing them keeps one object per distinct name, instead of
+ * one per occurrence, and computes the memoized hash of each distinct name once.
+ *
+ * The shared instance has the position of the first occurrence, so positions of later occurrences are lost. Only
+ * use this where names are not used to point at an occurrence, e.g. in notifications about unknown labels.
+ * Not thread-safe: use one interner per query.
+ */
+final class SymbolicNameInterner {
+
+  private val propertyKeyNames = new util.HashMap[String, PropertyKeyName]()
+  private val labelNames = new util.HashMap[String, LabelName]()
+  private val relTypeNames = new util.HashMap[String, RelTypeName]()
+
+  def propertyKeyName(name: String, position: InputPosition): PropertyKeyName =
+    propertyKeyNames.computeIfAbsent(name, PropertyKeyName(_)(position))
+
+  def labelName(name: String, position: InputPosition): LabelName =
+    labelNames.computeIfAbsent(name, LabelName(_)(position))
+
+  def relTypeName(name: String, position: InputPosition): RelTypeName =
+    relTypeNames.computeIfAbsent(name, RelTypeName(_)(position))
+}
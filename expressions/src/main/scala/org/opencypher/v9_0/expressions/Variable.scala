@@ -21,7 +21,7 @@ case class Variable(name: String)(val position: InputPosition) extends LogicalVa
 
   override def copyId: Variable = copy()(position)
 
-  override def renameId(newName: String): Variable = copy(name = newName)(position)
+  override def renameId(newName: String): Variable = copy(name = newName)(position).withNodeIdOf(this)
 }
 
 object Variable {
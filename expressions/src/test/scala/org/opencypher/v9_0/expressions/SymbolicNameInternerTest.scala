@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.expressions
+
+import org.opencypher.v9_0.util.InputPosition
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class SymbolicNameInternerTest extends CypherFunSuite {
+
+  private val first = InputPosition(0, 1, 1)
+  private val second = InputPosition(10, 1, 11)
+
+  test("should share equal names, with the position of the first one") {
+    val interner = new SymbolicNameInterner
+
+    val name = interner.propertyKeyName("prop", first)
+
+    interner.propertyKeyName("prop", second) should be theSameInstanceAs name
+    name.position shouldBe first
+  }
+
+  test("should not share names that differ") {
+    val interner = new SymbolicNameInterner
+
+    interner.propertyKeyName("a", first) should not be theSameInstanceAs(interner.propertyKeyName("b", first))
+  }
+}
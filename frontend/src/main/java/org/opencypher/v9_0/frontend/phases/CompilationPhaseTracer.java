@@ -31,12 +31,111 @@ public interface CompilationPhaseTracer {
 
     CompilationPhaseEvent beginPhase(CompilationPhase phase);
 
+    /**
+     * @return whether this tracer wants events for the individual steps within a phase, see {@link #beginStep}.
+     * Tracing steps costs more than tracing phases: the rewriter steps that otherwise share traversals of the AST
+     * run one at a time, and the AST is counted before and after each step whose event asks for the counts.
+     */
+    default boolean tracesSteps() {
+        return false;
+    }
+
+    /**
+     * Begin a step within a phase. A step is a single {@code Phase} of the pipeline or a single rewriter step.
+     * Only called if {@link #tracesSteps()} returns true.
+     *
+     * @param phase the phase that the step belongs to.
+     * @param step the name of the step.
+     */
+    default CompilationStepEvent beginStep(CompilationPhase phase, String step) {
+        return NONE_STEP;
+    }
+
+    /**
+     * Begin a single rewriter step within a phase. By default, rewriter steps are traced like all other steps.
+     * Only called if {@link #tracesSteps()} returns true.
+     *
+     * @param phase the phase that the rewriter step belongs to.
+     * @param step the name of the rewriter step.
+     */
+    default CompilationStepEvent beginRewriterStep(CompilationPhase phase, String step) {
+        return beginStep(phase, step);
+    }
+
     interface CompilationPhaseEvent extends AutoCloseable {
+        /**
+         * Called before {@link #close} if the phase failed.
+         *
+         * @param cause what the phase failed with.
+         */
+        default void failed(Throwable cause) {}
+
         @Override
         void close();
     }
 
+    interface CompilationStepEvent {
+        /**
+         * Called before {@link #end} if the step failed.
+         *
+         * @param cause what the step failed with.
+         */
+        default void failed(Throwable cause) {}
+
+        /**
+         * End the step. Also called if the step failed, in which case the node counts are unknown.
+         *
+         * @param elapsedNanos the wall time that the step took.
+         * @param allocatedBytes the bytes that the step allocated on the current thread, or -1 if unknown.
+         * @param astNodesBefore the number of AST nodes before the step, or -1 if unknown.
+         * @param nodesRewritten the number of AST nodes after the step that were not there before it, or -1 if unknown.
+         */
+        void end(long elapsedNanos, long allocatedBytes, long astNodesBefore, long nodesRewritten);
+
+        /**
+         * End the step, with AST node counts that are only computed if asked for. Counting walks the AST twice,
+         * so events that may drop the counts should override this and only ask for them if they keep them.
+         *
+         * @param elapsedNanos the wall time that the step took.
+         * @param allocatedBytes the bytes that the step allocated on the current thread, or -1 if unknown.
+         * @param counts the AST node counts of the step.
+         */
+        default void end(long elapsedNanos, long allocatedBytes, AstNodeCounts counts) {
+            end(elapsedNanos, allocatedBytes, counts.astNodesBefore(), counts.nodesRewritten());
+        }
+    }
+
+    /**
+     * The AST node counts of a step, see {@link CompilationStepEvent#end(long, long, long, long)}.
+     */
+    interface AstNodeCounts {
+        long astNodesBefore();
+
+        long nodesRewritten();
+
+        /**
+         * @return counts that are already known.
+         */
+        static AstNodeCounts of(long astNodesBefore, long nodesRewritten) {
+            return new AstNodeCounts() {
+                @Override
+                public long astNodesBefore() {
+                    return astNodesBefore;
+                }
+
+                @Override
+                public long nodesRewritten() {
+                    return nodesRewritten;
+                }
+            };
+        }
+    }
+
+    AstNodeCounts UNKNOWN_COUNTS = AstNodeCounts.of(-1L, -1L);
+
     CompilationPhaseEvent NONE_PHASE = () -> {};
 
+    CompilationStepEvent NONE_STEP = (elapsedNanos, allocatedBytes, astNodesBefore, nodesRewritten) -> {};
+
     CompilationPhaseTracer NO_TRACING = phase -> NONE_PHASE;
 }
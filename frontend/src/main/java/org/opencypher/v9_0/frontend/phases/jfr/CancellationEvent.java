@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for a cancellation check that cancelled the compilation of a query.
+ */
+@Name("org.opencypher.Cancellation")
+@Label("Cypher Cancellation")
+@Description("A cancellation check that cancelled compiling a Cypher query")
+@Category({"Cypher", "Frontend"})
+public class CancellationEvent extends jdk.jfr.Event {
+    @Label("Query Fingerprint")
+    public String fingerprint;
+
+    @Label("Outcome")
+    @Description("The simple class name of what the check threw")
+    public String outcome;
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for one phase of compiling a query, see {@code CompilationPhaseTracer.CompilationPhase}.
+ * It only has fields that cost nothing to fill in, so it is enabled by default.
+ */
+@Name("org.opencypher.Phase")
+@Label("Cypher Phase")
+@Description("A phase of compiling a Cypher query")
+@Category({"Cypher", "Frontend"})
+@StackTrace(false)
+public class PhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("Query Fingerprint")
+    public String fingerprint;
+
+    @Label("Outcome")
+    @Description("SUCCESS, or the simple class name of what the phase failed with")
+    public String outcome;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for one rewriter step.
+ * Disabled by default, since recording it makes the rewriter steps run one traversal each instead of fused.
+ */
+@Name("org.opencypher.RewriterStep")
+@Label("Cypher Rewriter Step")
+@Description("A single rewriter step while compiling a Cypher query")
+@Category({"Cypher", "Frontend"})
+@StackTrace(false)
+@Enabled(false)
+public class RewriterStepEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("Step")
+    public String step;
+
+    @Label("Query Fingerprint")
+    public String fingerprint;
+
+    @Label("AST Nodes")
+    @Description("The number of AST nodes before the step, or -1 if unknown")
+    public long astNodes;
+
+    @Label("Rewritten Nodes")
+    @Description("The number of AST nodes after the step that were not there before it, or -1 if unknown")
+    public long rewrittenNodes;
+
+    @Label("Allocated")
+    @DataAmount
+    public long allocatedBytes;
+
+    @Label("Outcome")
+    @Description("SUCCESS, or the simple class name of what the step failed with")
+    public String outcome;
+}
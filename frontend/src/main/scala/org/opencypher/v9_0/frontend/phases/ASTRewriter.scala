@@ -17,9 +17,11 @@ package org.opencypher.v9_0.frontend.phases
 
 import org.opencypher.v9_0.ast.Statement
 import org.opencypher.v9_0.ast.semantics.SemanticState
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationPhase.AST_REWRITE
 import org.opencypher.v9_0.frontend.phases.rewriting.cnf.mergeDuplicateBooleanOperators
 import org.opencypher.v9_0.rewriting.ListStepAccumulator
 import org.opencypher.v9_0.rewriting.RewriterStep
+import org.opencypher.v9_0.rewriting.RewriterStepFusion
 import org.opencypher.v9_0.rewriting.conditions.PatternExpressionsHaveSemanticInfo
 import org.opencypher.v9_0.rewriting.rewriters.AddUniquenessPredicates
 import org.opencypher.v9_0.rewriting.rewriters.LabelExpressionPredicateNormalizer
@@ -54,51 +56,108 @@ import org.opencypher.v9_0.util.symbols.CypherType
 
 object ASTRewriter {
 
-  private val AccumulatedSteps(orderedSteps, _) =
+  val steps: Set[StepSequencer.Step with ASTRewriterFactory] = Set(
+    combineSetProperty,
+    expandStar,
+    normalizeHasLabelsAndHasType,
+    desugarMapProjection,
+    moveWithPastMatch,
+    normalizeComparisons,
+    foldConstants,
+    mergeDuplicateBooleanOperators(),
+    normalizeExistsPatternExpressions,
+    nameAllPatternElements,
+    normalizeMatchPredicates,
+    normalizePatternComprehensionPredicates,
+    normalizeNotEquals,
+    normalizeArgumentOrder,
+    AddUniquenessPredicates,
+    simplifyIterablePredicates,
+    replaceLiteralDynamicPropertyLookups,
+    inlineNamedPathsInPatternComprehensions,
+    parameterValueTypeReplacement,
+    rewriteOrderById,
+    LabelExpressionPredicateNormalizer,
+    unwrapParenthesizedPath,
+    QuantifiedPathPatternNodeInsertRewriter
+  )
+
+  val initialConditions: Set[StepSequencer.Condition] =
+    Set(ProjectionClausesHaveSemanticInfo, PatternExpressionsHaveSemanticInfo)
+
+  private val AccumulatedSteps(sequencedSteps, _) =
     StepSequencer(ListStepAccumulator[StepSequencer.Step with ASTRewriterFactory]()).orderSteps(
-      Set(
-        combineSetProperty,
-        expandStar,
-        normalizeHasLabelsAndHasType,
-        desugarMapProjection,
-        moveWithPastMatch,
-        normalizeComparisons,
-        foldConstants,
-        mergeDuplicateBooleanOperators(),
-        normalizeExistsPatternExpressions,
-        nameAllPatternElements,
-        normalizeMatchPredicates,
-        normalizePatternComprehensionPredicates,
-        normalizeNotEquals,
-        normalizeArgumentOrder,
-        AddUniquenessPredicates,
-        simplifyIterablePredicates,
-        replaceLiteralDynamicPropertyLookups,
-        inlineNamedPathsInPatternComprehensions,
-        parameterValueTypeReplacement,
-        rewriteOrderById,
-        LabelExpressionPredicateNormalizer,
-        unwrapParenthesizedPath,
-        QuantifiedPathPatternNodeInsertRewriter
-      ),
-      initialConditions = Set(ProjectionClausesHaveSemanticInfo, PatternExpressionsHaveSemanticInfo)
+      steps,
+      initialConditions,
+      PrecomputedStepOrders.load(PrecomputedStepOrders.AST_REWRITER)
     )
 
+  // Traced rewrites run the steps in the same order, one traversal each
+  private[phases] val orderedSteps = RewriterStepFusion.groupFusable(sequencedSteps)
+
+  private[phases] val fusedSteps = RewriterStepFusion.fuse(orderedSteps)
+
   def rewrite(
     statement: Statement,
     semanticState: SemanticState,
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
-    anonymousVariableNameGenerator: AnonymousVariableNameGenerator
+    anonymousVariableNameGenerator: AnonymousVariableNameGenerator,
+    monitor: ASTRewriterMonitor = ASTRewriterMonitor.NONE,
+    tracer: CompilationPhaseTracer = CompilationPhaseTracer.NO_TRACING
   ): Statement = {
-    val rewriters = orderedSteps.map { step =>
-      val rewriter =
-        step.getRewriter(semanticState, parameterTypeMapping, cypherExceptionFactory, anonymousVariableNameGenerator)
-      RewriterStep.validatingRewriter(rewriter, step)
-    }
+    val start = System.nanoTime()
+    if (tracer.tracesSteps()) {
+      // Each step needs a traversal of its own to be traced on its own
+      val result = orderedSteps.foldLeft(statement) { (current, step) =>
+        val rewriter = RewriterStep.validatingRewriter(
+          step.getRewriter(semanticState, parameterTypeMapping, cypherExceptionFactory, anonymousVariableNameGenerator),
+          step
+        )
+        val event = tracer.beginRewriterStep(AST_REWRITE, step.toString)
+        StepTracing.traceStep(event, Some(current))(current.endoRewrite(rewriter))(Some(_))
+      }
+      monitor.rewritten(ASTRewriterMetrics(orderedSteps.size, orderedSteps.size, System.nanoTime() - start))
+      result
+    } else {
+      val rewriters = fusedSteps.map { fused =>
+        val rewriter =
+          fused.getRewriter(semanticState, parameterTypeMapping, cypherExceptionFactory, anonymousVariableNameGenerator)
+        fused.steps.foldLeft(rewriter)(RewriterStep.validatingRewriter)
+      }
 
-    val combined = inSequence(rewriters: _*)
+      val combined = inSequence(rewriters: _*)
 
-    statement.endoRewrite(combined)
+      val result = statement.endoRewrite(combined)
+      monitor.rewritten(ASTRewriterMetrics(orderedSteps.size, fusedSteps.size, System.nanoTime() - start))
+      result
+    }
   }
 }
+
+/**
+ * Metrics about one invocation of [[ASTRewriter.rewrite]].
+ *
+ * @param steps        the number of rewriter steps that were applied.
+ * @param traversals   the number of traversals of the statement it took to apply them.
+ * @param elapsedNanos the time it took to rewrite the statement.
+ */
+case class ASTRewriterMetrics(steps: Int, traversals: Int, elapsedNanos: Long) {
+
+  def traversalsSaved: Int = steps - traversals
+
+  /**
+   * The time that would have been spent on the saved traversals, assuming that all traversals take equally long.
+   */
+  def estimatedNanosSaved: Long =
+    if (traversals == 0) 0L else elapsedNanos / traversals * traversalsSaved
+}
+
+trait ASTRewriterMonitor {
+  def rewritten(metrics: ASTRewriterMetrics): Unit
+}
+
+object ASTRewriterMonitor {
+
+  val NONE: ASTRewriterMonitor = _ => ()
+}
@@ -33,13 +33,29 @@ import org.opencypher.v9_0.util.symbols.CypherType
 case class AstRewriting(parameterTypeMapping: Map[String, CypherType] = Map.empty)
     extends Phase[BaseContext, BaseState, BaseState] {
 
+  // The monitor of the last Monitors this phase was used with, so that it is not created again for every query
+  @volatile private var monitor: (Monitors, ASTRewriterMonitor) = _
+
+  private def monitorFor(monitors: Monitors): ASTRewriterMonitor = {
+    val cached = monitor
+    if (cached != null && (cached._1 eq monitors)) {
+      cached._2
+    } else {
+      val created = monitors.newMonitor[ASTRewriterMonitor]()
+      monitor = (monitors, created)
+      created
+    }
+  }
+
   override def process(in: BaseState, context: BaseContext): BaseState = {
     val rewrittenStatement = ASTRewriter.rewrite(
       in.statement(),
       in.semantics(),
       parameterTypeMapping,
       context.cypherExceptionFactory,
-      in.anonymousVariableNameGenerator
+      in.anonymousVariableNameGenerator,
+      monitorFor(context.monitors),
+      context.tracer
     )
     in.withStatement(rewrittenStatement)
   }
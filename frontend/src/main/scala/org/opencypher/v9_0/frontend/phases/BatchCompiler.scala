@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.v9_0.frontend.PlannerName
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.attribution.IdGen
+import org.opencypher.v9_0.util.attribution.SequentialIdGen
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executor
+import java.util.concurrent.ForkJoinPool
+
+import scala.util.Try
+
+/**
+ * Compiles batches of independent queries concurrently, e.g. to warm up caches at startup.
+ *
+ * Each query is compiled on its own, with a fresh [[InitialState]], [[AnonymousVariableNameGenerator]],
+ * [[SequentialIdGen]] and context, so that nothing mutated during compilation is shared between queries.
+ * A query therefore compiles to the same result as when it is compiled alone. The pipeline itself is shared,
+ * and must not keep state between queries, which holds for the phases of the frontend.
+ *
+ * @param pipeline    compiles a single query, typically parsing, [[SemanticAnalysis]] and [[AstRewriting]].
+ * @param newContext  creates the context for a single query, given the id generator of that query.
+ * @param executor    runs the compilations, e.g. a [[ForkJoinPool]] or a virtual thread executor.
+ */
+class BatchCompiler[C <: BaseContext](
+  pipeline: Transformer[C, BaseState, BaseState],
+  plannerName: PlannerName,
+  newContext: IdGen => C,
+  executor: Executor = ForkJoinPool.commonPool()
+) {
+
+  /**
+   * @return the compiled state or the failure for each query, in the order of the queries.
+   */
+  def compile(queryTexts: Seq[String]): Seq[Try[BaseState]] = {
+    val compilations = queryTexts.map { queryText =>
+      CompletableFuture.supplyAsync[Try[BaseState]](() => compile(queryText), executor)
+    }
+    compilations.map(_.join())
+  }
+
+  def compile(queryText: String): Try[BaseState] = Try {
+    val state = InitialState(queryText, None, plannerName, new AnonymousVariableNameGenerator)
+    pipeline.transform(state, newContext(new SequentialIdGen()))
+  }
+}
@@ -17,6 +17,7 @@ package org.opencypher.v9_0.frontend.phases
 
 import org.opencypher.v9_0.frontend.helpers.closing
 import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationPhase
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationPhaseEvent
 import org.opencypher.v9_0.macros.AssertMacros.checkOnlyWhenAssertionsAreEnabled
 import org.opencypher.v9_0.util.StepSequencer
 
@@ -32,11 +33,17 @@ trait Phase[-C <: BaseContext, FROM, +TO] extends Transformer[C, FROM, TO] {
   override def transform(from: FROM, context: C): TO = {
     context.cancellationChecker.throwIfCancelled()
     closing(context.tracer.beginPhase(phase)) {
-      val result = process(from, context)
+      val result =
+        if (context.tracer.tracesSteps()) {
+          val event = context.tracer.beginStep(phase, name)
+          StepTracing.traceStep(event, StepTracing.statementOf(from))(process(from, context))(StepTracing.statementOf)
+        } else {
+          process(from, context)
+        }
       // Checking conditions inside assert so they are not run in production
       checkOnlyWhenAssertionsAreEnabled(checkConditions(result, postConditions))
       result
-    }
+    }(onError = (event: CompilationPhaseEvent, cause: Throwable) => event.failed(cause))
   }
 
   def process(from: FROM, context: C): TO
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.v9_0.rewriting.ListStepAccumulator
+import org.opencypher.v9_0.util.StepSequencer
+import org.opencypher.v9_0.util.StepSequencer.AccumulatedSteps
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Paths
+
+import scala.io.Source
+import scala.jdk.CollectionConverters.SeqHasAsJava
+import scala.util.Using
+
+/**
+ * Orders of rewriter steps that are computed at build time, so that they do not need to be computed when the
+ * rewriters are first used.
+ *
+ * The build runs [[PrecomputedStepOrders.main]] after compilation, which writes one resource per step sequence,
+ * listing the names of the steps in the order they should run.
+ * At runtime, an order is only used after checking that it still fits the declared steps,
+ * see [[StepSequencer.replayOrder]].
+ */
+object PrecomputedStepOrders {
+
+  val AST_REWRITER = "ASTRewriter"
+  val PREPARATORY_REWRITING = "PreparatoryRewriting"
+
+  /**
+   * The seed that [[StepSequencer]] uses for ordering steps in production.
+   */
+  private val SEED = 42L
+
+  private val resourceDirectory = "step-orders"
+
+  case class StepSequence(
+    name: String,
+    steps: Set[_ <: StepSequencer.Step],
+    initialConditions: Set[StepSequencer.Condition]
+  ) {
+
+    def computeOrder(): Seq[String] = {
+      val AccumulatedSteps(orderedSteps, _) =
+        StepSequencer(ListStepAccumulator[StepSequencer.Step]()).orderSteps(
+          steps.toSet[StepSequencer.Step],
+          initialConditions,
+          fixedSeed = Some(SEED)
+        )
+      orderedSteps.map(_.toString)
+    }
+  }
+
+  def all: Seq[StepSequence] = Seq(
+    StepSequence(AST_REWRITER, ASTRewriter.steps, ASTRewriter.initialConditions),
+    StepSequence(PREPARATORY_REWRITING, PreparatoryRewriting.steps, PreparatoryRewriting.initialConditions)
+  )
+
+  /**
+   * @return the precomputed order of the step sequence with the given name, or None if it was not generated.
+   */
+  def load(name: String): Option[Seq[String]] =
+    Option(getClass.getResourceAsStream(s"$resourceDirectory/$name")).flatMap { in =>
+      Using(Source.fromInputStream(in, StandardCharsets.UTF_8.name())) {
+        _.getLines().filter(_.nonEmpty).toVector
+      }.toOption
+    }
+
+  /**
+   * Write the orders of all step sequences as resources into the given class output directory.
+   * Fails if any of the computed orders does not replay correctly.
+   */
+  def main(args: Array[String]): Unit = {
+    val outputDirectory = Paths.get(args(0))
+      .resolve(getClass.getPackage.getName.replace('.', '/'))
+      .resolve(resourceDirectory)
+    Files.createDirectories(outputDirectory)
+
+    all.foreach { sequence =>
+      val order = sequence.computeOrder()
+      StepSequencer.replayOrder(sequence.steps.toSet[StepSequencer.Step], sequence.initialConditions, order) match {
+        case Left(problem) =>
+          throw new IllegalStateException(s"Computed an invalid order for ${sequence.name}: $problem")
+        case Right(_) =>
+          Files.write(outputDirectory.resolve(sequence.name), order.asJava, StandardCharsets.UTF_8)
+      }
+    }
+  }
+}
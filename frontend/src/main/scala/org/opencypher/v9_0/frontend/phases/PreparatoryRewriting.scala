@@ -37,29 +37,43 @@ import org.opencypher.v9_0.util.inSequence
  */
 case object PreparatoryRewriting extends Phase[BaseContext, BaseState, BaseState] {
 
+  val steps: Set[StepSequencer.Step with PreparatoryRewritingRewriterFactory] = Set(
+    normalizeWithAndReturnClauses,
+    insertWithBetweenOptionalMatchAndMatch,
+    expandCallWhere,
+    expandShowWhere,
+    rewriteShowQuery,
+    mergeInPredicates,
+    timestampRewriter,
+    rewriteShortestPathWithFixedLengthRelationship
+  )
+
+  val initialConditions: Set[StepSequencer.Condition] = Set(LiteralsAreAvailable)
+
   val AccumulatedSteps(orderedSteps, _) =
     new StepSequencer(ListStepAccumulator[StepSequencer.Step with PreparatoryRewritingRewriterFactory]()).orderSteps(
-      Set(
-        normalizeWithAndReturnClauses,
-        insertWithBetweenOptionalMatchAndMatch,
-        expandCallWhere,
-        expandShowWhere,
-        rewriteShowQuery,
-        mergeInPredicates,
-        timestampRewriter,
-        rewriteShortestPathWithFixedLengthRelationship
-      ),
-      initialConditions = Set(LiteralsAreAvailable)
+      steps,
+      initialConditions,
+      PrecomputedStepOrders.load(PrecomputedStepOrders.PREPARATORY_REWRITING)
     )
 
   override def process(from: BaseState, context: BaseContext): BaseState = {
 
     val rewriters = orderedSteps.map { step =>
       val rewriter = step.getRewriter(context.cypherExceptionFactory, context.notificationLogger)
-      RewriterStep.validatingRewriter(rewriter, step)
+      step -> RewriterStep.validatingRewriter(rewriter, step)
     }
 
-    val rewrittenStatement = from.statement().endoRewrite(inSequence(rewriters.toSeq: _*))
+    val rewrittenStatement =
+      if (context.tracer.tracesSteps()) {
+        rewriters.foldLeft(from.statement()) {
+          case (current, (step, rewriter)) =>
+            val event = context.tracer.beginRewriterStep(phase, step.toString)
+            StepTracing.traceStep(event, Some(current))(current.endoRewrite(rewriter))(Some(_))
+        }
+      } else {
+        from.statement().endoRewrite(inSequence(rewriters.map(_._2): _*))
+      }
 
     from.withStatement(rewrittenStatement)
   }
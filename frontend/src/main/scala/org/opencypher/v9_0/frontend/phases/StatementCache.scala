@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.frontend.phases.StatementCache.Entry
+import org.opencypher.v9_0.util.ASTNode
+import org.opencypher.v9_0.util.StepSequencer
+
+import java.util
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * A bounded cache of parsed statements, keyed by query text.
+ *
+ * Statements are immutable, so a cached statement can be handed to any number of concurrent compilations.
+ * Lookups do not lock. Insertions and evictions are serialized, and evict with the CLOCK (second chance) policy:
+ * statements that have been looked up since the last sweep are kept, the others are evicted in insertion order.
+ *
+ * @param maximumSize   the maximum number of cached statements.
+ * @param maximumWeight the maximum total number of AST nodes of the cached statements.
+ */
+final class StatementCache(maximumSize: Int, maximumWeight: Long = Long.MaxValue) {
+  require(maximumSize > 0, s"Maximum size must be positive, but was $maximumSize")
+  require(maximumWeight > 0, s"Maximum weight must be positive, but was $maximumWeight")
+
+  private val entries = new ConcurrentHashMap[String, Entry]()
+  // guarded by this
+  private val clock = new util.ArrayDeque[Entry]()
+  // guarded by this
+  private var totalWeight = 0L
+
+  private val hitCount = new LongAdder
+  private val missCount = new LongAdder
+  private val evictionCount = new LongAdder
+
+  def get(queryText: String): Option[Statement] = {
+    val entry = entries.get(queryText)
+    if (entry == null) {
+      missCount.increment()
+      None
+    } else {
+      entry.referenced = true
+      hitCount.increment()
+      Some(entry.statement)
+    }
+  }
+
+  def getOrParse(queryText: String)(parse: String => Statement): Statement =
+    get(queryText).getOrElse {
+      val statement = parse(queryText)
+      put(queryText, statement)
+      statement
+    }
+
+  /**
+   * Caches the statement, unless a statement is cached for the query text already
+   * or the statement alone is heavier than the maximum weight.
+   */
+  def put(queryText: String, statement: Statement): Unit = {
+    val weight = StatementCache.weight(statement)
+    if (weight <= maximumWeight) {
+      val entry = new Entry(queryText, statement, weight)
+      synchronized {
+        if (entries.putIfAbsent(queryText, entry) == null) {
+          clock.addLast(entry)
+          totalWeight += weight
+          evict()
+        }
+      }
+    }
+  }
+
+  private def evict(): Unit = {
+    while (clock.size() > maximumSize || totalWeight > maximumWeight) {
+      val candidate = clock.pollFirst()
+      if (candidate.referenced) {
+        candidate.referenced = false
+        clock.addLast(candidate)
+      } else {
+        entries.remove(candidate.queryText, candidate)
+        totalWeight -= candidate.weight
+        evictionCount.increment()
+      }
+    }
+  }
+
+  def clear(): Unit = synchronized {
+    entries.clear()
+    clock.clear()
+    totalWeight = 0
+  }
+
+  def size: Int = entries.size()
+
+  def weight: Long = synchronized(totalWeight)
+
+  def hits: Long = hitCount.sum()
+
+  def misses: Long = missCount.sum()
+
+  def evictions: Long = evictionCount.sum()
+}
+
+object StatementCache {
+
+  /**
+   * The weight of a statement is the number of AST nodes in it.
+   */
+  def weight(statement: Statement): Int = statement.folder.treeCount {
+    case _: ASTNode => true
+  }
+
+  final private class Entry(val queryText: String, val statement: Statement, val weight: Int) {
+    @volatile var referenced: Boolean = false
+  }
+}
+
+/**
+ * Consults the cache before parsing, and only runs the parsing transformer for query texts that are not cached.
+ * The parsing transformer should not have any effect on the state but setting the statement,
+ * since that is all that is restored from the cache.
+ */
+case class CachedParsing[-C <: BaseContext](cache: StatementCache, parsing: Transformer[C, BaseState, BaseState])
+    extends Transformer[C, BaseState, BaseState] {
+
+  override def transform(from: BaseState, context: C): BaseState = {
+    cache.get(from.queryText) match {
+      case Some(statement) =>
+        from.withStatement(statement)
+      case None =>
+        val parsed = parsing.transform(from, context)
+        cache.put(from.queryText, parsed.statement())
+        parsed
+    }
+  }
+
+  override def name: String = s"cached ${parsing.name}"
+
+  override def postConditions: Set[StepSequencer.Condition] = parsing.postConditions
+}
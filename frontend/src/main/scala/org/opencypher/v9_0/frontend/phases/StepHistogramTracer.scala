@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationPhase
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationPhaseEvent
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationStepEvent
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+
+import scala.jdk.CollectionConverters.CollectionHasAsScala
+
+/**
+ * A [[CompilationPhaseTracer]] that collects a [[StepHistogram]] of the wall time and allocation of every step,
+ * to be scraped with [[snapshot]]. It can be shared by concurrent compilations.
+ *
+ * @param delegate the tracer that phases are passed on to.
+ */
+class StepHistogramTracer(delegate: CompilationPhaseTracer = CompilationPhaseTracer.NO_TRACING)
+    extends CompilationPhaseTracer {
+
+  private val histograms = new ConcurrentHashMap[(CompilationPhase, String), StepHistogram]()
+
+  override def beginPhase(phase: CompilationPhase): CompilationPhaseEvent = delegate.beginPhase(phase)
+
+  override def tracesSteps(): Boolean = true
+
+  override def beginStep(phase: CompilationPhase, step: String): CompilationStepEvent = {
+    val histogram = histograms.computeIfAbsent((phase, step), _ => new StepHistogram(phase, step))
+    (elapsedNanos, allocatedBytes, astNodesBefore, nodesRewritten) =>
+      histogram.record(elapsedNanos, allocatedBytes, astNodesBefore, nodesRewritten)
+  }
+
+  /**
+   * @return the histograms of all steps seen so far, ordered by phase and step.
+   */
+  def snapshot(): Seq[StepHistogram.Snapshot] =
+    histograms.values().asScala.toSeq.map(_.snapshot()).sortBy(s => (s.phase.ordinal(), s.step))
+
+  def reset(): Unit = histograms.clear()
+}
+
+/**
+ * Counts of the runs of one step, with histograms of their wall time and allocated bytes.
+ * Bucket 0 of a histogram counts the runs with a value of 0, and bucket `i` those with a value in `[2^(i-1), 2^i)`.
+ */
+final class StepHistogram(val phase: CompilationPhase, val step: String) {
+  private val runs = new LongAdder
+  private val totalNanos = new LongAdder
+  private val totalAllocatedBytes = new LongAdder
+  private val totalAstNodesBefore = new LongAdder
+  private val totalNodesRewritten = new LongAdder
+  private val nanos = new AtomicLongArray(StepHistogram.BUCKETS)
+  private val allocatedBytes = new AtomicLongArray(StepHistogram.BUCKETS)
+
+  def record(elapsedNanos: Long, allocated: Long, astNodesBefore: Long, nodesRewritten: Long): Unit = {
+    runs.increment()
+    if (elapsedNanos >= 0) {
+      totalNanos.add(elapsedNanos)
+      nanos.incrementAndGet(StepHistogram.bucket(elapsedNanos))
+    }
+    if (allocated >= 0) {
+      totalAllocatedBytes.add(allocated)
+      allocatedBytes.incrementAndGet(StepHistogram.bucket(allocated))
+    }
+    if (astNodesBefore >= 0) totalAstNodesBefore.add(astNodesBefore)
+    if (nodesRewritten >= 0) totalNodesRewritten.add(nodesRewritten)
+  }
+
+  def snapshot(): StepHistogram.Snapshot = StepHistogram.Snapshot(
+    phase,
+    step,
+    runs.sum(),
+    totalNanos.sum(),
+    totalAllocatedBytes.sum(),
+    totalAstNodesBefore.sum(),
+    totalNodesRewritten.sum(),
+    StepHistogram.toVector(nanos),
+    StepHistogram.toVector(allocatedBytes)
+  )
+}
+
+object StepHistogram {
+
+  val BUCKETS = 64
+
+  def bucket(value: Long): Int = 64 - java.lang.Long.numberOfLeadingZeros(value)
+
+  /**
+   * @return the largest value that falls into the given bucket.
+   */
+  def upperBound(bucket: Int): Long = if (bucket == 0) 0L else (1L << bucket) - 1
+
+  private def toVector(buckets: AtomicLongArray): Vector[Long] =
+    Vector.tabulate(buckets.length())(buckets.get)
+
+  case class Snapshot(
+    phase: CompilationPhase,
+    step: String,
+    runs: Long,
+    totalNanos: Long,
+    totalAllocatedBytes: Long,
+    totalAstNodesBefore: Long,
+    totalNodesRewritten: Long,
+    nanos: Vector[Long],
+    allocatedBytes: Vector[Long]
+  ) {
+
+    /**
+     * @return an upper bound of the wall time within which the given fraction of the runs finished.
+     */
+    def nanosPercentile(fraction: Double): Long = percentile(nanos, fraction)
+
+    /**
+     * @return an upper bound of the bytes that the given fraction of the runs allocated at most.
+     */
+    def allocatedBytesPercentile(fraction: Double): Long = percentile(allocatedBytes, fraction)
+
+    private def percentile(buckets: Vector[Long], fraction: Double): Long = {
+      val total = buckets.sum
+      if (total == 0) {
+        0L
+      } else {
+        val rank = math.min(total, math.max(1L, math.ceil(fraction * total).toLong))
+        var seen = buckets.head
+        var i = 0
+        while (seen < rank) {
+          i += 1
+          seen += buckets(i)
+        }
+        upperBound(i)
+      }
+    }
+  }
+}
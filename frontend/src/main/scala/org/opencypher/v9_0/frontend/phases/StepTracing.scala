@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import com.sun.management.ThreadMXBean
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.AstNodeCounts
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationStepEvent
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.UNKNOWN_COUNTS
+import org.opencypher.v9_0.util.ASTNode
+import org.opencypher.v9_0.util.Foldable.FoldableAny
+
+import java.lang.management.ManagementFactory
+import java.util
+
+/**
+ * Runs steps for a [[CompilationPhaseTracer]] that traces steps, and measures for each step
+ * its wall time, the bytes it allocated, the AST nodes before it and the AST nodes it created.
+ *
+ * Tracing steps changes how the frontend runs, so traced compilations are slower than untraced ones:
+ *  - Counting the nodes walks the whole AST twice for every step whose event asks for the counts, and keeps the
+ *    nodes before the step in an identity set. This is not included in the measurements of the step, but in those
+ *    of the enclosing phase.
+ *  - Rewriter steps that otherwise share traversals of the AST (see
+ *    [[org.opencypher.v9_0.rewriting.RewriterStepFusion]]) each get a traversal of their own. Only steps that are
+ *    declared not to interact are fused, so this gives the same AST, which `FusedASTRewritingTckTest` checks for
+ *    the TCK queries. The time of the traced steps adds up to more than the fused traversals take, though.
+ */
+object StepTracing {
+
+  private val threadMXBean: Option[ThreadMXBean] = ManagementFactory.getThreadMXBean match {
+    case bean: ThreadMXBean if bean.isThreadAllocatedMemorySupported => Some(bean)
+    case _                                                           => None
+  }
+
+  /**
+   * @return the bytes allocated by the current thread so far, or -1 if the JVM does not measure that.
+   */
+  def currentThreadAllocatedBytes(): Long =
+    threadMXBean.fold(-1L)(_.getThreadAllocatedBytes(Thread.currentThread().getId))
+
+  /**
+   * Run a step and report it to the event that was begun for it.
+   * The AST nodes are counted after the step has been measured, so counting them does not add to its cost.
+   * Counting takes a traversal of the AST before the step and one of the AST after it, and only happens if the event
+   * asks for the counts.
+   *
+   * @param event  the event of the step, from [[CompilationPhaseTracer.beginStep]] or [[CompilationPhaseTracer.beginRewriterStep]].
+   * @param before the AST before the step, if known.
+   * @param after  extracts the AST after the step from its result, if possible.
+   */
+  def traceStep[T](event: CompilationStepEvent, before: Option[AnyRef])(run: => T)(after: T => Option[AnyRef]): T = {
+    val startBytes = currentThreadAllocatedBytes()
+    val start = System.nanoTime()
+
+    def allocatedSinceStart(): Long = {
+      val endBytes = currentThreadAllocatedBytes()
+      if (startBytes < 0 || endBytes < 0) -1L else endBytes - startBytes
+    }
+
+    val result =
+      try {
+        run
+      } catch {
+        case t: Throwable =>
+          event.failed(t)
+          event.end(System.nanoTime() - start, allocatedSinceStart(), UNKNOWN_COUNTS)
+          throw t
+      }
+    val elapsed = System.nanoTime() - start
+    val allocated = allocatedSinceStart()
+
+    (before, after(result)) match {
+      case (Some(beforeTree), Some(afterTree)) =>
+        event.end(elapsed, allocated, new LazyAstNodeCounts(beforeTree, afterTree))
+      case _ =>
+        event.end(elapsed, allocated, UNKNOWN_COUNTS)
+    }
+    result
+  }
+
+  // Counts the first time either count is asked for
+  private class LazyAstNodeCounts(before: AnyRef, after: AnyRef) extends AstNodeCounts {
+    private var counted = false
+    private var nodesBefore = -1L
+    private var rewritten = -1L
+
+    private def count(): Unit = if (!counted) {
+      val existingNodes = before.folder.findAllByClass[ASTNode]
+      val existing = util.Collections.newSetFromMap[ASTNode](new util.IdentityHashMap[ASTNode, java.lang.Boolean]())
+      existingNodes.foreach(existing.add)
+      nodesBefore = existingNodes.size.toLong
+      rewritten = after.folder.findAllByClass[ASTNode].count(!existing.contains(_)).toLong
+      counted = true
+    }
+
+    override def astNodesBefore(): Long = {
+      count()
+      nodesBefore
+    }
+
+    override def nodesRewritten(): Long = {
+      count()
+      rewritten
+    }
+  }
+
+  /**
+   * @return the statement of a compilation state, if it is one and has a statement.
+   */
+  def statementOf(state: Any): Option[AnyRef] = state match {
+    case s: BaseState => s.maybeStatement
+    case _            => None
+  }
+}
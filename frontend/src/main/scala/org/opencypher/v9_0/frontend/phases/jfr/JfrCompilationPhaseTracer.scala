@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases.jfr
+
+import jdk.jfr.EventType
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.AstNodeCounts
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationPhase
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationPhaseEvent
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationStepEvent
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.NONE_STEP
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.NO_TRACING
+import org.opencypher.v9_0.util.CancellationChecker
+
+/**
+ * A [[CompilationPhaseTracer]] for the compilation of one query, that records its phases and rewriter steps
+ * as flight recorder events, see [[PhaseEvent]] and [[RewriterStepEvent]].
+ *
+ * Phase events only take the phase, the fingerprint and the outcome, so recording them does not change how the query
+ * is compiled. Rewriter step events are disabled by default, since recording them traces steps, which runs the
+ * rewriters unfused and counts the AST for every step, see [[org.opencypher.v9_0.frontend.phases.StepTracing]].
+ * The AST is only counted for steps that the recording keeps. Without a recording, this tracer costs no more than
+ * checking whether the events are enabled, so it can stay in place in production.
+ *
+ * @param fingerprint the fingerprint of the query, to correlate the events of the same kind of query.
+ * @param delegate    the tracer that phases and steps are passed on to.
+ */
+class JfrCompilationPhaseTracer(fingerprint: String, delegate: CompilationPhaseTracer = NO_TRACING)
+    extends CompilationPhaseTracer {
+
+  override def beginPhase(phase: CompilationPhase): CompilationPhaseEvent = {
+    val inner = delegate.beginPhase(phase)
+    val event = new PhaseEvent
+    if (!event.isEnabled) {
+      inner
+    } else {
+      event.begin()
+      new CompilationPhaseEvent {
+        private var outcome = JfrCompilationPhaseTracer.SUCCESS
+
+        override def failed(cause: Throwable): Unit = {
+          outcome = cause.getClass.getSimpleName
+          inner.failed(cause)
+        }
+
+        override def close(): Unit = {
+          event.end()
+          if (event.shouldCommit()) {
+            event.phase = phase.name()
+            event.fingerprint = fingerprint
+            event.outcome = outcome
+            event.commit()
+          }
+          inner.close()
+        }
+      }
+    }
+  }
+
+  override def tracesSteps(): Boolean =
+    JfrCompilationPhaseTracer.rewriterStepEvents.isEnabled || delegate.tracesSteps()
+
+  override def beginStep(phase: CompilationPhase, step: String): CompilationStepEvent =
+    if (delegate.tracesSteps()) delegate.beginStep(phase, step) else NONE_STEP
+
+  override def beginRewriterStep(phase: CompilationPhase, step: String): CompilationStepEvent = {
+    val inner = if (delegate.tracesSteps()) delegate.beginRewriterStep(phase, step) else NONE_STEP
+    val event = new RewriterStepEvent
+    if (!event.isEnabled) {
+      inner
+    } else {
+      event.begin()
+      new CompilationStepEvent {
+        private var outcome = JfrCompilationPhaseTracer.SUCCESS
+
+        override def failed(cause: Throwable): Unit = {
+          outcome = cause.getClass.getSimpleName
+          inner.failed(cause)
+        }
+
+        override def end(elapsedNanos: Long, allocatedBytes: Long, astNodesBefore: Long, nodesRewritten: Long): Unit =
+          end(elapsedNanos, allocatedBytes, AstNodeCounts.of(astNodesBefore, nodesRewritten))
+
+        override def end(elapsedNanos: Long, allocatedBytes: Long, counts: AstNodeCounts): Unit = {
+          event.end()
+          if (event.shouldCommit()) {
+            event.phase = phase.name()
+            event.step = step
+            event.fingerprint = fingerprint
+            event.astNodes = counts.astNodesBefore()
+            event.rewrittenNodes = counts.nodesRewritten()
+            event.allocatedBytes = allocatedBytes
+            event.outcome = outcome
+            event.commit()
+          }
+          inner.end(elapsedNanos, allocatedBytes, counts)
+        }
+      }
+    }
+  }
+}
+
+object JfrCompilationPhaseTracer {
+
+  val SUCCESS = "SUCCESS"
+
+  private val rewriterStepEvents = EventType.getEventType(classOf[RewriterStepEvent])
+}
+
+/**
+ * A [[CancellationChecker]] that records a [[CancellationEvent]] whenever the checks of `inner` cancel the compilation
+ * of a query. Checks that do not cancel cost nothing extra.
+ *
+ * @param fingerprint the fingerprint of the query, to correlate the events of the same kind of query.
+ */
+class JfrCancellationChecker(inner: CancellationChecker, fingerprint: String) extends CancellationChecker {
+
+  override def throwIfCancelled(): Unit =
+    try {
+      inner.throwIfCancelled()
+    } catch {
+      case t: Throwable =>
+        val event = new CancellationEvent
+        if (event.shouldCommit()) {
+          event.fingerprint = fingerprint
+          event.outcome = t.getClass.getSimpleName
+          event.commit()
+        }
+        throw t
+    }
+}
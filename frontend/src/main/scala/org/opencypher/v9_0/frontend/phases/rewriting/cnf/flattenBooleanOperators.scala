@@ -38,18 +38,19 @@ case object flattenBooleanOperators extends Rewriter with CnfPhase {
     case p @ Or(lhs, rhs)  => Ors(ListSet(lhs, rhs))(p.position)
   }
 
+  // Only fires when there is something to flatten, so that the fixed point can be detected by identity
   private val secondStep: Rewriter = Rewriter.lift {
-    case p @ Ands(exprs) => Ands(exprs.flatMap {
+    case p @ Ands(exprs) if exprs.exists(_.isInstanceOf[Ands]) => Ands(exprs.flatMap {
         case Ands(inner) => inner
         case x           => Set(x)
       })(p.position)
-    case p @ Ors(exprs) => Ors(exprs.flatMap {
+    case p @ Ors(exprs) if exprs.exists(_.isInstanceOf[Ors]) => Ors(exprs.flatMap {
         case Ors(inner) => inner
         case x          => Set(x)
       })(p.position)
   }
 
-  private val instance = inSequence(bottomUp(firstStep), fixedPoint(bottomUp(secondStep)))
+  private val instance = inSequence(bottomUp(firstStep), fixedPoint.untilIdentical(bottomUp(secondStep)))
 
   override def preConditions: Set[StepSequencer.Condition] = Set.empty
 
@@ -54,7 +54,7 @@ case class mergeDuplicateBooleanOperators(additionalPreConditions: Set[StepSeque
 
 case class mergeDuplicateBooleanOperatorsRewriter(semanticState: SemanticState) extends Rewriter {
 
-  private def instance(semanticState: SemanticState) = fixedPoint(topDown(Rewriter.lift {
+  private def instance(semanticState: SemanticState) = fixedPoint.untilIdentical(topDown(Rewriter.lift {
     case p @ And(lhs, rhs) if (lhs == rhs) => coerceInnerExpressionToBooleanIfNecessary(semanticState, p, lhs)
     case p @ Or(lhs, rhs) if (lhs == rhs)  => coerceInnerExpressionToBooleanIfNecessary(semanticState, p, lhs)
   }))
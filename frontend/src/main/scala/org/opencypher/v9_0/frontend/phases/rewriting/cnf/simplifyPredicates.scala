@@ -47,7 +47,7 @@ case class simplifyPredicates(semanticState: SemanticState) extends Rewriter {
 
   private val step: Rewriter = Rewriter.lift { case e: Expression => computeReplacement(e) }
 
-  private val instance = fixedPoint(topDown(step))
+  private val instance = fixedPoint.untilIdentical(topDown(step))
 
   def apply(that: AnyRef): AnyRef = {
     instance.apply(that)
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend
+
+import org.opencypher.v9_0.ast.semantics.ParallelSemanticCheck
+import org.opencypher.v9_0.ast.semantics.SemanticChecker
+import org.opencypher.v9_0.ast.semantics.SemanticFeature
+import org.opencypher.v9_0.ast.semantics.SemanticState
+import org.opencypher.v9_0.frontend.helpers.ErrorCollectingContext
+import org.opencypher.v9_0.frontend.helpers.NoPlannerName
+import org.opencypher.v9_0.frontend.phases.InitialState
+import org.opencypher.v9_0.frontend.phases.OpenCypherJavaCCParsing
+import org.opencypher.v9_0.frontend.phases.PreparatoryRewriting
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class ParallelUnionSemanticAnalysisTest extends CypherFunSuite {
+
+  private val pipeline = OpenCypherJavaCCParsing andThen PreparatoryRewriting
+
+  private def shouldCheckAllPartsInParallel(query: String): Unit = {
+    shouldCheckTheSameInParallel(query) shouldBe 0L
+  }
+
+  /**
+   * @return the number of parts that were checked again sequentially
+   */
+  private def shouldCheckTheSameInParallel(query: String): Long = {
+    val statement = pipeline.transform(
+      InitialState(query, None, NoPlannerName, new AnonymousVariableNameGenerator),
+      new ErrorCollectingContext()
+    ).statement()
+
+    val sequential = SemanticChecker.check(statement, SemanticState.clean)
+    val fallbacksBefore = ParallelSemanticCheck.fallbacks
+    val parallel =
+      SemanticChecker.check(statement, SemanticState.clean.withFeatures(SemanticFeature.ParallelUnionParts))
+    val fallbacks = ParallelSemanticCheck.fallbacks - fallbacksBefore
+
+    parallel.errors shouldBe sequential.errors
+    parallel.state.copy(features = Set.empty) shouldBe sequential.state
+    fallbacks
+  }
+
+  test("should check a UNION in parallel") {
+    shouldCheckTheSameInParallel("MATCH (a) RETURN a.name AS name UNION MATCH (b)-[r]->() RETURN type(r) AS name")
+  }
+
+  test("should check many parts of a UNION ALL in parallel") {
+    shouldCheckAllPartsInParallel(
+      (0 until 200).map(i => s"MATCH (n:L$i)-[r]->(m) WHERE n.p = $i WITH n, count(m) AS c RETURN n, c").mkString(
+        " UNION ALL "
+      )
+    )
+  }
+
+  test("should check parts with nested scopes in parallel") {
+    shouldCheckAllPartsInParallel(
+      """MATCH (n) WHERE EXISTS { (n)-->(m) WHERE m.p > 1 } RETURN [(n)-->(x) | x.p] AS xs
+        |UNION
+        |UNWIND [1, 2] AS x WITH x, [y IN range(0, x) WHERE y > 0] AS ys RETURN ys AS xs
+        |UNION
+        |RETURN reduce(acc = 0, z IN [1, 2, 3] | acc + z) AS xs
+        |""".stripMargin
+    )
+  }
+
+  test("should report the same errors in parallel") {
+    shouldCheckTheSameInParallel("RETURN x AS a UNION RETURN 1 AS b UNION ALL MATCH (n), (n) RETURN n AS a")
+    shouldCheckTheSameInParallel("RETURN 1 AS a UNION RETURN 'a' + true AS a UNION RETURN y AS a")
+  }
+
+  test("should check parts with subqueries sequentially") {
+    shouldCheckTheSameInParallel(
+      """MATCH (n) CALL { WITH n MATCH (n)-->(m) RETURN m } RETURN m AS x
+        |UNION
+        |MATCH (n) RETURN n AS x
+        |UNION
+        |UNWIND [1] AS a CALL { RETURN 1 AS b } RETURN a + b AS x
+        |""".stripMargin
+    )
+  }
+
+  test("should not be selectable by name as a language feature") {
+    an[IllegalArgumentException] should be thrownBy SemanticFeature.fromString("ParallelUnionParts")
+  }
+}
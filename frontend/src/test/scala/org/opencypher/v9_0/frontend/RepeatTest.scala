@@ -15,6 +15,7 @@
  */
 package org.opencypher.v9_0.frontend
 
+import org.opencypher.v9_0.util.CancellationChecker
 import org.opencypher.v9_0.util.Rewriter
 import org.opencypher.v9_0.util.helpers.fixedPoint
 import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
@@ -55,4 +56,54 @@ class RepeatTest extends CypherFunSuite {
     output should equal(result)
     count should equal(2)
   }
+
+  test("untilIdentical should not repeat when the output is the input itself") {
+    // given
+    count = 0
+
+    // when
+    val output = fixedPoint.untilIdentical(mockedRewriter)(result)
+
+    // then
+    output should be theSameInstanceAs result
+    count should equal(1)
+  }
+
+  test("untilIdentical should repeat until the output is the input itself") {
+    // given
+    count = 0
+
+    // when
+    val output = fixedPoint.untilIdentical(mockedRewriter)(new Object)
+
+    // then
+    output should be theSameInstanceAs result
+    count should equal(2)
+  }
+
+  test("untilIdentical should repeat when the output is only equal to the input") {
+    // given
+    var calls = 0
+    val rewriter: List[Int] => List[Int] = list => {
+      calls += 1
+      if (calls < 3) List(list: _*) else list
+    }
+
+    // when
+    val output = fixedPoint.untilIdentical(rewriter)(List(1, 2, 3))
+
+    // then
+    output should equal(List(1, 2, 3))
+    calls should equal(3)
+  }
+
+  test("untilIdentical should support cancellation") {
+    // given
+    val cancellation = new CancellationChecker {
+      override def throwIfCancelled(): Unit = throw new IllegalStateException("cancelled")
+    }
+
+    // when/then
+    an[IllegalStateException] should be thrownBy fixedPoint.untilIdentical(cancellation)(mockedRewriter)(result)
+  }
 }
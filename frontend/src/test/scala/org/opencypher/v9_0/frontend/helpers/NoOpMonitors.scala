@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.helpers
+
+import org.opencypher.v9_0.frontend.phases.Monitors
+
+import java.lang.reflect.Proxy
+
+import scala.reflect.ClassTag
+
+/**
+ * Monitors that hand out monitors that do nothing, for contexts that run phases which create monitors.
+ */
+object NoOpMonitors extends Monitors {
+
+  override def addMonitorListener[T](monitor: T, tags: String*): Unit = ()
+
+  // Monitors only have methods without results, so a proxy that does nothing can stand in for any of them.
+  override def newMonitor[T <: AnyRef : ClassTag](tags: String*): T = {
+    val monitorClass = implicitly[ClassTag[T]].runtimeClass
+    Proxy.newProxyInstance(monitorClass.getClassLoader, Array(monitorClass), (_, _, _) => null).asInstanceOf[T]
+  }
+}
@@ -33,7 +33,7 @@ case class TestContext(override val notificationLogger: InternalNotificationLogg
 
   override def cypherExceptionFactory: CypherExceptionFactory = OpenCypherExceptionFactory(None)
 
-  override def monitors = mock[Monitors]
+  override def monitors: Monitors = NoOpMonitors
 
   override def errorHandler = _ => ()
 
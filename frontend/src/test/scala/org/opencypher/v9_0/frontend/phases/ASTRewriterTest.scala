@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.v9_0.rewriting.rewriters.foldConstants
+import org.opencypher.v9_0.rewriting.rewriters.parameterValueTypeReplacement
+import org.opencypher.v9_0.rewriting.rewriters.replaceLiteralDynamicPropertyLookups
+import org.opencypher.v9_0.rewriting.rewriters.unwrapParenthesizedPath
+import org.opencypher.v9_0.util.StepSequencer
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class ASTRewriterTest extends CypherFunSuite {
+
+  test("should fuse steps in the production order") {
+    ASTRewriter.fusedSteps.size should be < ASTRewriter.orderedSteps.size
+  }
+
+  test("should fuse the bottom-up steps that are declared not to interact into one traversal") {
+    val fusedGroups = ASTRewriter.fusedSteps.map(_.steps.toSet[AnyRef])
+
+    fusedGroups should contain(
+      Set(foldConstants, replaceLiteralDynamicPropertyLookups, parameterValueTypeReplacement, unwrapParenthesizedPath)
+    )
+  }
+
+  test("should still run the steps in an order that meets all conditions") {
+    StepSequencer.replayOrder(
+      ASTRewriter.steps.toSet[StepSequencer.Step],
+      ASTRewriter.initialConditions,
+      ASTRewriter.orderedSteps.map(_.toString)
+    ).isRight shouldBe true
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.v9_0.frontend.PlannerName
+import org.opencypher.v9_0.util.attribution.IdGen
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+import java.util.concurrent.Executors
+
+class BatchCompilerTest extends CypherFunSuite {
+
+  private val plannerName = new PlannerName {
+    override def name: String = "fake"
+    override def toTextOutput: String = "fake"
+    override def version: String = "fake"
+  }
+
+  private val pipeline = OpenCypherJavaCCParsing andThen SemanticAnalysis(warn = false) andThen AstRewriting()
+
+  // anonymous variables make the results depend on the name generator of each query
+  private val queries = (0 until 200).map { i =>
+    s"MATCH (a)-[:R]->()<-[:S]-(b {prop: $i}) WHERE (a)-->() RETURN a, b, count(*) AS c$i"
+  }
+
+  private def compiler(threads: Int) = {
+    val executor = Executors.newFixedThreadPool(threads)
+    new BatchCompiler(pipeline, plannerName, (_: IdGen) => ContextHelper.create(), executor) -> executor
+  }
+
+  test("should compile each query like it is compiled alone") {
+    val (batchCompiler, executor) = compiler(8)
+    try {
+      val results = batchCompiler.compile(queries)
+
+      results.map(_.get.statement()) shouldBe queries.map(q => batchCompiler.compile(q).get.statement())
+    } finally {
+      executor.shutdown()
+    }
+  }
+
+  test("should return failures in the order of the queries") {
+    val (batchCompiler, executor) = compiler(4)
+    try {
+      val results = batchCompiler.compile(Seq("RETURN 1 AS x", "RETURN x", "RETURN 2 AS y", "RETURN"))
+
+      results.map(_.isSuccess) shouldBe Seq(true, false, true, false)
+      results.head.get.queryText shouldBe "RETURN 1 AS x"
+      results(2).get.queryText shouldBe "RETURN 2 AS y"
+    } finally {
+      executor.shutdown()
+    }
+  }
+}
@@ -16,6 +16,7 @@
 package org.opencypher.v9_0.frontend.phases
 
 import org.opencypher.v9_0.ast.semantics.SemanticErrorDef
+import org.opencypher.v9_0.frontend.helpers.NoOpMonitors
 import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.NO_TRACING
 import org.opencypher.v9_0.util.CancellationChecker
 import org.opencypher.v9_0.util.CypherExceptionFactory
@@ -24,19 +25,19 @@ import org.opencypher.v9_0.util.InternalNotificationLogger
 import org.opencypher.v9_0.util.NotImplementedErrorMessageProvider
 import org.opencypher.v9_0.util.OpenCypherExceptionFactory
 import org.opencypher.v9_0.util.devNullLogger
-import org.scalatestplus.mockito.MockitoSugar
 
-object ContextHelper extends MockitoSugar {
+object ContextHelper {
 
-  def create(): BaseContext = {
+  def create(tracer: CompilationPhaseTracer = NO_TRACING): BaseContext = {
+    val phaseTracer = tracer
     new BaseContext {
-      override def tracer: CompilationPhaseTracer = NO_TRACING
+      override def tracer: CompilationPhaseTracer = phaseTracer
 
       override def notificationLogger: InternalNotificationLogger = devNullLogger
 
       override def cypherExceptionFactory: CypherExceptionFactory = OpenCypherExceptionFactory(None)
 
-      override def monitors: Monitors = mock[Monitors]
+      override def monitors: Monitors = NoOpMonitors
 
       override def errorHandler: Seq[SemanticErrorDef] => Unit =
         (errors: Seq[SemanticErrorDef]) =>
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.tools.tck.api.CypherTCK
+import org.opencypher.tools.tck.api.Execute
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.frontend.PlannerName
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+import scala.util.Try
+
+/**
+ * Rewrites every TCK query with the fused rewriter steps of [[ASTRewriter]], and with every step in a traversal of
+ * its own, which is what tracing the steps does.
+ */
+class FusedASTRewritingTckTest extends CypherFunSuite {
+
+  private val plannerName = new PlannerName {
+    override def name: String = "fake"
+    override def toTextOutput: String = "fake"
+    override def version: String = "fake"
+  }
+
+  private val pipeline = OpenCypherJavaCCParsing andThen SemanticAnalysis(warn = false) andThen AstRewriting()
+
+  private def rewrite(query: String, tracer: CompilationPhaseTracer): Statement =
+    pipeline.transform(
+      InitialState(query, None, plannerName, new AnonymousVariableNameGenerator),
+      ContextHelper.create(tracer)
+    ).statement()
+
+  private val queries: Seq[String] =
+    CypherTCK.allTckScenarios
+      .flatMap(_.steps.collect {
+        case Execute(query, _, _) => query
+      })
+      .distinct
+
+  test("fused rewriter steps should rewrite all TCK queries the same as unfused rewriter steps") {
+    // Queries that the TCK expects to fail during parsing or semantic analysis never get rewritten
+    val rewritten = queries.flatMap { query =>
+      Try(rewrite(query, CompilationPhaseTracer.NO_TRACING)).toOption.map(query -> _)
+    }
+    rewritten should not be empty
+
+    val different = rewritten.collect {
+      case (query, fused) if rewrite(query, new StepHistogramTracer()) != fused => query
+    }
+    different shouldBe empty
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.v9_0.util.StepSequencer
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class PrecomputedStepOrdersTest extends CypherFunSuite {
+
+  PrecomputedStepOrders.all.foreach { sequence =>
+    test(s"computed order of ${sequence.name} replays") {
+      val order = sequence.computeOrder()
+      StepSequencer.replayOrder(sequence.steps.toSet[StepSequencer.Step], sequence.initialConditions, order) should be(
+        Symbol("right")
+      )
+    }
+
+    // The order is generated in the process-classes phase of the build. If this fails, the steps have changed since,
+    // and the build needs to be re-run. Runs that skip that phase, e.g. from an IDE, have no order to check.
+    test(s"generated order of ${sequence.name} is up to date with its steps") {
+      val order = PrecomputedStepOrders.load(sequence.name)
+      assume(order.isDefined, s"No order was generated for ${sequence.name}, run process-classes to check it.")
+      StepSequencer.replayOrder(sequence.steps.toSet[StepSequencer.Step], sequence.initialConditions, order.get) match {
+        case Left(problem) => fail(problem)
+        case Right(_)      => // OK
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.ast.factory.neo4j.JavaCCParser
+import org.opencypher.v9_0.frontend.PlannerName
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.OpenCypherExceptionFactory
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class StatementCacheTest extends CypherFunSuite {
+  private val exceptionFactory = OpenCypherExceptionFactory(None)
+
+  private def parse(queryText: String): Statement = JavaCCParser.parse(queryText, exceptionFactory)
+
+  test("should return the cached statement for the same query text") {
+    val cache = new StatementCache(10)
+    var parsed = 0
+    val first = cache.getOrParse("RETURN 1 AS x") { q => parsed += 1; parse(q) }
+    val second = cache.getOrParse("RETURN 1 AS x") { q => parsed += 1; parse(q) }
+
+    second should be theSameInstanceAs first
+    parsed shouldBe 1
+    cache.hits shouldBe 1
+    cache.misses shouldBe 1
+  }
+
+  test("should evict statements that have not been looked up") {
+    val cache = new StatementCache(2)
+    cache.put("RETURN 1 AS x", parse("RETURN 1 AS x"))
+    cache.put("RETURN 2 AS x", parse("RETURN 2 AS x"))
+    cache.get("RETURN 1 AS x") shouldBe defined
+
+    cache.put("RETURN 3 AS x", parse("RETURN 3 AS x"))
+
+    cache.size shouldBe 2
+    cache.evictions shouldBe 1
+    cache.get("RETURN 1 AS x") shouldBe defined
+    cache.get("RETURN 2 AS x") shouldBe None
+  }
+
+  test("should bound the total number of AST nodes") {
+    val statement = parse("MATCH (n) RETURN n.prop AS p")
+    val weight = StatementCache.weight(statement)
+    val cache = new StatementCache(100, maximumWeight = 2L * weight)
+
+    (0 until 10).foreach(i => cache.put(s"query $i", statement))
+
+    cache.size shouldBe 2
+    cache.weight shouldBe 2L * weight
+    cache.evictions shouldBe 8
+  }
+
+  test("should not cache statements heavier than the maximum weight") {
+    val cache = new StatementCache(100, maximumWeight = 1)
+    cache.put("RETURN 1 AS x", parse("RETURN 1 AS x"))
+
+    cache.size shouldBe 0
+  }
+
+  test("should skip parsing in the pipeline for cached query texts") {
+    val plannerName = new PlannerName {
+      override def name: String = "fake"
+      override def toTextOutput: String = "fake"
+      override def version: String = "fake"
+    }
+    val cache = new StatementCache(10)
+    val pipeline = CachedParsing(cache, OpenCypherJavaCCParsing) andThen SemanticAnalysis(warn = false)
+    def compile() = pipeline.transform(
+      InitialState("MATCH (n) RETURN n", None, plannerName, new AnonymousVariableNameGenerator),
+      ContextHelper.create()
+    )
+
+    val first = compile()
+    val second = compile()
+
+    second.statement() should be theSameInstanceAs first.statement()
+    cache.hits shouldBe 1
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases
+
+import org.opencypher.v9_0.frontend.PlannerName
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationPhase.AST_REWRITE
+import org.opencypher.v9_0.frontend.phases.CompilationPhaseTracer.CompilationPhase.SEMANTIC_CHECK
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class StepHistogramTracerTest extends CypherFunSuite {
+
+  private val plannerName = new PlannerName {
+    override def name: String = "fake"
+    override def toTextOutput: String = "fake"
+    override def version: String = "fake"
+  }
+
+  private val pipeline = OpenCypherJavaCCParsing andThen SemanticAnalysis(warn = false) andThen AstRewriting()
+
+  private def compile(query: String, tracer: CompilationPhaseTracer): BaseState =
+    pipeline.transform(
+      InitialState(query, None, plannerName, new AnonymousVariableNameGenerator),
+      ContextHelper.create(tracer)
+    )
+
+  test("should record every phase and every rewriter step") {
+    val tracer = new StepHistogramTracer()
+    compile("MATCH (a)-->(b) WHERE a.prop <> 1 RETURN *", tracer)
+
+    val steps = tracer.snapshot()
+    steps.map(s => s.phase -> s.step) should contain allOf (
+      SEMANTIC_CHECK -> "SemanticAnalysis",
+      AST_REWRITE -> "AstRewriting",
+      AST_REWRITE -> "expandStar",
+      AST_REWRITE -> "normalizeNotEquals",
+      AST_REWRITE -> "nameAllPatternElements"
+    )
+    steps.foreach { step =>
+      // steps can run more than once if other steps invalidate their work
+      step.runs should be >= 1L
+      step.nanos.sum shouldBe step.runs
+    }
+    val nameAllPatternElements = steps.find(_.step == "nameAllPatternElements").get
+    nameAllPatternElements.totalAstNodesBefore should be > 0L
+    nameAllPatternElements.totalNodesRewritten should be > 0L
+  }
+
+  test("should rewrite the same with and without tracing steps") {
+    val query = "MATCH (a)-[r]->(b) WHERE NOT a.prop = 1 AND b.prop IN [1, 2] RETURN a, count(*) AS c ORDER BY c"
+
+    compile(query, new StepHistogramTracer()).statement() shouldBe
+      compile(query, CompilationPhaseTracer.NO_TRACING).statement()
+  }
+
+  test("should accumulate runs and compute percentiles") {
+    val histogram = new StepHistogram(AST_REWRITE, "step")
+    histogram.record(0L, 10L, 5L, 1L)
+    histogram.record(3L, 100L, 5L, 0L)
+    histogram.record(1000L, -1L, -1L, -1L)
+
+    val snapshot = histogram.snapshot()
+    snapshot.runs shouldBe 3
+    snapshot.totalNanos shouldBe 1003L
+    snapshot.totalAllocatedBytes shouldBe 110L
+    snapshot.totalAstNodesBefore shouldBe 10L
+    snapshot.totalNodesRewritten shouldBe 1L
+    snapshot.nanosPercentile(0.3) shouldBe 0L
+    snapshot.nanosPercentile(0.5) shouldBe 3L
+    snapshot.nanosPercentile(1.0) shouldBe 1023L
+    snapshot.allocatedBytesPercentile(1.0) shouldBe 127L
+  }
+}
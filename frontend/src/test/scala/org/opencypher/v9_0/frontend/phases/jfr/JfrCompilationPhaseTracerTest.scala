@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.frontend.phases.jfr
+
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordedEvent
+import jdk.jfr.consumer.RecordingFile
+import org.opencypher.v9_0.frontend.PlannerName
+import org.opencypher.v9_0.frontend.phases.AstRewriting
+import org.opencypher.v9_0.frontend.phases.ContextHelper
+import org.opencypher.v9_0.frontend.phases.InitialState
+import org.opencypher.v9_0.frontend.phases.OpenCypherJavaCCParsing
+import org.opencypher.v9_0.frontend.phases.SemanticAnalysis
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.CancellationChecker
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+import java.nio.file.Files
+
+import scala.jdk.CollectionConverters.ListHasAsScala
+
+class JfrCompilationPhaseTracerTest extends CypherFunSuite {
+
+  private val plannerName = new PlannerName {
+    override def name: String = "fake"
+    override def toTextOutput: String = "fake"
+    override def version: String = "fake"
+  }
+
+  private val pipeline = OpenCypherJavaCCParsing andThen SemanticAnalysis(warn = false) andThen AstRewriting()
+
+  private def compile(query: String): Unit =
+    pipeline.transform(
+      InitialState(query, None, plannerName, new AnonymousVariableNameGenerator),
+      ContextHelper.create(new JfrCompilationPhaseTracer("fingerprint"))
+    )
+
+  private def record(eventClasses: Class[_ <: jdk.jfr.Event]*)(block: => Unit): Seq[RecordedEvent] = {
+    val recording = new Recording()
+    try {
+      eventClasses.foreach(eventClass => recording.enable(eventClass))
+      recording.start()
+      block
+      recording.stop()
+      val file = Files.createTempFile("compilation", ".jfr")
+      try {
+        recording.dump(file)
+        RecordingFile.readAllEvents(file).asScala.toSeq
+      } finally {
+        Files.delete(file)
+      }
+    } finally {
+      recording.close()
+    }
+  }
+
+  test("should not trace steps without a recording") {
+    new JfrCompilationPhaseTracer("fingerprint").tracesSteps() shouldBe false
+  }
+
+  test("should not trace steps while only phases are recorded") {
+    record(classOf[PhaseEvent]) {
+      new JfrCompilationPhaseTracer("fingerprint").tracesSteps() shouldBe false
+    }
+  }
+
+  test("should trace steps while rewriter steps are recorded") {
+    record(classOf[RewriterStepEvent]) {
+      new JfrCompilationPhaseTracer("fingerprint").tracesSteps() shouldBe true
+    }
+  }
+
+  test("should record phases and rewriter steps") {
+    val events = record(classOf[PhaseEvent], classOf[RewriterStepEvent]) {
+      compile("MATCH (a)-->(b) RETURN *")
+    }
+
+    val phases = events.filter(_.getEventType.getName == "org.opencypher.Phase")
+    phases.map(_.getString("phase")) should contain allOf ("SEMANTIC_CHECK", "AST_REWRITE")
+    phases.foreach { event =>
+      event.getString("fingerprint") shouldBe "fingerprint"
+      event.getString("outcome") shouldBe JfrCompilationPhaseTracer.SUCCESS
+    }
+
+    val steps = events.filter(_.getEventType.getName == "org.opencypher.RewriterStep")
+    val expandStar = steps.find(_.getString("step") == "expandStar").get
+    expandStar.getString("phase") shouldBe "AST_REWRITE"
+    expandStar.getLong("astNodes") should be > 0L
+    expandStar.getLong("rewrittenNodes") should be > 0L
+  }
+
+  test("should record the outcome of failing phases") {
+    val events = record(classOf[PhaseEvent]) {
+      an[Exception] should be thrownBy compile("RETURN x")
+    }
+
+    val semanticAnalysis = events.find(_.getString("phase") == "SEMANTIC_CHECK").get
+    semanticAnalysis.getString("outcome") should not be JfrCompilationPhaseTracer.SUCCESS
+  }
+
+  test("should record cancellation checks that cancel") {
+    val cancelled = new CancellationChecker {
+      override def throwIfCancelled(): Unit = throw new IllegalStateException("cancelled")
+    }
+    val checker = new JfrCancellationChecker(cancelled, "fingerprint")
+
+    val events = record(classOf[CancellationEvent]) {
+      an[IllegalStateException] should be thrownBy checker.throwIfCancelled()
+    }
+
+    events.map(e => e.getString("fingerprint") -> e.getString("outcome")) shouldBe Seq(
+      "fingerprint" -> "IllegalStateException"
+    )
+  }
+}
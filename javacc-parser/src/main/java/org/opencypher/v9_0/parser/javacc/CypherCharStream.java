@@ -16,6 +16,7 @@
 package org.opencypher.v9_0.parser.javacc;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * CharStream operating over an input String.
@@ -36,11 +37,21 @@ import java.io.IOException;
  * </pre>
  * <p>
  * As parsing progresses, the {@link CypherCharStream} will convert more and more
- * of `query` into `result`, while updating `lines`, `columns` and `offset`.
+ * of `query` into `result`.
+ * <p>
+ * The positions are not stored per character. The offset of a character in `result` is its index plus a delta,
+ * which only changes where backslashes occur, so only those changes are recorded. The line and column of a
+ * character follow from its offset and the offsets at which lines start. For the example above, that is
+ * <pre>
+ *      offset deltas: [(21, 6)]             (index in result, offset - index)
+ *        line starts: [12]                  (offset of the first character of every line but the first)
+ * </pre>
+ * Columns are therefore counted in characters, which is only correct since the tab size is fixed to 1.
  */
-public class CypherCharStream implements CharStream {
+public class CypherCharStream implements OffsetCharStream {
     private static final char BACKSLASH = '\\';
     private static final IOException END_OF_INPUT = new IOException("End of input");
+    private static final int INITIAL_CAPACITY = 8;
 
     private final String query;
     private int queryCursor = -1;
@@ -53,9 +64,14 @@ public class CypherCharStream implements CharStream {
     private int resultCursor = -1;
     private int resultHighMark;
 
-    private final int[] lines;
-    private final int[] columns;
-    private final int[] offsets;
+    // Offsets of the characters in result: from deltaIndices[i] on, offset = index + deltas[i]
+    private int[] deltaIndices = new int[INITIAL_CAPACITY];
+    private int[] deltas = new int[INITIAL_CAPACITY];
+    private int deltaCount;
+
+    // Offsets in query at which the lines after the first one start
+    private int[] lineStarts = new int[INITIAL_CAPACITY];
+    private int lineStartCount;
 
     private int beginOffset;
 
@@ -64,9 +80,6 @@ public class CypherCharStream implements CharStream {
     public CypherCharStream(String query) {
         this.query = query;
         this.result = new char[query.length()];
-        this.lines = new int[query.length()];
-        this.columns = new int[query.length()];
-        this.offsets = new int[query.length()];
     }
 
     @Override
@@ -97,12 +110,31 @@ public class CypherCharStream implements CharStream {
 
     private void appendToResult(char c) {
         result[resultHighMark] = c;
-        lines[resultHighMark] = queryCursorLine;
-        columns[resultHighMark] = queryCursorColumn;
-        offsets[resultHighMark] = queryCursor;
+        int delta = queryCursor - resultHighMark;
+        if (delta != currentDelta()) {
+            if (deltaCount == deltas.length) {
+                deltaIndices = Arrays.copyOf(deltaIndices, deltaCount * 2);
+                deltas = Arrays.copyOf(deltas, deltaCount * 2);
+            }
+            deltaIndices[deltaCount] = resultHighMark;
+            deltas[deltaCount] = delta;
+            deltaCount++;
+        }
         resultHighMark++;
     }
 
+    private int currentDelta() {
+        return deltaCount == 0 ? 0 : deltas[deltaCount - 1];
+    }
+
+    private void addLineStart(int offset) {
+        if (lineStartCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineStartCount * 2);
+        }
+        lineStarts[lineStartCount] = offset;
+        lineStartCount++;
+    }
+
     private char nextQueryChar() throws IOException {
         if (queryCursor + 1 >= query.length()) {
             throw END_OF_INPUT;
@@ -122,6 +154,7 @@ public class CypherCharStream implements CharStream {
             queryCursorIsLF = false;
             queryCursorColumn = 1;
             queryCursorLine++;
+            addLineStart(queryCursor);
         } else if (queryCursorIsCR) {
             queryCursorIsCR = false;
             if (c == '\n') {
@@ -129,6 +162,7 @@ public class CypherCharStream implements CharStream {
             } else {
                 queryCursorColumn = 1;
                 queryCursorLine++;
+                addLineStart(queryCursor);
             }
         }
 
@@ -170,30 +204,82 @@ public class CypherCharStream implements CharStream {
 
     @Override
     public int getBeginColumn() {
-        return columns[beginOffset];
+        return columnOf(beginOffset);
     }
 
     @Override
     public int getBeginLine() {
-        return lines[beginOffset];
+        return lineOf(beginOffset);
     }
 
+    @Override
     public int getBeginOffset() {
-        return offsets[beginOffset];
+        return offsetOf(beginOffset);
     }
 
     @Override
     public int getEndColumn() {
-        return columns[resultCursor];
+        return columnOf(resultCursor);
     }
 
     @Override
     public int getEndLine() {
-        return lines[resultCursor];
+        return lineOf(resultCursor);
     }
 
+    @Override
     public int getEndOffset() {
-        return offsets[resultCursor];
+        return offsetOf(resultCursor);
+    }
+
+    /**
+     * The offset in query of the character at the given index in result,
+     * or 0 if that character has not been converted yet.
+     */
+    private int offsetOf(int resultIndex) {
+        if (resultIndex < 0 || resultIndex >= result.length) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "Index " + resultIndex + " out of bounds for length " + result.length);
+        }
+        if (resultIndex >= resultHighMark) {
+            return 0;
+        }
+        // Positions are mostly asked for recently read characters, after the last recorded delta
+        if (deltaCount == 0) {
+            return resultIndex;
+        } else if (resultIndex >= deltaIndices[deltaCount - 1]) {
+            return resultIndex + deltas[deltaCount - 1];
+        }
+        int i = Arrays.binarySearch(deltaIndices, 0, deltaCount, resultIndex);
+        // otherwise, the last delta that starts at or before resultIndex applies
+        int deltaPosition = i >= 0 ? i : -i - 2;
+        return resultIndex + (deltaPosition < 0 ? 0 : deltas[deltaPosition]);
+    }
+
+    private int lineOf(int resultIndex) {
+        int offset = offsetOf(resultIndex);
+        return resultIndex < resultHighMark ? lineStartsUpTo(offset) + 1 : 0;
+    }
+
+    private int columnOf(int resultIndex) {
+        int offset = offsetOf(resultIndex);
+        if (resultIndex >= resultHighMark) {
+            return 0;
+        }
+        int previousLineStarts = lineStartsUpTo(offset);
+        int lineStart = previousLineStarts == 0 ? 0 : lineStarts[previousLineStarts - 1];
+        return offset - lineStart + 1;
+    }
+
+    /**
+     * The number of line starts at or before the given offset in query, i.e. the line number minus one.
+     */
+    private int lineStartsUpTo(int offset) {
+        if (lineStartCount == 0 || offset >= lineStarts[lineStartCount - 1]) {
+            return lineStartCount;
+        }
+        int i = Arrays.binarySearch(lineStarts, 0, lineStartCount, offset);
+        return i >= 0 ? i + 1 : -i - 1;
     }
 
     @Override
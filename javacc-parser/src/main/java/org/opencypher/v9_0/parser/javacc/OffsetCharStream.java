@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.parser.javacc;
+
+/**
+ * A {@link CharStream} that also knows the offsets in the query of the characters it returns.
+ * Offsets are counted in characters of the original query, before unescaping unicode.
+ */
+public interface OffsetCharStream extends CharStream {
+    int getBeginOffset();
+
+    int getEndOffset();
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.parser.javacc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * CharStream reading a query from a {@link Readable}, such as a {@link java.io.Reader} or a {@link CharBuffer}.
+ * <p>
+ * It unescapes unicode characters exactly like {@link CypherCharStream}, but instead of keeping a copy of the whole
+ * query, it only keeps a window of converted characters, starting at the beginning of the current token, since
+ * that is as far as the token manager ever backs up. The window grows with the longest token, not with the query.
+ * <p>
+ * Apart from that, the most recent raw query text is retained, up to a fixed number of characters, so that the text
+ * of expressions can be looked up by their offsets, see {@link #queryText(int, int)}. This is used for the names of
+ * unaliased return items.
+ * <p>
+ * Memory-mapped files can be parsed by decoding them while reading, e.g. through
+ * {@link java.nio.channels.Channels#newReader(java.nio.channels.ReadableByteChannel, java.nio.charset.Charset)}.
+ */
+public class StreamingCypherCharStream implements OffsetCharStream {
+    public static final int DEFAULT_RETAINED_QUERY_TEXT = 1 << 16;
+
+    private static final char BACKSLASH = '\\';
+    private static final IOException END_OF_INPUT = new IOException("End of input");
+    private static final int INITIAL_WINDOW = 1 << 10;
+    private static final int READ_BUFFER_SIZE = 1 << 13;
+
+    private final Readable source;
+    private final CharBuffer readBuffer = CharBuffer.allocate(READ_BUFFER_SIZE);
+    private boolean sourceExhausted;
+
+    private int queryCursor = -1;
+    private int queryCursorColumn;
+    private int queryCursorLine = 1;
+    private boolean queryCursorIsCR;
+    private boolean queryCursorIsLF;
+
+    // The most recent raw query text, as a ring buffer: offset o is at retained[o % retained.length]
+    private final char[] retained;
+
+    // Converted characters: the character with index i is at window[i - windowStart]
+    private char[] window = new char[INITIAL_WINDOW];
+    private int[] lines = new int[INITIAL_WINDOW];
+    private int[] columns = new int[INITIAL_WINDOW];
+    private int[] offsets = new int[INITIAL_WINDOW];
+    private int windowStart;
+
+    private int resultCursor = -1;
+    private int resultHighMark;
+
+    private int beginOffset;
+
+    private int tabSize = 1;
+
+    public StreamingCypherCharStream(Readable source) {
+        this(source, DEFAULT_RETAINED_QUERY_TEXT);
+    }
+
+    /**
+     * @param source the query.
+     * @param retainedQueryText how many characters of the most recent raw query text to retain.
+     */
+    public StreamingCypherCharStream(Readable source, int retainedQueryText) {
+        if (retainedQueryText <= 0) {
+            throw new IllegalArgumentException("Retained query text must be positive, but was " + retainedQueryText);
+        }
+        this.source = source;
+        this.retained = new char[retainedQueryText];
+        this.readBuffer.flip();
+    }
+
+    /**
+     * The raw text of the query between two offsets, both inclusive.
+     *
+     * @throws IllegalStateException if that text is not retained anymore.
+     */
+    public String queryText(int startOffset, int endOffset) {
+        if (startOffset <= queryCursor - retained.length || endOffset > queryCursor || startOffset > endOffset + 1) {
+            throw new IllegalStateException(String.format(
+                    "The query text between offsets %d and %d is not available anymore: "
+                            + "only the last %d characters of the query are retained",
+                    startOffset, endOffset, retained.length));
+        }
+        StringBuilder text = new StringBuilder(endOffset - startOffset + 1);
+        for (int offset = startOffset; offset <= endOffset; offset++) {
+            text.append(retained[offset % retained.length]);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        if (resultCursor + 1 == resultHighMark) {
+            convertChar();
+        }
+        resultCursor++;
+
+        return window[resultCursor - windowStart];
+    }
+
+    private void convertChar() throws IOException {
+        char c = nextQueryChar();
+
+        if (c == BACKSLASH) {
+            char c2 = nextQueryChar();
+            if (c2 == 'u') {
+                c = convertUnicode(c2);
+            } else {
+                appendToResult(c);
+                c = c2;
+            }
+        }
+
+        appendToResult(c);
+    }
+
+    private void appendToResult(char c) {
+        int i = resultHighMark - windowStart;
+        if (i == window.length) {
+            makeRoom();
+            i = resultHighMark - windowStart;
+        }
+        window[i] = c;
+        lines[i] = queryCursorLine;
+        columns[i] = queryCursorColumn;
+        offsets[i] = queryCursor;
+        resultHighMark++;
+    }
+
+    /**
+     * Drops the characters before the current token from the window, or grows it if the token fills it.
+     */
+    private void makeRoom() {
+        int keepFrom = Math.min(beginOffset, resultCursor + 1);
+        int drop = keepFrom - windowStart;
+        if (drop > window.length / 2) {
+            int keep = resultHighMark - keepFrom;
+            System.arraycopy(window, drop, window, 0, keep);
+            System.arraycopy(lines, drop, lines, 0, keep);
+            System.arraycopy(columns, drop, columns, 0, keep);
+            System.arraycopy(offsets, drop, offsets, 0, keep);
+            windowStart = keepFrom;
+        } else {
+            int capacity = window.length * 2;
+            window = Arrays.copyOf(window, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+    }
+
+    private char nextQueryChar() throws IOException {
+        if (!readBuffer.hasRemaining() && !fillReadBuffer()) {
+            throw END_OF_INPUT;
+        }
+        queryCursor++;
+
+        char c = readBuffer.get();
+        retained[queryCursor % retained.length] = c;
+        updateLineColumn(c);
+
+        return c;
+    }
+
+    private boolean fillReadBuffer() {
+        if (sourceExhausted) {
+            return false;
+        }
+        readBuffer.clear();
+        try {
+            int read;
+            do {
+                read = source.read(readBuffer);
+            } while (read == 0);
+            if (read < 0) {
+                sourceExhausted = true;
+            }
+        } catch (IOException e) {
+            // An IOException from readChar means end of input to the token manager
+            throw new UncheckedIOException("Failed to read query", e);
+        } finally {
+            readBuffer.flip();
+        }
+        return readBuffer.hasRemaining();
+    }
+
+    private void updateLineColumn(char c) {
+        queryCursorColumn++;
+
+        if (queryCursorIsLF) {
+            queryCursorIsLF = false;
+            queryCursorColumn = 1;
+            queryCursorLine++;
+        } else if (queryCursorIsCR) {
+            queryCursorIsCR = false;
+            if (c == '\n') {
+                queryCursorIsLF = true;
+            } else {
+                queryCursorColumn = 1;
+                queryCursorLine++;
+            }
+        }
+
+        switch (c) {
+            case '\r':
+                queryCursorIsCR = true;
+                break;
+            case '\n':
+                queryCursorIsLF = true;
+                break;
+            case '\t':
+                queryCursorColumn--;
+                queryCursorColumn += tabSize - (queryCursorColumn % tabSize);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private char convertUnicode(char c) {
+        try {
+            while (c == 'u') {
+                c = nextQueryChar();
+            }
+
+            return (char) (CypherCharStream.hexval(c) << 12
+                    | CypherCharStream.hexval(nextQueryChar()) << 8
+                    | CypherCharStream.hexval(nextQueryChar()) << 4
+                    | CypherCharStream.hexval(nextQueryChar()));
+        } catch (final IOException e) {
+            throw new InvalidUnicodeLiteral(e.getMessage(), queryCursor, queryCursorLine, queryCursorColumn);
+        }
+    }
+
+    @Override
+    public void backup(int amount) {
+        resultCursor -= amount;
+    }
+
+    @Override
+    public int getBeginColumn() {
+        return columns[beginOffset - windowStart];
+    }
+
+    @Override
+    public int getBeginLine() {
+        return lines[beginOffset - windowStart];
+    }
+
+    @Override
+    public int getBeginOffset() {
+        return offsets[beginOffset - windowStart];
+    }
+
+    @Override
+    public int getEndColumn() {
+        return columns[resultCursor - windowStart];
+    }
+
+    @Override
+    public int getEndLine() {
+        return lines[resultCursor - windowStart];
+    }
+
+    @Override
+    public int getEndOffset() {
+        return offsets[resultCursor - windowStart];
+    }
+
+    @Override
+    public char beginToken() throws IOException {
+        var c = readChar();
+        beginOffset = resultCursor;
+        return c;
+    }
+
+    @Override
+    public String getImage() {
+        return new String(window, beginOffset - windowStart, nextOffset() - beginOffset);
+    }
+
+    private int nextOffset() {
+        return resultCursor + 1;
+    }
+
+    @Override
+    public char[] getSuffix(int len) {
+        char[] suffix = new char[len];
+        int endOffset = nextOffset();
+        System.arraycopy(window, endOffset - len - windowStart, suffix, 0, len);
+        return suffix;
+    }
+
+    @Override
+    public void done() {}
+
+    @Override
+    public void setTabSize(int i) {
+        throw new UnsupportedOperationException("not implemented");
+    }
+
+    @Override
+    public int getTabSize() {
+        throw new UnsupportedOperationException("not implemented");
+    }
+
+    @Override
+    public void setTrackLineColumn(boolean trackLineColumn) {
+        throw new UnsupportedOperationException("not implemented");
+    }
+
+    @Override
+    public boolean isTrackLineColumn() {
+        return true;
+    }
+}
@@ -204,4 +204,35 @@ public class CypherCharStreamTest {
             }
         }
     }
+
+    @Test
+    void positionsAcrossManyLinesAndEscapes() throws IOException {
+        int lineCount = 100;
+        CypherCharStream x = new CypherCharStream("a\\u0041\n".repeat(lineCount));
+
+        for (int line = 1; line <= lineCount; line++) {
+            int lineStart = 8 * (line - 1);
+
+            assertEquals('a', x.readChar());
+            assertEquals(line, x.getEndLine());
+            assertEquals(1, x.getEndColumn());
+            assertEquals(lineStart, x.getEndOffset());
+
+            assertEquals('A', x.readChar());
+            assertEquals(line, x.getEndLine());
+            assertEquals(7, x.getEndColumn());
+            assertEquals(lineStart + 6, x.getEndOffset());
+
+            assertEquals('\n', x.readChar());
+            assertEquals(line, x.getEndLine());
+            assertEquals(8, x.getEndColumn());
+            assertEquals(lineStart + 7, x.getEndOffset());
+        }
+
+        // positions of earlier characters are still available after reading on
+        x.backup(3 * lineCount - 2);
+        assertEquals(1, x.getEndLine());
+        assertEquals(7, x.getEndColumn());
+        assertEquals(6, x.getEndOffset());
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.parser.javacc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import org.junit.jupiter.api.Test;
+
+public class StreamingCypherCharStreamTest {
+    @Test
+    void sameCharactersAndPositionsAsCypherCharStream() throws IOException {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            query.append("RETURN '\\u01FF', \\\\ \r\n\tn.prop").append(i).append(" AS x\n");
+        }
+        CypherCharStream expected = new CypherCharStream(query.toString());
+        StreamingCypherCharStream actual = new StreamingCypherCharStream(new OneCharAtATime(query.toString()), 64);
+
+        int tokens = 0;
+        while (true) {
+            char c;
+            try {
+                c = expected.beginToken();
+            } catch (IOException e) {
+                assertThrows(IOException.class, actual::beginToken);
+                break;
+            }
+            assertEquals(c, actual.beginToken());
+            // read ahead a little and back up again, like the token manager does
+            int length = tokens % 7;
+            int read = 0;
+            try {
+                for (; read < length; read++) {
+                    expected.readChar();
+                    actual.readChar();
+                }
+            } catch (IOException e) {
+                // end of input
+            }
+            expected.backup(read / 2);
+            actual.backup(read / 2);
+            assertSamePositions(expected, actual);
+            assertEquals(expected.getImage(), actual.getImage());
+            tokens++;
+        }
+    }
+
+    @Test
+    void longTokensAreKeptWhole() throws IOException {
+        String identifier = "a".repeat(100_000);
+        StreamingCypherCharStream x = new StreamingCypherCharStream(CharBuffer.wrap(identifier + " b"));
+
+        x.beginToken();
+        for (int i = 1; i < identifier.length(); i++) {
+            x.readChar();
+        }
+
+        assertEquals(identifier, x.getImage());
+        assertEquals(0, x.getBeginOffset());
+        assertEquals(identifier.length() - 1, x.getEndOffset());
+    }
+
+    @Test
+    void queryTextOfRecentOffsets() throws IOException {
+        StreamingCypherCharStream x = new StreamingCypherCharStream(new StringReader("RETURN \\u0041 + 1"), 8);
+        for (int i = 0; i < 12; i++) {
+            x.readChar();
+        }
+
+        assertEquals("0041 + 1", x.queryText(9, 16));
+        assertEquals("41 +", x.queryText(11, 14));
+        assertThrows(IllegalStateException.class, () -> x.queryText(0, 5));
+    }
+
+    @Test
+    void wrapReadFailures() {
+        Reader failing = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("disk on fire");
+            }
+
+            @Override
+            public void close() {}
+        };
+        StreamingCypherCharStream x = new StreamingCypherCharStream(failing);
+
+        assertThrows(UncheckedIOException.class, x::readChar);
+    }
+
+    @Test
+    void throwOnEOF() {
+        StreamingCypherCharStream x = new StreamingCypherCharStream(new StringReader(""));
+        assertThrows(IOException.class, x::readChar);
+    }
+
+    private static void assertSamePositions(CypherCharStream expected, StreamingCypherCharStream actual) {
+        assertEquals(expected.getBeginOffset(), actual.getBeginOffset());
+        assertEquals(expected.getBeginLine(), actual.getBeginLine());
+        assertEquals(expected.getBeginColumn(), actual.getBeginColumn());
+        assertEquals(expected.getEndOffset(), actual.getEndOffset());
+        assertEquals(expected.getEndLine(), actual.getEndLine());
+        assertEquals(expected.getEndColumn(), actual.getEndColumn());
+    }
+
+    private static class OneCharAtATime extends Reader {
+        private final String text;
+        private int position;
+
+        OneCharAtATime(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            buffer[offset] = text.charAt(position++);
+            return 1;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
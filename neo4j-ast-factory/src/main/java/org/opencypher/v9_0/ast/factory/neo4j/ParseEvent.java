@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.factory.neo4j;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for parsing one query, or one script of statements.
+ */
+@Name("org.opencypher.Parse")
+@Label("Cypher Parse")
+@Description("Parsing a Cypher query")
+@Category({"Cypher", "Frontend"})
+@StackTrace(false)
+public class ParseEvent extends jdk.jfr.Event {
+    public static final String SUCCESS = "SUCCESS";
+
+    @Label("Query Fingerprint")
+    @Description("The fingerprint of the query text, or null if the query was streamed")
+    public String fingerprint;
+
+    @Label("Query Length")
+    @Description("The length of the query text, or -1 if the query was streamed")
+    public int queryLength;
+
+    @Label("AST Nodes")
+    @Description("The number of AST nodes of the parsed statements, or -1 if parsing failed")
+    public long astNodes;
+
+    @Label("Outcome")
+    @Description("SUCCESS, or the simple class name of what parsing failed with")
+    public String outcome;
+}
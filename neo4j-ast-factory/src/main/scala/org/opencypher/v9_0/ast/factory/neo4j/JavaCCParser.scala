@@ -16,34 +16,173 @@
 package org.opencypher.v9_0.ast.factory.neo4j
 
 import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.parser.javacc.CharStream
 import org.opencypher.v9_0.parser.javacc.Cypher
 import org.opencypher.v9_0.parser.javacc.CypherCharStream
+import org.opencypher.v9_0.parser.javacc.StreamingCypherCharStream
+import org.opencypher.v9_0.util.ASTNode
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.InputPosition
 
+import java.util.function.Consumer
+
+import scala.util.Try
+
 case object JavaCCParser {
 
   /**
    * @param queryText The query to be parsed.
    * @param cypherExceptionFactory A factory for producing error messages related to the specific implementation of the language.
+   * @param internSymbolicNames Whether equal property key names and label names share one instance, which has the
+   *                            position of their first occurrence, see
+   *                            [[org.opencypher.v9_0.expressions.SymbolicNameInterner]].
    * @return
    */
   def parse(
     queryText: String,
+    cypherExceptionFactory: CypherExceptionFactory,
+    internSymbolicNames: Boolean = false
+  ): Statement = {
+    parse(
+      new CypherCharStream(queryText),
+      new Neo4jASTFactory(queryText, internSymbolicNames),
+      cypherExceptionFactory,
+      Some(queryText)
+    )
+  }
+
+  /**
+   * Parses a query without holding all of its text in memory, see [[StreamingCypherCharStream]].
+   *
+   * @param charStream The query to be parsed.
+   * @param cypherExceptionFactory A factory for producing error messages related to the specific implementation of the language.
+   * @return
+   */
+  def parse(
+    charStream: StreamingCypherCharStream,
     cypherExceptionFactory: CypherExceptionFactory
   ): Statement = {
-    val charStream = new CypherCharStream(queryText)
-    val astFactory = new Neo4jASTFactory(queryText)
+    parse(charStream, new Neo4jASTFactory(charStream.queryText _), cypherExceptionFactory, None)
+  }
+
+  /**
+   * Parses a script of `;`-separated statements, handing each statement to `onStatement` as soon as it has been parsed,
+   * while the rest of the script is still unparsed. The positions of all statements are relative to the whole script,
+   * so every statement's own position is where it starts in the script.
+   *
+   * If the script contains a syntax error, all statements before it are handed over before the exception is thrown.
+   *
+   * @param queryText The statements to be parsed.
+   * @param cypherExceptionFactory A factory for producing error messages related to the specific implementation of the language.
+   * @param onStatement Called with each statement, in order.
+   */
+  def parseStatements(
+    queryText: String,
+    cypherExceptionFactory: CypherExceptionFactory
+  )(onStatement: Statement => Unit): Unit = {
+    parseStatements(
+      new CypherCharStream(queryText),
+      new Neo4jASTFactory(queryText),
+      cypherExceptionFactory,
+      onStatement,
+      Some(queryText)
+    )
+  }
+
+  /**
+   * Parses a script of `;`-separated statements like the overload taking the query text, but without holding all of
+   * its text in memory, see [[StreamingCypherCharStream]]. Since the statements are handed over one at a time,
+   * memory use is bounded by the largest statement rather than by the script.
+   *
+   * @param charStream The statements to be parsed.
+   * @param cypherExceptionFactory A factory for producing error messages related to the specific implementation of the language.
+   * @param onStatement Called with each statement, in order.
+   */
+  def parseStatements(
+    charStream: StreamingCypherCharStream,
+    cypherExceptionFactory: CypherExceptionFactory
+  )(onStatement: Statement => Unit): Unit = {
+    parseStatements(
+      charStream,
+      new Neo4jASTFactory(charStream.queryText _),
+      cypherExceptionFactory,
+      onStatement,
+      None
+    )
+  }
+
+  private def parseStatements(
+    charStream: CharStream,
+    astFactory: Neo4jASTFactory,
+    cypherExceptionFactory: CypherExceptionFactory,
+    onStatement: Statement => Unit,
+    queryText: Option[String]
+  ): Unit = {
+    val astExceptionFactory = new Neo4jASTExceptionFactory(cypherExceptionFactory)
+    val event = new ParseEvent
+    event.begin()
+    // Statements are not kept, so they are counted as they are handed over, if the event might be committed
+    var astNodes = 0L
+    val consumer: Consumer[Statement] = statement => {
+      if (event.isEnabled) astNodes += countAstNodes(statement)
+      onStatement(statement)
+    }
+
+    try {
+      new Cypher(astFactory, astExceptionFactory, charStream).StatementsTo(consumer)
+    } catch {
+      case t: Throwable =>
+        commit(event, queryText, -1L, t.getClass.getSimpleName)
+        throw t
+    }
+    commit(event, queryText, astNodes, ParseEvent.SUCCESS)
+  }
+
+  private def parse(
+    charStream: CharStream,
+    astFactory: Neo4jASTFactory,
+    cypherExceptionFactory: CypherExceptionFactory,
+    queryText: Option[String]
+  ): Statement = {
     val astExceptionFactory = new Neo4jASTExceptionFactory(cypherExceptionFactory)
+    val event = new ParseEvent
+    event.begin()
 
-    val statements = new Cypher(astFactory, astExceptionFactory, charStream).Statements()
-    if (statements.size() == 1) {
-      statements.get(0)
-    } else {
-      throw cypherExceptionFactory.syntaxException(
-        s"Expected exactly one statement per query but got: ${statements.size}",
-        InputPosition.NONE
-      )
+    val statement =
+      try {
+        val statements = new Cypher(astFactory, astExceptionFactory, charStream).Statements()
+        if (statements.size() == 1) {
+          statements.get(0)
+        } else {
+          throw cypherExceptionFactory.syntaxException(
+            s"Expected exactly one statement per query but got: ${statements.size}",
+            InputPosition.NONE
+          )
+        }
+      } catch {
+        case t: Throwable =>
+          commit(event, queryText, -1L, t.getClass.getSimpleName)
+          throw t
+      }
+    commit(event, queryText, countAstNodes(statement), ParseEvent.SUCCESS)
+    statement
+  }
+
+  /**
+   * Everything but ending the event is only done while a flight recording has parse events enabled.
+   * Streamed queries have no fingerprint and an unknown length, since their text is not kept.
+   */
+  private def commit(event: ParseEvent, queryText: Option[String], astNodes: => Long, outcome: String): Unit = {
+    event.end()
+    if (event.shouldCommit()) {
+      event.fingerprint = queryText.flatMap(text => Try(QueryFingerprint(text).fingerprint).toOption).orNull
+      event.queryLength = queryText.fold(-1)(_.length)
+      event.astNodes = astNodes
+      event.outcome = outcome
+      event.commit()
     }
   }
+
+  private def countAstNodes(statement: Statement): Long =
+    statement.folder.treeCount { case _: ASTNode => true }.toLong
 }
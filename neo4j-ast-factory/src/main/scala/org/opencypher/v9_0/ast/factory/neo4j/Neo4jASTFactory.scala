@@ -417,6 +417,7 @@ import org.opencypher.v9_0.expressions.StarQuantifier
 import org.opencypher.v9_0.expressions.StartsWith
 import org.opencypher.v9_0.expressions.StringLiteral
 import org.opencypher.v9_0.expressions.Subtract
+import org.opencypher.v9_0.expressions.SymbolicNameInterner
 import org.opencypher.v9_0.expressions.True
 import org.opencypher.v9_0.expressions.UnaryAdd
 import org.opencypher.v9_0.expressions.UnarySubtract
@@ -462,7 +463,12 @@ object TupleConverter extends DecorateTuple
 
 import org.opencypher.v9_0.ast.factory.neo4j.TupleConverter.asScalaEither
 
-class Neo4jASTFactory(query: String)
+/**
+ * @param queryText the text of the query between two offsets, both inclusive.
+ * @param internSymbolicNames whether equal property key names and label names of the query that are not the leaves of
+ *                            label expressions share one instance, see [[SymbolicNameInterner]].
+ */
+class Neo4jASTFactory(queryText: (Int, Int) => String, internSymbolicNames: Boolean = false)
     extends ASTFactory[
       Statement,
       Query,
@@ -507,6 +513,23 @@ class Neo4jASTFactory(query: String)
       DatabaseName
     ] {
 
+  def this(query: String) = this((start, end) => query.substring(start, end + 1))
+
+  def this(query: String, internSymbolicNames: Boolean) =
+    this((start, end) => query.substring(start, end + 1), internSymbolicNames)
+
+  private val symbolicNames = if (internSymbolicNames) Some(new SymbolicNameInterner) else None
+
+  private def propertyKeyName(name: StringPos[InputPosition]): PropertyKeyName = symbolicNames match {
+    case Some(names) => names.propertyKeyName(name.string, name.pos)
+    case None        => PropertyKeyName(name.string)(name.pos)
+  }
+
+  private def labelName(name: StringPos[InputPosition]): LabelName = symbolicNames match {
+    case Some(names) => names.labelName(name.string, name.pos)
+    case None        => LabelName(name.string)(name.pos)
+  }
+
   override def newSingleQuery(p: InputPosition, clauses: util.List[Clause]): Query = {
     if (clauses.isEmpty) {
       throw new Neo4jASTConstructionException("A valid Cypher query has to contain at least 1 clause")
@@ -571,7 +594,7 @@ class Neo4jASTFactory(query: String)
 
   override def newReturnItem(p: InputPosition, e: Expression, eStartOffset: Int, eEndOffset: Int): ReturnItem = {
 
-    val name = query.substring(eStartOffset, eEndOffset + 1)
+    val name = queryText(eStartOffset, eEndOffset)
     UnaliasedReturnItem(e, name)(p)
   }
 
@@ -646,7 +669,7 @@ class Neo4jASTFactory(query: String)
     SetIncludingPropertiesFromMapItem(variable, value)(variable.position)
 
   override def setLabels(variable: Variable, labels: util.List[StringPos[InputPosition]]): SetItem =
-    SetLabelItem(variable, labels.asScala.toList.map(sp => LabelName(sp.string)(sp.pos)))(variable.position)
+    SetLabelItem(variable, labels.asScala.toList.map(labelName))(variable.position)
 
   override def removeClause(p: InputPosition, removeItems: util.List[RemoveItem]): Clause =
     Remove(removeItems.asScala.toList)(p)
@@ -654,7 +677,7 @@ class Neo4jASTFactory(query: String)
   override def removeProperty(property: Property): RemoveItem = RemovePropertyItem(property)
 
   override def removeLabels(variable: Variable, labels: util.List[StringPos[InputPosition]]): RemoveItem =
-    RemoveLabelItem(variable, labels.asScala.toList.map(sp => LabelName(sp.string)(sp.pos)))(variable.position)
+    RemoveLabelItem(variable, labels.asScala.toList.map(labelName))(variable.position)
 
   override def deleteClause(p: InputPosition, detach: Boolean, expressions: util.List[Expression]): Clause =
     Delete(expressions.asScala.toList, detach)(p)
@@ -957,7 +980,7 @@ class Neo4jASTFactory(query: String)
 
     while (i < keys.size()) {
       val key = keys.get(i)
-      pairs(i) = PropertyKeyName(key.string)(key.pos) -> values.get(i)
+      pairs(i) = propertyKeyName(key) -> values.get(i)
       i += 1
     }
 
@@ -965,7 +988,7 @@ class Neo4jASTFactory(query: String)
   }
 
   override def property(subject: Expression, propertyKeyName: StringPos[InputPosition]): Property =
-    Property(subject, PropertyKeyName(propertyKeyName.string)(propertyKeyName.pos))(subject.position)
+    Property(subject, this.propertyKeyName(propertyKeyName))(subject.position)
 
   override def or(p: InputPosition, lhs: Expression, rhs: Expression): Expression = Or(lhs, rhs)(p)
 
@@ -1123,7 +1146,7 @@ class Neo4jASTFactory(query: String)
     MapProjection(v, items.asScala.toList)(p)
 
   override def mapProjectionLiteralEntry(property: StringPos[InputPosition], value: Expression): MapProjectionElement =
-    LiteralEntry(PropertyKeyName(property.string)(property.pos), value)(value.position)
+    LiteralEntry(propertyKeyName(property), value)(value.position)
 
   override def mapProjectionProperty(property: StringPos[InputPosition]): MapProjectionElement =
     PropertySelector(Variable(property.string)(property.pos))(property.pos)
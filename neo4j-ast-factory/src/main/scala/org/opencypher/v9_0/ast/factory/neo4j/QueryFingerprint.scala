@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.factory.neo4j
+
+import org.opencypher.v9_0.expressions.DecimalDoubleLiteral
+import org.opencypher.v9_0.expressions.SignedDecimalIntegerLiteral
+import org.opencypher.v9_0.expressions.SignedHexIntegerLiteral
+import org.opencypher.v9_0.expressions.SignedOctalIntegerLiteral
+import org.opencypher.v9_0.parser.javacc.CharStream
+import org.opencypher.v9_0.parser.javacc.CypherCharStream
+import org.opencypher.v9_0.parser.javacc.CypherConstants._
+import org.opencypher.v9_0.parser.javacc.CypherTokenManager
+import org.opencypher.v9_0.parser.javacc.Token
+import org.opencypher.v9_0.util.InputPosition
+import org.opencypher.v9_0.util.SizeBucket
+
+import scala.collection.mutable.ArrayBuffer
+import scala.util.Try
+
+/**
+ * A fingerprint of a query that is the same for queries that only differ in the values of literals,
+ * together with those literal values.
+ *
+ * The fingerprint is computed by the lexer alone, which makes it much cheaper than parsing, so it can be used
+ * as a key for caching work done for a query, e.g. compiled plans. The fingerprint is made of the tokens
+ * of the query, without whitespace and comments, where literals are replaced by placeholders with their type,
+ * and for strings and lists also their [[SizeBucket]]. Lists of literals are replaced by a single placeholder.
+ *
+ * Only literals that the `literalReplacement` rewriter would turn into parameters are replaced,
+ * e.g. not those in LIMIT, FOREACH or CALL subqueries, and none if the query has parameters.
+ * Without a parse tree, the context of a literal can only be told from the tokens around it. Where that is not
+ * conclusive, the literal is kept in the fingerprint as it is. That only makes fewer queries share a fingerprint,
+ * so two queries with the same fingerprint still only differ in the values of the replaced literals.
+ *
+ * @param fingerprint the tokens of the query, with placeholders for the replaced literals.
+ * @param literals    the values of the replaced literals, in the order they appear in the query.
+ *                    Integers are Longs, floats are Doubles and lists are Lists of their values.
+ */
+case class QueryFingerprint(fingerprint: String, literals: Seq[AnyRef])
+
+object QueryFingerprint {
+
+  def apply(queryText: String): QueryFingerprint = apply(new CypherCharStream(queryText))
+
+  def apply(charStream: CharStream): QueryFingerprint = {
+    val tokens = tokenize(charStream)
+    val extract = isQuery(tokens) && !tokens.exists(_.kind == DOLLAR)
+    new Fingerprinter(tokens, extract).fingerprint()
+  }
+
+  private def tokenize(charStream: CharStream): ArrayBuffer[Token] = {
+    val tokenManager = new CypherTokenManager(charStream)
+    val tokens = ArrayBuffer.empty[Token]
+    var token = tokenManager.getNextToken
+    while (token.kind != EOF) {
+      tokens += token
+      token = tokenManager.getNextToken
+    }
+    tokens
+  }
+
+  /**
+   * Tokens after which an expression, and not an operator, is expected.
+   * A minus after these is a sign, and a bracket after these opens a list rather than an index.
+   */
+  private val operandExpected: Set[Int] = Set(
+    // operators
+    EQ,
+    NEQ,
+    NEQ2,
+    LT,
+    GT,
+    LE,
+    GE,
+    REGEQ,
+    PLUS,
+    MINUS,
+    TIMES,
+    DIVIDE,
+    PERCENT,
+    POW,
+    DOTDOT,
+    BAR,
+    LPAREN,
+    LBRACKET,
+    LCURLY,
+    // keywords
+    RETURN,
+    WITH,
+    WHERE,
+    AND,
+    OR,
+    XOR,
+    NOT,
+    IN,
+    THEN,
+    ELSE,
+    WHEN,
+    CASE,
+    UNWIND,
+    SKIPROWS,
+    LIMITROWS,
+    BY,
+    CONTAINS,
+    STARTS,
+    ENDS,
+    DISTINCT,
+    DELETE,
+    REMOVE,
+    FOREACH,
+    OF,
+    COMMIT,
+    FROM,
+    FIELDTERMINATOR,
+    CSV
+  )
+
+  private val punctuationExpectingOperand = Set(",", ":", ";")
+
+  private def expectsOperand(previous: Token): Boolean =
+    previous == null || operandExpected.contains(previous.kind) || punctuationExpectingOperand.contains(previous.image)
+
+  private val extractingClauses = Set(MATCH, CREATE, MERGE, SET, RETURN, WITH, UNWIND, CALL)
+  private val nonExtractingClauses = Set(FOREACH, LOAD, DELETE, DETACH, REMOVE, USE, USING, LIMITROWS, UNION)
+
+  private val commands = Set(SHOW, GRANT, DENY, REVOKE, DROP, ALTER, START, STOP, TERMINATE, ENABLE, DEALLOCATE, RENAME)
+
+  private val createdSchemaOrSystemObjects = Set(
+    USER,
+    ROLE,
+    DATABASE,
+    COMPOSITE,
+    INDEX,
+    CONSTRAINT,
+    ALIAS,
+    OR,
+    RANGE,
+    TEXT,
+    POINT,
+    LOOKUP,
+    FULLTEXT,
+    BTREE,
+    SERVER
+  )
+
+  private val relationshipArrows = Set(MINUS, LT, ARROW_LINE, ARROW_LEFT_HEAD)
+  private val quantifierPredecessors = Set(RPAREN, MINUS, GT, ARROW_LINE, ARROW_RIGHT_HEAD)
+
+  /**
+   * Administration and schema commands do not get their literals replaced.
+   */
+  private def isQuery(tokens: ArrayBuffer[Token]): Boolean = {
+    var i = 0
+    if (tokens.nonEmpty && tokens.head.kind == USE) {
+      // skip the graph reference
+      i = 1
+      while (
+        i < tokens.length && !extractingClauses.contains(tokens(i).kind) && !commands.contains(tokens(i).kind)
+      ) {
+        i += 1
+      }
+    }
+    if (i >= tokens.length) {
+      true
+    } else {
+      val first = tokens(i).kind
+      val createsObject = first == CREATE && i + 1 < tokens.length &&
+        createdSchemaOrSystemObjects.contains(tokens(i + 1).kind)
+      !commands.contains(first) && !createsObject
+    }
+  }
+
+  /**
+   * @param extracting     whether literals in the current clause are replaced.
+   * @param forcedOff      whether literals are never replaced in this scope, whatever the clause.
+   * @param relationship   whether this is the scope of a relationship pattern.
+   */
+  final private class Scope(
+    val openedBy: Int,
+    var extracting: Boolean,
+    val forcedOff: Boolean,
+    val relationship: Boolean
+  )
+
+  final private class Fingerprinter(tokens: ArrayBuffer[Token], extract: Boolean) {
+    private val text = new StringBuilder
+    private val literals = ArrayBuffer.empty[AnyRef]
+    private var scopes = List(new Scope(EOF, extracting = false, forcedOff = !extract, relationship = false))
+
+    def fingerprint(): QueryFingerprint = {
+      var i = 0
+      while (i < tokens.length) {
+        i = process(i)
+      }
+      QueryFingerprint(text.toString, literals.toList)
+    }
+
+    /**
+     * @return the index of the next token to process.
+     */
+    private def process(i: Int): Int = {
+      val token = tokens(i)
+      var next = i + 1
+      val previous = tokenAt(i - 1)
+      val scope = scopes.head
+      token.kind match {
+        case LBRACKET if relationshipArrows.contains(kindOf(previous)) =>
+          push(LBRACKET, forcedOff = false, relationship = true)
+          appendToken(token)
+        case LBRACKET if expectsOperand(previous) =>
+          val list = if (replaceable(previous)) listAt(i) else None
+          list match {
+            case Some((placeholder, values, end)) =>
+              appendLiteral(placeholder, values)
+              next = end
+            case None =>
+              push(LBRACKET, forcedOff = false, relationship = false)
+              appendToken(token)
+          }
+        case LBRACKET =>
+          // an index or a slice
+          push(LBRACKET, forcedOff = true, relationship = false)
+          appendToken(token)
+        case LCURLY if kindOf(previous) == CALL =>
+          // a subquery
+          scope.extracting = false
+          push(LCURLY, forcedOff = true, relationship = false)
+          appendToken(token)
+        case LCURLY if quantifierPredecessors.contains(kindOf(previous)) =>
+          push(LCURLY, forcedOff = true, relationship = false)
+          appendToken(token)
+        case LPAREN if kindOf(previous) == FOREACH =>
+          push(LPAREN, forcedOff = true, relationship = false)
+          appendToken(token)
+        case LCURLY | LPAREN =>
+          push(token.kind, forcedOff = false, relationship = false)
+          appendToken(token)
+        case RBRACKET | RCURLY | RPAREN =>
+          if (scopes.tail.nonEmpty) {
+            scopes = scopes.tail
+          }
+          appendToken(token)
+        case WHERE if kindOf(previous) != DOT && (scope.openedBy == LPAREN || scope.openedBy == LBRACKET) =>
+          // a predicate in a pattern or a list comprehension
+          scope.extracting = false
+          appendToken(token)
+        case kind if isClause(i) =>
+          scope.extracting = extractingClauses.contains(kind)
+          appendToken(token)
+        case _ =>
+          val literal = if (replaceable(previous)) literalAt(i, inList = false) else None
+          literal match {
+            case Some((placeholder, value, end)) =>
+              appendLiteral(placeholder, value)
+              next = end
+            case None =>
+              appendToken(token)
+          }
+      }
+      next
+    }
+
+    private def tokenAt(i: Int): Token = if (i < 0 || i >= tokens.length) null else tokens(i)
+
+    private def kindOf(token: Token): Int = if (token == null) EOF else token.kind
+
+    /**
+     * Opens a nested scope. Literals in it are not replaced if they are not replaced around it either,
+     * even if it contains extracting clauses, e.g. in a subquery expression under LIMIT.
+     */
+    private def push(openedBy: Int, forcedOff: Boolean, relationship: Boolean): Unit = {
+      val scope = scopes.head
+      val off = forcedOff || scope.forcedOff || !scope.extracting
+      scopes = new Scope(openedBy, scope.extracting, off, relationship) :: scopes
+    }
+
+    private def replaceable(previous: Token): Boolean = {
+      val scope = scopes.head
+      scope.extracting && !scope.forcedOff &&
+      kindOf(previous) != DOTDOT && !(kindOf(previous) == TIMES && scope.relationship)
+    }
+
+    private def isClause(i: Int): Boolean = {
+      val kind = tokens(i).kind
+      (extractingClauses.contains(kind) || nonExtractingClauses.contains(kind)) && {
+        val previous = tokenAt(i - 1)
+        val next = tokenAt(i + 1)
+        val previousAllowsClause = kindOf(previous) match {
+          case EOF | LCURLY => true
+          case DOT          => false
+          case _            => previous.image == ";" || !expectsOperand(previous)
+        }
+        val nextAllowsClause = next == null || (next.kind != DOT && next.image != ":")
+        previousAllowsClause && nextAllowsClause
+      }
+    }
+
+    /**
+     * A list of literals starting at the bracket at `i`.
+     */
+    private def listAt(i: Int): Option[(String, AnyRef, Int)] = {
+      val values = ArrayBuffer.empty[AnyRef]
+      var allStrings = true
+      var j = i + 1
+      var complete = kindOf(tokenAt(j)) == RBRACKET
+      var failed = false
+      while (!complete && !failed) {
+        literalAt(j, inList = true) match {
+          case Some((placeholder, value, next)) =>
+            values += value
+            allStrings &&= placeholder.startsWith("$STRING")
+            val separator = tokenAt(next)
+            if (kindOf(separator) == RBRACKET) {
+              complete = true
+              j = next
+            } else if (separator != null && separator.image == ",") {
+              j = next + 1
+            } else {
+              failed = true
+            }
+          case None =>
+            failed = true
+        }
+      }
+      if (failed) {
+        None
+      } else {
+        val elementType = if (values.nonEmpty && allStrings) "STRING" else "ANY"
+        val bucket = SizeBucket.computeBucket(values.size).toOption.get
+        Some((s"$$LIST OF $elementType:$bucket", values.toList, j + 1))
+      }
+    }
+
+    /**
+     * The literal starting at `i`, possibly with a sign, as its placeholder, its value and the index after it.
+     * Booleans and nulls are only literals within lists, since they are not replaced on their own.
+     */
+    private def literalAt(i: Int, inList: Boolean): Option[(String, AnyRef, Int)] = {
+      val token = tokenAt(i)
+      if (kindOf(token) == MINUS && expectsOperand(tokenAt(i - 1))) {
+        val number = tokenAt(i + 1)
+        numberValue(number, "-").map(value => (numberPlaceholder(number), value, i + 2))
+      } else {
+        kindOf(token) match {
+          case STRING_LITERAL1 | STRING_LITERAL2 =>
+            val bucket = SizeBucket.computeBucket(token.image.length).toOption.get
+            Some((s"$$STRING:$bucket", token.image, i + 1))
+          case TRUE if inList  => Some(("true", java.lang.Boolean.TRUE, i + 1))
+          case FALSE if inList => Some(("false", java.lang.Boolean.FALSE, i + 1))
+          case NULL if inList  => Some(("null", null, i + 1))
+          case _ =>
+            numberValue(token, "").map(value => (numberPlaceholder(token), value, i + 1))
+        }
+      }
+    }
+
+    private def numberPlaceholder(number: Token): String =
+      if (number.kind == DECIMAL_DOUBLE) "$FLOAT" else "$INTEGER"
+
+    private def numberValue(number: Token, sign: String): Option[AnyRef] = {
+      val image = sign + (if (number == null) "" else number.image)
+      val pos = InputPosition.NONE
+      // the literals do not parse their values until asked, and fail then if the value is out of range
+      kindOf(number) match {
+        case UNSIGNED_DECIMAL_INTEGER => Try(SignedDecimalIntegerLiteral(image)(pos).value).toOption
+        case UNSIGNED_HEX_INTEGER     => Try(SignedHexIntegerLiteral(image)(pos).value).toOption
+        case UNSIGNED_OCTAL_INTEGER   => Try(SignedOctalIntegerLiteral(image)(pos).value).toOption
+        case DECIMAL_DOUBLE           => Try(DecimalDoubleLiteral(image)(pos).value).toOption
+        case _                        => None
+      }
+    }
+
+    private def appendLiteral(placeholder: String, value: AnyRef): Unit = {
+      literals += value
+      append(placeholder)
+    }
+
+    private def appendToken(token: Token): Unit = {
+      token.kind match {
+        case STRING_LITERAL1 | STRING_LITERAL2 =>
+          append("'" + token.image.replace("\\", "\\\\").replace("'", "\\'") + "'")
+        case ESCAPED_SYMBOLIC_NAME =>
+          append("`" + token.image.replace("`", "``") + "`")
+        case _ =>
+          append(token.image)
+      }
+    }
+
+    private def append(s: String): Unit = {
+      if (text.nonEmpty) {
+        text.append(' ')
+      }
+      text.append(s)
+    }
+  }
+}
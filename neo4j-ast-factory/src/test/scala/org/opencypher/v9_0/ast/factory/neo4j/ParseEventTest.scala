@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.factory.neo4j
+
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordedEvent
+import jdk.jfr.consumer.RecordingFile
+import org.opencypher.v9_0.parser.javacc.StreamingCypherCharStream
+import org.opencypher.v9_0.util.OpenCypherExceptionFactory
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+import java.io.StringReader
+import java.nio.file.Files
+
+import scala.jdk.CollectionConverters.ListHasAsScala
+
+class ParseEventTest extends CypherFunSuite {
+
+  private val exceptionFactory = OpenCypherExceptionFactory(None)
+
+  private def recordParseEvents(block: => Unit): Seq[RecordedEvent] = {
+    val recording = new Recording()
+    try {
+      recording.enable(classOf[ParseEvent])
+      recording.start()
+      block
+      recording.stop()
+      val file = Files.createTempFile("parse", ".jfr")
+      try {
+        recording.dump(file)
+        RecordingFile.readAllEvents(file).asScala.toSeq
+      } finally {
+        Files.delete(file)
+      }
+    } finally {
+      recording.close()
+    }
+  }
+
+  test("should record parsed queries") {
+    val query = "MATCH (n) WHERE n.prop = 42 RETURN n"
+    val events = recordParseEvents {
+      JavaCCParser.parse(query, exceptionFactory)
+    }
+
+    events should have size 1
+    val event = events.head
+    event.getString("fingerprint") shouldBe QueryFingerprint(query).fingerprint
+    event.getInt("queryLength") shouldBe query.length
+    event.getLong("astNodes") should be > 0L
+    event.getString("outcome") shouldBe ParseEvent.SUCCESS
+  }
+
+  test("should record streamed queries") {
+    val events = recordParseEvents {
+      JavaCCParser.parse(new StreamingCypherCharStream(new StringReader("RETURN 1")), exceptionFactory)
+    }
+
+    events.map(_.getInt("queryLength")) shouldBe Seq(-1)
+    events.map(_.getString("outcome")) shouldBe Seq(ParseEvent.SUCCESS)
+  }
+
+  test("should record one event for a script of statements") {
+    val script = "RETURN 1; RETURN 2"
+    val single = recordParseEvents {
+      JavaCCParser.parse("RETURN 1", exceptionFactory)
+    }
+    val events = recordParseEvents {
+      JavaCCParser.parseStatements(script, exceptionFactory)(_ => ())
+    }
+
+    events should have size 1
+    events.head.getInt("queryLength") shouldBe script.length
+    events.head.getLong("astNodes") shouldBe 2 * single.head.getLong("astNodes")
+    events.head.getString("outcome") shouldBe ParseEvent.SUCCESS
+  }
+
+  test("should record queries that fail to parse") {
+    val events = recordParseEvents {
+      an[Exception] should be thrownBy JavaCCParser.parse("MATCH (n RETURN n", exceptionFactory)
+    }
+
+    events.map(_.getLong("astNodes")) shouldBe Seq(-1L)
+    events.map(_.getString("outcome")) should not be Seq(ParseEvent.SUCCESS)
+  }
+}
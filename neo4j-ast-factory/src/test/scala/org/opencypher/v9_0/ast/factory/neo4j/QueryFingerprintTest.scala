@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.factory.neo4j
+
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class QueryFingerprintTest extends CypherFunSuite {
+
+  private def fingerprint(query: String): String = QueryFingerprint(query).fingerprint
+
+  private def literals(query: String): Seq[AnyRef] = QueryFingerprint(query).literals
+
+  test("should replace literals by typed placeholders") {
+    QueryFingerprint("MATCH (n {name: 'Alice'}) WHERE n.age > 42 RETURN n") shouldBe QueryFingerprint(
+      "MATCH ( n { name : $STRING:10 } ) WHERE n . age > $INTEGER RETURN n",
+      Seq("Alice", Long.box(42))
+    )
+  }
+
+  test("should give the same fingerprint to queries that only differ in literals, whitespace and comments") {
+    fingerprint("MATCH (n {name: 'Alice'}) WHERE n.age > 42 RETURN n") shouldBe
+      fingerprint("MATCH (n {name: \"Bob\"})\n  // adults\n  WHERE n.age > 18 RETURN n")
+  }
+
+  test("should tell strings of different size buckets apart") {
+    fingerprint("RETURN 'a' AS s") should not be fingerprint("RETURN 'abcdefghijk' AS s")
+  }
+
+  test("should replace lists of literals as a whole") {
+    QueryFingerprint("UNWIND [1, -2, 3] AS x RETURN x") shouldBe QueryFingerprint(
+      "UNWIND $LIST OF ANY:10 AS x RETURN x",
+      Seq(List(Long.box(1), Long.box(-2), Long.box(3)))
+    )
+    fingerprint("RETURN ['a', 'b'] AS l") shouldBe "RETURN $LIST OF STRING:10 AS l"
+  }
+
+  test("should tell signs apart from subtraction") {
+    literals("RETURN -1 AS x") shouldBe Seq(Long.box(-1))
+    literals("RETURN 5 - 1 AS x") shouldBe Seq(Long.box(5), Long.box(1))
+    literals("RETURN 1.5 AS x") shouldBe Seq(Double.box(1.5))
+  }
+
+  test("should not replace literals that literal extraction keeps") {
+    literals("MATCH (n) RETURN n LIMIT 10") shouldBe empty
+    literals("MATCH (a)-[*1..3]->(b) RETURN b") shouldBe empty
+    literals("MATCH (n) RETURN n['x'] AS x") shouldBe empty
+    literals("MATCH (n) FOREACH (x IN [1, 2] | SET n.p = x)") shouldBe empty
+    literals("CALL { RETURN 1 AS x } RETURN x") shouldBe empty
+    literals("LOAD CSV WITH HEADERS FROM 'file:///x.csv' AS line RETURN line") shouldBe empty
+    fingerprint("MATCH (n) RETURN n['x'] AS x") should not be fingerprint("MATCH (n) RETURN n['y'] AS x")
+  }
+
+  test("should not replace any literals in queries with parameters") {
+    QueryFingerprint("MATCH (n) WHERE n.x = $p RETURN n.y + 1 AS y") shouldBe QueryFingerprint(
+      "MATCH ( n ) WHERE n . x = $ p RETURN n . y + 1 AS y",
+      Seq.empty
+    )
+  }
+
+  test("should not replace literals in administration commands") {
+    literals("CREATE USER foo SET PASSWORD 'secret'") shouldBe empty
+    literals("SHOW USERS WHERE user = 'foo'") shouldBe empty
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.factory.neo4j
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.ast.UnaliasedReturnItem
+import org.opencypher.v9_0.expressions.Expression
+import org.opencypher.v9_0.parser.javacc.StreamingCypherCharStream
+import org.opencypher.v9_0.util.OpenCypherExceptionFactory
+import org.opencypher.v9_0.util.OpenCypherExceptionFactory.SyntaxException
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+import java.io.StringReader
+import java.nio.CharBuffer
+
+import scala.collection.mutable.ArrayBuffer
+
+class StreamingParserTest extends CypherFunSuite {
+  private val exceptionFactory = OpenCypherExceptionFactory(None)
+
+  private val query =
+    """MATCH (n:Label {prop: 'ǿ'})
+      |WHERE n.prop > 1
+      |RETURN n.prop + 1, count(*) AS c""".stripMargin
+
+  test("should parse the same statement from a reader as from a string") {
+    val expected = JavaCCParser.parse(query, exceptionFactory)
+    val actual = JavaCCParser.parse(new StreamingCypherCharStream(new StringReader(query)), exceptionFactory)
+
+    actual shouldBe expected
+    actual.folder.findAllByClass[Expression].map(_.position) shouldBe
+      expected.folder.findAllByClass[Expression].map(_.position)
+  }
+
+  test("should name unaliased return items after their text") {
+    val statement = JavaCCParser.parse(new StreamingCypherCharStream(CharBuffer.wrap(query)), exceptionFactory)
+
+    statement.folder.findAllByClass[UnaliasedReturnItem].map(_.name) shouldBe Seq("n.prop + 1")
+  }
+
+  test("should parse queries much longer than the retained query text") {
+    val longQuery = (0 until 10000).map(i => s"n.prop$i").mkString("RETURN 1 AS x, ", " + ", " AS y")
+    val statement =
+      JavaCCParser.parse(new StreamingCypherCharStream(new StringReader(longQuery), 64), exceptionFactory)
+
+    statement shouldBe JavaCCParser.parse(longQuery, exceptionFactory)
+  }
+
+  test("should fail to name unaliased return items that are longer than the retained query text") {
+    val longQuery = (0 until 100).map(i => s"n.prop$i").mkString("RETURN ", " + ", "")
+
+    an[IllegalStateException] should be thrownBy {
+      JavaCCParser.parse(new StreamingCypherCharStream(new StringReader(longQuery), 64), exceptionFactory)
+    }
+  }
+
+  test("should hand over every statement of a script in order") {
+    val script = (0 until 1000).map(i => s"MATCH (n) WHERE n.prop = $i RETURN n").mkString(";\n") + ";"
+    val statements = ArrayBuffer.empty[Statement]
+
+    JavaCCParser.parseStatements(new StreamingCypherCharStream(new StringReader(script)), exceptionFactory)(
+      statements += _
+    )
+
+    statements should have size 1000
+    statements.head shouldBe JavaCCParser.parse("MATCH (n) WHERE n.prop = 0 RETURN n", exceptionFactory)
+    statements.map(_.position.offset) shouldBe (0 until 1000).map(i => script.indexOf(s"MATCH (n) WHERE n.prop = $i "))
+  }
+
+  test("should hand over the statements before a syntax error") {
+    val statements = ArrayBuffer.empty[Statement]
+
+    a[SyntaxException] should be thrownBy {
+      JavaCCParser.parseStatements("RETURN 1; RETURN 2; RETURN", exceptionFactory)(statements += _)
+    }
+    statements should have size 2
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.ast.factory.neo4j
+
+import org.opencypher.v9_0.ast.Statement
+import org.opencypher.v9_0.expressions.LabelExpression.Leaf
+import org.opencypher.v9_0.expressions.LabelName
+import org.opencypher.v9_0.expressions.PropertyKeyName
+import org.opencypher.v9_0.util.ASTNode
+import org.opencypher.v9_0.util.OpenCypherExceptionFactory
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+import java.util
+
+class SymbolicNameInterningTest extends CypherFunSuite {
+
+  private val exceptionFactory = OpenCypherExceptionFactory(None)
+
+  private val query =
+    """MATCH (n:A)-->(m:A)
+      |WHERE n.p = 1 AND m.p > n.q
+      |SET n:B, n += {p: 2, q: 3}
+      |RETURN n {p: m.p, .q} AS projected, n.p AS p""".stripMargin
+
+  private def parse(intern: Boolean): Statement =
+    JavaCCParser.parse(query, exceptionFactory, internSymbolicNames = intern)
+
+  private def instances(names: Seq[ASTNode]): Int = {
+    val distinct = util.Collections.newSetFromMap[ASTNode](new util.IdentityHashMap[ASTNode, java.lang.Boolean]())
+    names.foreach(distinct.add)
+    distinct.size()
+  }
+
+  test("should parse the same statement") {
+    parse(intern = true) shouldBe parse(intern = false)
+  }
+
+  test("should keep one property key name per distinct name") {
+    val plain = parse(intern = false)
+    val interned = parse(intern = true)
+    val plainNames = plain.folder.findAllByClass[PropertyKeyName]
+    val internedNames = interned.folder.findAllByClass[PropertyKeyName]
+
+    internedNames.map(_.name) shouldBe plainNames.map(_.name)
+    instances(plainNames) shouldBe plainNames.size
+    instances(internedNames) shouldBe 2
+  }
+
+  test("should not share the label names of label expressions, whose positions they give") {
+    val statement = parse(intern = true)
+    val leaves = statement.folder.findAllByClass[Leaf]
+
+    leaves.map(_.position).distinct should have size leaves.size
+    val labelNames = statement.folder.findAllByClass[LabelName]
+    instances(labelNames) shouldBe labelNames.size
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.rewriting
+
+import org.opencypher.v9_0.ast.semantics.SemanticState
+import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.CypherExceptionFactory
+import org.opencypher.v9_0.util.Rewriter
+import org.opencypher.v9_0.util.StepSequencer.Step
+import org.opencypher.v9_0.util.inSequence
+import org.opencypher.v9_0.util.symbols.CypherType
+
+/**
+ * Fuses the rewriters of consecutive steps into fewer traversals of the AST.
+ *
+ * Consecutive [[LocalASTRewriterFactory]] steps with the same traversal share one traversal, which applies their rules
+ * in sequence at each node, as long as they are independent of each other (see [[independent]]) and are declared not
+ * to interact with each other (see [[LocalASTRewriterFactory.nonInteractingSteps]]).
+ * All other steps get a traversal of their own. To fuse more steps, order them with [[groupFusable]] first.
+ */
+object RewriterStepFusion {
+
+  /**
+   * Steps that are applied in a single traversal, in the given order.
+   */
+  case class FusedSteps[S <: Step with ASTRewriterFactory](steps: Seq[S]) {
+
+    def getRewriter(
+      semanticState: SemanticState,
+      parameterTypeMapping: Map[String, CypherType],
+      cypherExceptionFactory: CypherExceptionFactory,
+      anonymousVariableNameGenerator: AnonymousVariableNameGenerator
+    ): Rewriter = steps match {
+      case Seq(step) =>
+        step.getRewriter(semanticState, parameterTypeMapping, cypherExceptionFactory, anonymousVariableNameGenerator)
+      case _ =>
+        val localSteps = steps.map(_.asInstanceOf[LocalASTRewriterFactory])
+        val rules =
+          localSteps.map(_.getLocalRule(parameterTypeMapping, cypherExceptionFactory, anonymousVariableNameGenerator))
+        localSteps.head.traversal(inSequence(rules: _*))
+    }
+  }
+
+  /**
+   * Moves steps that can share a traversal next to each other, so that [[fuse]] can fuse them.
+   *
+   * [[org.opencypher.v9_0.util.StepSequencer]] picks one of the orders that meet all conditions, and steps that it
+   * places apart can often be next to each other in another one. A step is only moved earlier, to right after the
+   * steps it can be fused with, and only past steps that it is independent of, so the order still meets all
+   * conditions. Other steps keep their order.
+   */
+  def groupFusable[S <: Step with ASTRewriterFactory](orderedSteps: Seq[S]): Seq[S] = {
+    val remaining = orderedSteps.toBuffer
+    val result = Vector.newBuilder[S]
+    var group = Seq.empty[S]
+    while (remaining.nonEmpty) {
+      val step = remaining.remove(0)
+      group = if (group.nonEmpty && canJoin(group, step)) group :+ step else Seq(step)
+      result += step
+      val next = remaining.indices.find { i =>
+        canJoin(group, remaining(i)) && remaining.iterator.take(i).forall(independent(_, remaining(i)))
+      }
+      next.filter(_ > 0).foreach(i => remaining.prepend(remaining.remove(i)))
+    }
+    result.result()
+  }
+
+  /**
+   * Group the steps into as few traversals as possible, without changing their order.
+   */
+  def fuse[S <: Step with ASTRewriterFactory](orderedSteps: Seq[S]): Seq[FusedSteps[S]] =
+    orderedSteps.foldLeft(Vector.empty[Seq[S]]) {
+      case (groups :+ group, step) if canJoin(group, step) => groups :+ (group :+ step)
+      case (groups, step)                                  => groups :+ Seq(step)
+    }.map(FusedSteps(_))
+
+  private def canJoin(group: Seq[Step with ASTRewriterFactory], step: Step with ASTRewriterFactory): Boolean =
+    (group.head, step) match {
+      case (first: LocalASTRewriterFactory, next: LocalASTRewriterFactory) =>
+        first.traversal == next.traversal &&
+        group.forall(member => independent(member, step) && nonInteracting(member, step))
+      case _ => false
+    }
+
+  private def nonInteracting(a: Step, b: Step): Boolean = (a, b) match {
+    case (a: LocalASTRewriterFactory, b: LocalASTRewriterFactory) =>
+      a.nonInteractingSteps.contains(b) || b.nonInteractingSteps.contains(a)
+    case _ => false
+  }
+
+  /**
+   * Two steps are independent if neither of them introduces a condition that the other one requires, introduces or
+   * invalidates, and neither of them invalidates a condition that the other one requires.
+   * Invalidating the same conditions, or requiring the same conditions, does not make steps dependent.
+   *
+   * Independence only means that the steps can run in either order as far as their conditions are concerned.
+   * It does not mean that their rules can be applied node by node, since conditions say nothing about the nodes that
+   * rules match or create.
+   */
+  def independent(a: Step, b: Step): Boolean = {
+    def affects(x: Step, y: Step): Boolean =
+      x.postConditions.exists { c =>
+        y.preConditions.contains(c) ||
+        y.preConditions.contains(!c) ||
+        y.postConditions.contains(c) ||
+        y.invalidatedConditions.contains(c)
+      } || x.invalidatedConditions.exists(y.preConditions.contains)
+
+    !affects(a, b) && !affects(b, a)
+  }
+}
@@ -15,12 +15,11 @@
  */
 package org.opencypher.v9_0.rewriting.rewriters
 
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.LabelExpressionPredicate
 import org.opencypher.v9_0.rewriting.ValidatingCondition
 import org.opencypher.v9_0.rewriting.conditions.PatternExpressionsHaveSemanticInfo
 import org.opencypher.v9_0.rewriting.conditions.containsNoMatchingNodes
-import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.Rewriter
@@ -39,18 +38,21 @@ case object containsNoLabelExpressionPredicates extends ValidatingCondition {
   override def name: String = productPrefix
 }
 
-case object LabelExpressionPredicateNormalizer extends StepSequencer.Step with ASTRewriterFactory {
+case object LabelExpressionPredicateNormalizer extends StepSequencer.Step with LocalASTRewriterFactory {
 
-  val instance: Rewriter = topDown(Rewriter.lift {
+  val rule: Rewriter = Rewriter.lift {
     case pred: LabelExpressionPredicate => LabelExpressionNormalizer(pred.entity, None)(pred.labelExpression)
-  })
+  }
+
+  val instance: Rewriter = topDown(rule)
+
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.TopDown
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = instance
+  ): Rewriter = rule
 
   /**
    * @return the conditions that needs to be met before this step can be allowed to run.
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.rewriting.rewriters.factories
+
+import org.opencypher.v9_0.ast.semantics.SemanticState
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.CypherExceptionFactory
+import org.opencypher.v9_0.util.Rewriter
+import org.opencypher.v9_0.util.bottomUp
+import org.opencypher.v9_0.util.symbols.CypherType
+import org.opencypher.v9_0.util.topDown
+
+/**
+ * An [[ASTRewriterFactory]] whose rewriter is a single [[topDown]] or [[bottomUp]] traversal, without a stopper,
+ * applying a local rule: a rule that only looks at the node it is applied to and the subtree below it.
+ * Local rules do not get access to the semantic state, since the nodes they see might have been rewritten
+ * by other rules of the same traversal.
+ *
+ * The rules of consecutive steps of this kind that are declared not to interact with each other can be applied in
+ * one traversal, see [[org.opencypher.v9_0.rewriting.RewriterStepFusion]].
+ */
+trait LocalASTRewriterFactory extends ASTRewriterFactory {
+
+  def traversal: LocalASTRewriterFactory.Traversal
+
+  def getLocalRule(
+    parameterTypeMapping: Map[String, CypherType],
+    cypherExceptionFactory: CypherExceptionFactory,
+    anonymousVariableNameGenerator: AnonymousVariableNameGenerator
+  ): Rewriter
+
+  /**
+   * Steps whose rules do not interact with the rule of this step: neither rule matches, or looks at, nodes that the
+   * other rule creates or rewrites. Only then does it not matter whether the other rule has already been applied to
+   * the nodes a rule sees, and the rules can share a traversal.
+   * This cannot be derived from the conditions of the steps, so it has to be declared. One of two steps declaring the
+   * other one is enough.
+   */
+  def nonInteractingSteps: Set[LocalASTRewriterFactory] = Set.empty
+
+  override def getRewriter(
+    semanticState: SemanticState,
+    parameterTypeMapping: Map[String, CypherType],
+    cypherExceptionFactory: CypherExceptionFactory,
+    anonymousVariableNameGenerator: AnonymousVariableNameGenerator
+  ): Rewriter =
+    traversal(getLocalRule(parameterTypeMapping, cypherExceptionFactory, anonymousVariableNameGenerator))
+}
+
+object LocalASTRewriterFactory {
+
+  sealed trait Traversal {
+    def apply(rule: Rewriter): Rewriter
+  }
+
+  case object TopDown extends Traversal {
+    override def apply(rule: Rewriter): Rewriter = topDown(rule)
+  }
+
+  case object BottomUp extends Traversal {
+    override def apply(rule: Rewriter): Rewriter = bottomUp(rule)
+  }
+}
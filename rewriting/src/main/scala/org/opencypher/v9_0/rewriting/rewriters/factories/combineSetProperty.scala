@@ -20,7 +20,6 @@ import org.opencypher.v9_0.ast.SetItem
 import org.opencypher.v9_0.ast.SetProperty
 import org.opencypher.v9_0.ast.SetPropertyItem
 import org.opencypher.v9_0.ast.SetPropertyItems
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.Expression
 import org.opencypher.v9_0.expressions.Property
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
@@ -35,17 +34,18 @@ import scala.collection.mutable.ArrayBuffer
 
 case object PropertiesCombined extends StepSequencer.Condition
 
-case object combineSetProperty extends StepSequencer.Step with ASTRewriterFactory {
+case object combineSetProperty extends StepSequencer.Step with LocalASTRewriterFactory {
   override def preConditions: Set[StepSequencer.Condition] = Set()
   override def postConditions: Set[StepSequencer.Condition] = Set(PropertiesCombined)
   override def invalidatedConditions: Set[StepSequencer.Condition] = Set()
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.BottomUp
+
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = instance
+  ): Rewriter = rule
 
   private def onSameEntity(setItem: SetItem, entity: Expression) = setItem match {
     case SetPropertyItem(Property(map, _), _) => map == entity
@@ -56,7 +56,7 @@ case object combineSetProperty extends StepSequencer.Step with ASTRewriterFactor
     if (ops.size == 1) ops.head
     else SetPropertyItems(entity, ops.map(o => (o.property.propertyKey, o.expression)))(ops.head.position)
 
-  val instance: Rewriter = bottomUp(Rewriter.lift {
+  val rule: Rewriter = Rewriter.lift {
     case s @ SetClause(items) =>
       val newItems = ArrayBuffer.empty[SetItem]
       val itemsArray = items.toArray
@@ -82,5 +82,7 @@ case object combineSetProperty extends StepSequencer.Step with ASTRewriterFactor
         i += 1
       }
       s.copy(items = newItems.toSeq)(s.position)
-  })
+  }
+
+  val instance: Rewriter = bottomUp(rule)
 }
@@ -15,7 +15,6 @@
  */
 package org.opencypher.v9_0.rewriting.rewriters
 
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.Add
 import org.opencypher.v9_0.expressions.BinaryOperatorExpression
 import org.opencypher.v9_0.expressions.DecimalDoubleLiteral
@@ -39,7 +38,7 @@ import org.opencypher.v9_0.expressions.True
 import org.opencypher.v9_0.expressions.UnaryAdd
 import org.opencypher.v9_0.expressions.UnarySubtract
 import org.opencypher.v9_0.rewriting.conditions.PatternExpressionsHaveSemanticInfo
-import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.Rewriter
@@ -60,7 +59,12 @@ case class foldConstants(cypherExceptionFactory: CypherExceptionFactory) extends
     case _                        => false
   }
 
-  private val instance: Rewriter = bottomUp(tryRewrite)
+  /**
+   * The rule applied at each node. Nodes created by folding are folded further with a full traversal.
+   */
+  val rule: Rewriter = expr => tryRewrite(expr)
+
+  private val instance: Rewriter = bottomUp(rule)
 
   private def tryRewrite(expr: AnyRef): AnyRef =
     try {
@@ -165,7 +169,7 @@ case class foldConstants(cypherExceptionFactory: CypherExceptionFactory) extends
   private def asAst(b: Boolean, e: Expression) = if (b) True()(e.position) else False()(e.position)
 }
 
-case object foldConstants extends StepSequencer.Step with ASTRewriterFactory {
+case object foldConstants extends StepSequencer.Step with LocalASTRewriterFactory {
   override def preConditions: Set[StepSequencer.Condition] = Set()
 
   override def postConditions: Set[StepSequencer.Condition] = Set(ConstantNumberLiteralsFolded)
@@ -175,10 +179,11 @@ case object foldConstants extends StepSequencer.Step with ASTRewriterFactory {
     PatternExpressionsHaveSemanticInfo // It can invalidate this condition by rewriting things inside PatternExpressions.
   )
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.BottomUp
+
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = foldConstants(cypherExceptionFactory)
+  ): Rewriter = foldConstants(cypherExceptionFactory).rule
 }
@@ -28,6 +28,7 @@ import org.opencypher.v9_0.rewriting.rewriters.factories.PreparatoryRewritingRew
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.Foldable.SkipChildren
 import org.opencypher.v9_0.util.InternalNotificationLogger
+import org.opencypher.v9_0.util.NodeKinds
 import org.opencypher.v9_0.util.Rewriter
 import org.opencypher.v9_0.util.StepSequencer
 import org.opencypher.v9_0.util.StepSequencer.Condition
@@ -61,7 +62,7 @@ case object mergeInPredicates extends Step with PreparatoryRewritingRewriterFact
 
   override def invalidatedConditions: Set[StepSequencer.Condition] = Set.empty
 
-  val instance: Rewriter = bottomUp(Rewriter.lift {
+  val instance: Rewriter = bottomUp(Rewriter.targeting(classOf[And], classOf[Or])(Rewriter.lift {
 
     case and @ And(lhs, rhs) if containNeitherOrsNorInnerScopes(lhs, rhs) && containIns(lhs, rhs) =>
       if (containNoNots(lhs, rhs))
@@ -84,29 +85,24 @@ case object mergeInPredicates extends Step with PreparatoryRewritingRewriterFact
       else
         // In case only one of lhs and rhs includes a NOT we cannot rewrite
         or
-  })
+  }))
+
+  // Summaries of the subtrees answer these in constant time, rather than a traversal of the operands at every And/Or.
+  private val orsOrInnerScopes = NodeKinds(classOf[Or], classOf[ScopeExpression])
+  private val ands = NodeKinds(classOf[And])
+  private val nots = NodeKinds(classOf[Not])
+  private val ins = NodeKinds(classOf[In])
 
   private def containNeitherOrsNorInnerScopes(expressions: Expression*): Boolean =
-    expressions.forall(!_.folder.treeExists {
-      case _: Or              => true
-      case _: ScopeExpression => true
-    })
+    expressions.forall(!orsOrInnerScopes.existIn(_))
 
-  private def containNoAnds(expressions: Expression*): Boolean = expressions.forall(!_.folder.treeExists {
-    case _: And => true
-  })
+  private def containNoAnds(expressions: Expression*): Boolean = expressions.forall(!ands.existIn(_))
 
-  private def containNots(expressions: Expression*): Boolean = expressions.forall(_.folder.treeExists {
-    case _: Not => true
-  })
+  private def containNots(expressions: Expression*): Boolean = expressions.forall(nots.existIn)
 
-  private def containNoNots(expressions: Expression*): Boolean = expressions.forall(!_.folder.treeExists {
-    case _: Not => true
-  })
+  private def containNoNots(expressions: Expression*): Boolean = expressions.forall(!nots.existIn(_))
 
-  private def containIns(expressions: Expression*): Boolean = expressions.forall(_.folder.treeExists {
-    case _: In => true
-  })
+  private def containIns(expressions: Expression*): Boolean = expressions.forall(ins.existIn)
 
   // Takes a binary operator a merge operator and a copy constructor
   // and rewrites the binary operator
@@ -126,14 +122,15 @@ case object mergeInPredicates extends Step with PreparatoryRewritingRewriterFact
 
   // Rewrites a IN [] by using the the provided map of precomputed lists
   // a IN ... is rewritten to a IN inPredicates(a)
-  private def inRewriter(inPredicates: Map[Expression, Seq[Expression]]) = bottomUp(Rewriter.lift({
-    case in @ In(a, list @ ListLiteral(_)) =>
-      val expressions = inPredicates(a)
-      if (expressions.nonEmpty)
-        in.copy(rhs = list.copy(expressions)(list.position))(in.position)
-      else
-        False()(in.position)
-  }))
+  private def inRewriter(inPredicates: Map[Expression, Seq[Expression]]) =
+    bottomUp(Rewriter.targeting(classOf[In])(Rewriter.lift({
+      case in @ In(a, list @ ListLiteral(_)) =>
+        val expressions = inPredicates(a)
+        if (expressions.nonEmpty)
+          in.copy(rhs = list.copy(expressions)(list.position))(in.position)
+        else
+          False()(in.position)
+    })))
 
   // Given `a IN A ... b IN B ... a IN C` and use `merge` to merge all the lists with the same key.
   // Returns {a -> merge(A,B), b -> C}
@@ -15,7 +15,6 @@
  */
 package org.opencypher.v9_0.rewriting.rewriters
 
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.Equals
 import org.opencypher.v9_0.expressions.FunctionInvocation
 import org.opencypher.v9_0.expressions.InequalityExpression
@@ -25,7 +24,7 @@ import org.opencypher.v9_0.expressions.functions
 import org.opencypher.v9_0.rewriting.conditions.PatternExpressionsHaveSemanticInfo
 import org.opencypher.v9_0.rewriting.conditions.containsNoNodesOfType
 import org.opencypher.v9_0.rewriting.conditions.normalizedEqualsArguments
-import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.Rewriter
@@ -35,7 +34,7 @@ import org.opencypher.v9_0.util.topDown
 
 case object ArgumentOrderInComparisonsNormalized extends StepSequencer.Condition
 
-case object normalizeArgumentOrder extends StepSequencer.Step with ASTRewriterFactory {
+case object normalizeArgumentOrder extends StepSequencer.Step with LocalASTRewriterFactory {
 
   override def preConditions: Set[StepSequencer.Condition] = Set(
     containsNoNodesOfType[NotEquals]() // NotEquals must have been rewritten to Equals
@@ -51,7 +50,7 @@ case object normalizeArgumentOrder extends StepSequencer.Step with ASTRewriterFa
     PatternExpressionsHaveSemanticInfo // It can invalidate this condition by rewriting things inside PatternExpressions.
   )
 
-  val instance: Rewriter = topDown(Rewriter.lift {
+  val rule: Rewriter = Rewriter.lift {
 
     // move id(n) on equals to the left
     case predicate @ Equals(func @ FunctionInvocation(_, _, _, _), _) if func.function == functions.Id =>
@@ -75,12 +74,15 @@ case object normalizeArgumentOrder extends StepSequencer.Step with ASTRewriterFa
       } else {
         inequality
       }
-  })
+  }
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  val instance: Rewriter = topDown(rule)
+
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.TopDown
+
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = instance
+  ): Rewriter = rule
 }
@@ -15,7 +15,6 @@
  */
 package org.opencypher.v9_0.rewriting.rewriters
 
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.Ands
 import org.opencypher.v9_0.expressions.Equals
 import org.opencypher.v9_0.expressions.GreaterThan
@@ -29,7 +28,7 @@ import org.opencypher.v9_0.expressions.NotEquals
 import org.opencypher.v9_0.rewriting.conditions.PatternExpressionsHaveSemanticInfo
 import org.opencypher.v9_0.rewriting.conditions.containsNamedPathOnlyForShortestPath
 import org.opencypher.v9_0.rewriting.conditions.noReferenceEqualityAmongVariables
-import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.Rewriter
@@ -39,14 +38,15 @@ import org.opencypher.v9_0.util.topDown
 
 case object OnlySingleHasLabels extends StepSequencer.Condition
 
-case object normalizeComparisons extends StepSequencer.Step with ASTRewriterFactory {
+case object normalizeComparisons extends StepSequencer.Step with LocalASTRewriterFactory {
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.TopDown
+
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = instance
+  ): Rewriter = rule
 
   override def preConditions: Set[StepSequencer.Condition] = Set(
     HasLabelsOrTypesReplacedIfPossible, // These have to have been rewritten to HasLabels / HasTypes at this point
@@ -61,7 +61,7 @@ case object normalizeComparisons extends StepSequencer.Step with ASTRewriterFact
     PatternExpressionsHaveSemanticInfo // It can invalidate this condition by rewriting things inside PatternExpressions.
   )
 
-  val instance: Rewriter = topDown(Rewriter.lift {
+  val rule: Rewriter = Rewriter.lift {
     case c @ NotEquals(lhs, rhs) =>
       NotEquals(lhs.endoRewrite(copyVariables), rhs.endoRewrite(copyVariables))(c.position)
     case c @ Equals(lhs, rhs) =>
@@ -82,5 +82,7 @@ case object normalizeComparisons extends StepSequencer.Step with ASTRewriterFact
     case c @ HasTypes(expr, types) if types.size > 1 =>
       val hasTypes = types.map(t => HasTypes(expr.endoRewrite(copyVariables), Seq(t))(c.position))
       Ands(hasTypes)(c.position)
-  })
+  }
+
+  val instance: Rewriter = topDown(rule)
 }
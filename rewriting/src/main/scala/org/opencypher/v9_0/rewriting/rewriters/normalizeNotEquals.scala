@@ -15,13 +15,12 @@
  */
 package org.opencypher.v9_0.rewriting.rewriters
 
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.Equals
 import org.opencypher.v9_0.expressions.Not
 import org.opencypher.v9_0.expressions.NotEquals
 import org.opencypher.v9_0.rewriting.conditions.PatternExpressionsHaveSemanticInfo
 import org.opencypher.v9_0.rewriting.conditions.containsNoNodesOfType
-import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.Rewriter
@@ -29,7 +28,7 @@ import org.opencypher.v9_0.util.StepSequencer
 import org.opencypher.v9_0.util.symbols.CypherType
 import org.opencypher.v9_0.util.topDown
 
-case object normalizeNotEquals extends StepSequencer.Step with ASTRewriterFactory {
+case object normalizeNotEquals extends StepSequencer.Step with LocalASTRewriterFactory {
 
   override def preConditions: Set[StepSequencer.Condition] = Set.empty
 
@@ -40,15 +39,21 @@ case object normalizeNotEquals extends StepSequencer.Step with ASTRewriterFactor
     PatternExpressionsHaveSemanticInfo // It can invalidate this condition by rewriting things inside PatternExpressions.
   )
 
-  val instance: Rewriter = topDown(Rewriter.lift {
+  val rule: Rewriter = Rewriter.targeting(classOf[NotEquals])(Rewriter.lift {
     case p @ NotEquals(lhs, rhs) =>
       Not(Equals(lhs, rhs)(p.position))(p.position) // not(1 = 2)  <!===!>     1 != 2
   })
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  val instance: Rewriter = topDown(rule)
+
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.TopDown
+
+  // Label expressions never contain comparisons, and are never normalized into them
+  override def nonInteractingSteps: Set[LocalASTRewriterFactory] = Set(LabelExpressionPredicateNormalizer)
+
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = instance
+  ): Rewriter = rule
 }
@@ -15,10 +15,9 @@
  */
 package org.opencypher.v9_0.rewriting.rewriters
 
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.ExplicitParameter
 import org.opencypher.v9_0.rewriting.conditions.PatternExpressionsHaveSemanticInfo
-import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.Rewriter
@@ -32,16 +31,18 @@ case object ExplicitParametersKnowTheirTypes extends StepSequencer.Condition
 
 case class parameterValueTypeReplacement(parameterTypeMapping: Map[String, CypherType]) extends Rewriter {
 
-  private val rewriter: Rewriter = bottomUp(Rewriter.lift {
+  val rule: Rewriter = Rewriter.lift {
     case p @ ExplicitParameter(name, CTAny) =>
       val cypherType = parameterTypeMapping.getOrElse(name, CTAny)
       ExplicitParameter(name, cypherType)(p.position)
-  })
+  }
+
+  private val rewriter: Rewriter = bottomUp(rule)
 
   override def apply(that: AnyRef): AnyRef = rewriter(that)
 }
 
-case object parameterValueTypeReplacement extends Step with ASTRewriterFactory {
+case object parameterValueTypeReplacement extends Step with LocalASTRewriterFactory {
   override def preConditions: Set[StepSequencer.Condition] = Set.empty
 
   override def postConditions: Set[StepSequencer.Condition] = Set(ExplicitParametersKnowTheirTypes)
@@ -51,10 +52,15 @@ case object parameterValueTypeReplacement extends Step with ASTRewriterFactory {
     PatternExpressionsHaveSemanticInfo // It can invalidate this condition by rewriting things inside PatternExpressions.
   )
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.BottomUp
+
+  // Only rewrites ExplicitParameter, which neither of these looks at, and neither creates one
+  override def nonInteractingSteps: Set[LocalASTRewriterFactory] =
+    Set(foldConstants, replaceLiteralDynamicPropertyLookups)
+
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = parameterValueTypeReplacement(parameterTypeMapping)
+  ): Rewriter = parameterValueTypeReplacement(parameterTypeMapping).rule
 }
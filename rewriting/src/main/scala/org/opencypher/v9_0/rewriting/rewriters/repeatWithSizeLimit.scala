@@ -24,7 +24,8 @@ import org.opencypher.v9_0.util.Rewriter
 import scala.annotation.tailrec
 
 /*
-This rewriter tries to limit rewriters that grow the product AST too much
+This rewriter tries to limit rewriters that grow the product AST too much.
+The rewriter is repeated until it returns its input itself, i.e. until none of its rules fire anymore.
  */
 case class repeatWithSizeLimit(rewriter: Rewriter)(implicit val monitor: AstRewritingMonitor) extends Rewriter {
 
@@ -47,7 +48,7 @@ case class repeatWithSizeLimit(rewriter: Rewriter)(implicit val monitor: AstRewr
     if (newSize > limit) {
       monitor.abortedRewriting(that)
       that
-    } else if (t == that) {
+    } else if (t eq that) {
       t
     } else {
       innerApply(t, limit)
@@ -15,13 +15,12 @@
  */
 package org.opencypher.v9_0.rewriting.rewriters
 
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.ContainerIndex
 import org.opencypher.v9_0.expressions.Property
 import org.opencypher.v9_0.expressions.PropertyKeyName
 import org.opencypher.v9_0.expressions.StringLiteral
 import org.opencypher.v9_0.rewriting.conditions.PatternExpressionsHaveSemanticInfo
-import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.Rewriter
@@ -32,7 +31,7 @@ import org.opencypher.v9_0.util.symbols.CypherType
 
 case object NoLiteralDynamicPropertyLookups extends StepSequencer.Condition
 
-case object replaceLiteralDynamicPropertyLookups extends Step with ASTRewriterFactory {
+case object replaceLiteralDynamicPropertyLookups extends Step with LocalASTRewriterFactory {
 
   override def preConditions: Set[StepSequencer.Condition] = Set.empty
 
@@ -43,15 +42,21 @@ case object replaceLiteralDynamicPropertyLookups extends Step with ASTRewriterFa
     PatternExpressionsHaveSemanticInfo // It can invalidate this condition by rewriting things inside PatternExpressions.
   )
 
-  val instance: Rewriter = bottomUp(Rewriter.lift {
+  val rule: Rewriter = Rewriter.targeting(classOf[ContainerIndex])(Rewriter.lift {
     case index @ ContainerIndex(expr, lit: StringLiteral) =>
       Property(expr, PropertyKeyName(lit.value)(lit.position))(index.position)
   })
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  val instance: Rewriter = bottomUp(rule)
+
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.BottomUp
+
+  // foldConstants only looks at number literals and arithmetic, and never creates string literals
+  override def nonInteractingSteps: Set[LocalASTRewriterFactory] = Set(foldConstants)
+
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = instance
+  ): Rewriter = rule
 }
@@ -43,10 +43,10 @@ case class rewriteOrderById(semanticState: SemanticState) extends Rewriter {
     semanticState.expressionType(expr).actual == CTNode.invariant ||
       semanticState.expressionType(expr).actual == CTRelationship.invariant
 
-  private val instance = bottomUp(Rewriter.lift {
+  private val instance = bottomUp(Rewriter.targeting(classOf[AscSortItem], classOf[DescSortItem])(Rewriter.lift {
     case si @ AscSortItem(Id(v)) if isEntity(v)  => AscSortItem(v)(si.position)
     case si @ DescSortItem(Id(v)) if isEntity(v) => DescSortItem(v)(si.position)
-  })
+  }))
 
   override def apply(v: AnyRef): AnyRef = instance(v)
 
@@ -15,7 +15,6 @@
  */
 package org.opencypher.v9_0.rewriting.rewriters
 
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.AnyIterablePredicate
 import org.opencypher.v9_0.expressions.AutoExtractedParameter
 import org.opencypher.v9_0.expressions.ContainerIndex
@@ -28,7 +27,7 @@ import org.opencypher.v9_0.expressions.NoneIterablePredicate
 import org.opencypher.v9_0.expressions.Not
 import org.opencypher.v9_0.expressions.SignedDecimalIntegerLiteral
 import org.opencypher.v9_0.rewriting.conditions.SemanticInfoAvailable
-import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.ExactSize
@@ -47,13 +46,17 @@ case object IterablePredicatesRewrittenToIn extends StepSequencer.Condition
  * any(x IN list WHERE x = 1) ==> 1 IN x
  * none(x IN list WHERE x = 2) ==> not(2 IN x)
  */
-case object simplifyIterablePredicates extends StepSequencer.Step with ASTRewriterFactory {
+case object simplifyIterablePredicates extends StepSequencer.Step with LocalASTRewriterFactory {
 
-  val instance: Rewriter = bottomUp(Rewriter.lift {
+  val rule: Rewriter = Rewriter.lift {
     case any @ AnyIterablePredicate(SimpleEqualsFilterScope(inLhs), list) => In(inLhs, list)(any.position)
     case none @ NoneIterablePredicate(SimpleEqualsFilterScope(inLhs), list) =>
       Not(In(inLhs, list)(none.position))(none.position)
-  })
+  }
+
+  val instance: Rewriter = bottomUp(rule)
+
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.BottomUp
 
   override def preConditions: Set[StepSequencer.Condition] = Set(
     RelationshipUniquenessPredicatesInMatchAndMerge // Introduces AnyIterablePredicate and NoneIterablePredicate
@@ -63,12 +66,11 @@ case object simplifyIterablePredicates extends StepSequencer.Step with ASTRewrit
 
   override def invalidatedConditions: Set[StepSequencer.Condition] = SemanticInfoAvailable // Introduces new AST nodes
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = instance
+  ): Rewriter = rule
 }
 
 object SimpleEqualsFilterScope {
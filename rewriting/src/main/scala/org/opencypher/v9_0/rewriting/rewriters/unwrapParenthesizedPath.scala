@@ -15,10 +15,9 @@
  */
 package org.opencypher.v9_0.rewriting.rewriters
 
-import org.opencypher.v9_0.ast.semantics.SemanticState
 import org.opencypher.v9_0.expressions.ParenthesizedPath
 import org.opencypher.v9_0.rewriting.conditions.SemanticInfoAvailable
-import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
 import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
 import org.opencypher.v9_0.util.CypherExceptionFactory
 import org.opencypher.v9_0.util.Rewriter
@@ -38,7 +37,7 @@ case object ParenthesizedPathUnwrapped extends Condition
  *   - juxtaposing (non-quantified) parenthesized path patterns with other parts of the query
  *
  */
-case object unwrapParenthesizedPath extends StepSequencer.Step with ASTRewriterFactory {
+case object unwrapParenthesizedPath extends StepSequencer.Step with LocalASTRewriterFactory {
 
   override def preConditions: Set[StepSequencer.Condition] = Set.empty
 
@@ -46,18 +45,21 @@ case object unwrapParenthesizedPath extends StepSequencer.Step with ASTRewriterF
 
   override def invalidatedConditions: Set[StepSequencer.Condition] = SemanticInfoAvailable
 
-  override def getRewriter(
-    semanticState: SemanticState,
+  override def traversal: LocalASTRewriterFactory.Traversal = LocalASTRewriterFactory.BottomUp
+
+  // Only rewrites ParenthesizedPath, which none of these look at, and creates no nodes
+  override def nonInteractingSteps: Set[LocalASTRewriterFactory] =
+    Set(foldConstants, replaceLiteralDynamicPropertyLookups, parameterValueTypeReplacement)
+
+  override def getLocalRule(
     parameterTypeMapping: Map[String, CypherType],
     cypherExceptionFactory: CypherExceptionFactory,
     anonymousVariableNameGenerator: AnonymousVariableNameGenerator
-  ): Rewriter = {
-    unwrapParenthesizedPath.instance
+  ): Rewriter = rule
+
+  val rule: Rewriter = Rewriter.lift {
+    case p: ParenthesizedPath => p.part.element
   }
 
-  val instance: Rewriter = bottomUp(
-    Rewriter.lift {
-      case p: ParenthesizedPath => p.part.element
-    }
-  )
+  val instance: Rewriter = bottomUp(rule)
 }
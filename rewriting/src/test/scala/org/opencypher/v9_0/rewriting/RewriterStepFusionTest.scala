@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.rewriting
+
+import org.opencypher.v9_0.ast.semantics.SemanticState
+import org.opencypher.v9_0.expressions.Equals
+import org.opencypher.v9_0.expressions.Expression
+import org.opencypher.v9_0.expressions.Not
+import org.opencypher.v9_0.expressions.NotEquals
+import org.opencypher.v9_0.expressions.StringLiteral
+import org.opencypher.v9_0.rewriting.rewriters.factories.ASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.factories.LocalASTRewriterFactory
+import org.opencypher.v9_0.rewriting.rewriters.normalizeNotEquals
+import org.opencypher.v9_0.util.AnonymousVariableNameGenerator
+import org.opencypher.v9_0.util.CypherExceptionFactory
+import org.opencypher.v9_0.util.DummyPosition
+import org.opencypher.v9_0.util.OpenCypherExceptionFactory
+import org.opencypher.v9_0.util.Rewriter
+import org.opencypher.v9_0.util.StepSequencer.Condition
+import org.opencypher.v9_0.util.StepSequencer.Step
+import org.opencypher.v9_0.util.inSequence
+import org.opencypher.v9_0.util.symbols.CypherType
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class RewriterStepFusionTest extends CypherFunSuite {
+
+  private case object condA extends Condition
+  private case object condB extends Condition
+  private case object condC extends Condition
+
+  private val pos = DummyPosition(0)
+
+  // No case classes since we want reference equality
+  private class GlobalStep(
+    name: String,
+    override val preConditions: Set[Condition],
+    override val postConditions: Set[Condition],
+    override val invalidatedConditions: Set[Condition]
+  ) extends Step with ASTRewriterFactory {
+
+    override def getRewriter(
+      semanticState: SemanticState,
+      parameterTypeMapping: Map[String, CypherType],
+      cypherExceptionFactory: CypherExceptionFactory,
+      anonymousVariableNameGenerator: AnonymousVariableNameGenerator
+    ): Rewriter = Rewriter.noop
+
+    override def toString: String = s"GlobalStep($name)"
+  }
+
+  private class LocalStep(
+    name: String,
+    override val traversal: LocalASTRewriterFactory.Traversal,
+    override val preConditions: Set[Condition],
+    override val postConditions: Set[Condition],
+    override val invalidatedConditions: Set[Condition],
+    rule: Rewriter = Rewriter.noop
+  ) extends Step with LocalASTRewriterFactory {
+
+    var declaredNonInteracting: Set[LocalASTRewriterFactory] = Set.empty
+
+    override def nonInteractingSteps: Set[LocalASTRewriterFactory] = declaredNonInteracting
+
+    override def getLocalRule(
+      parameterTypeMapping: Map[String, CypherType],
+      cypherExceptionFactory: CypherExceptionFactory,
+      anonymousVariableNameGenerator: AnonymousVariableNameGenerator
+    ): Rewriter = rule
+
+    override def toString: String = s"LocalStep($name)"
+  }
+
+  private def topDownStep(name: String, pre: Set[Condition], post: Set[Condition], inv: Set[Condition] = Set.empty) =
+    new LocalStep(name, LocalASTRewriterFactory.TopDown, pre, post, inv)
+
+  private def declareNonInteracting(steps: Seq[Step]): Unit = {
+    val localSteps = steps.collect { case step: LocalStep => step }
+    localSteps.foreach(step => step.declaredNonInteracting = localSteps.toSet - step)
+  }
+
+  test("steps without shared conditions are independent") {
+    RewriterStepFusion.independent(
+      topDownStep("0", Set.empty, Set(condA)),
+      topDownStep("1", Set.empty, Set(condB))
+    ) shouldBe true
+  }
+
+  test("steps that invalidate or require the same conditions are independent") {
+    RewriterStepFusion.independent(
+      topDownStep("0", Set(condC), Set(condA)),
+      topDownStep("1", Set(condC), Set(condB))
+    ) shouldBe true
+
+    RewriterStepFusion.independent(
+      topDownStep("0", Set.empty, Set(condA), Set(condC)),
+      topDownStep("1", Set.empty, Set(condB), Set(condC))
+    ) shouldBe true
+  }
+
+  test("a step that requires the post-condition of another step depends on it") {
+    RewriterStepFusion.independent(
+      topDownStep("0", Set.empty, Set(condA)),
+      topDownStep("1", Set(condA), Set(condB))
+    ) shouldBe false
+  }
+
+  test("a step that requires the negation of the post-condition of another step depends on it") {
+    RewriterStepFusion.independent(
+      topDownStep("0", Set.empty, Set(condA)),
+      topDownStep("1", Set(!condA), Set(condB))
+    ) shouldBe false
+  }
+
+  test("a step that invalidates the post-condition of another step depends on it") {
+    RewriterStepFusion.independent(
+      topDownStep("0", Set.empty, Set(condA)),
+      topDownStep("1", Set.empty, Set(condB), Set(condA))
+    ) shouldBe false
+  }
+
+  test("a step that invalidates a pre-condition of another step depends on it") {
+    RewriterStepFusion.independent(
+      topDownStep("0", Set.empty, Set(condA), Set(condC)),
+      topDownStep("1", Set(condC), Set(condB))
+    ) shouldBe false
+  }
+
+  test("fuses consecutive independent, non-interacting local steps with the same traversal") {
+    val steps = Seq(
+      topDownStep("0", Set.empty, Set(condA)),
+      topDownStep("1", Set.empty, Set(condB)),
+      topDownStep("2", Set.empty, Set(condC))
+    )
+    declareNonInteracting(steps)
+    RewriterStepFusion.fuse(steps).map(_.steps) should equal(Seq(steps))
+  }
+
+  test("fuses steps if only one of them declares the other one") {
+    val steps = Seq(
+      topDownStep("0", Set.empty, Set(condA)),
+      topDownStep("1", Set.empty, Set(condB))
+    )
+    steps.last.declaredNonInteracting = Set(steps.head)
+    RewriterStepFusion.fuse(steps).map(_.steps) should equal(Seq(steps))
+  }
+
+  test("does not fuse independent steps that are not declared non-interacting") {
+    val steps = Seq(
+      topDownStep("0", Set.empty, Set(condA)),
+      topDownStep("1", Set.empty, Set(condB)),
+      topDownStep("2", Set.empty, Set(condC))
+    )
+    declareNonInteracting(steps.take(2))
+    RewriterStepFusion.fuse(steps).map(_.steps) should equal(Seq(steps.take(2), steps.drop(2)))
+  }
+
+  test("does not fuse dependent steps") {
+    val steps = Seq(
+      topDownStep("0", Set.empty, Set(condA)),
+      topDownStep("1", Set.empty, Set(condB)),
+      topDownStep("2", Set(condA), Set(condC))
+    )
+    declareNonInteracting(steps)
+    RewriterStepFusion.fuse(steps).map(_.steps) should equal(Seq(steps.take(2), steps.drop(2)))
+  }
+
+  test("does not fuse steps with different traversals") {
+    val steps = Seq(
+      topDownStep("0", Set.empty, Set(condA)),
+      new LocalStep("1", LocalASTRewriterFactory.BottomUp, Set.empty, Set(condB), Set.empty)
+    )
+    declareNonInteracting(steps)
+    RewriterStepFusion.fuse(steps).map(_.steps) should equal(steps.map(Seq(_)))
+  }
+
+  test("does not fuse steps that are not local") {
+    val steps = Seq[Step with ASTRewriterFactory](
+      topDownStep("0", Set.empty, Set(condA)),
+      new GlobalStep("1", Set.empty, Set(condB), Set.empty),
+      topDownStep("2", Set.empty, Set(condC))
+    )
+    declareNonInteracting(steps)
+    RewriterStepFusion.fuse(steps).map(_.steps) should equal(steps.map(Seq(_)))
+  }
+
+  test("moves a step that can be fused next to the steps it is fused with") {
+    val steps = Seq[Step with ASTRewriterFactory](
+      topDownStep("0", Set.empty, Set(condA)),
+      new GlobalStep("1", Set.empty, Set(condB), Set.empty),
+      topDownStep("2", Set.empty, Set(condC))
+    )
+    declareNonInteracting(steps)
+
+    val grouped = RewriterStepFusion.groupFusable(steps)
+
+    grouped should equal(Seq(steps(0), steps(2), steps(1)))
+    RewriterStepFusion.fuse(grouped).map(_.steps) should equal(Seq(Seq(steps(0), steps(2)), Seq(steps(1))))
+  }
+
+  test("does not move a step past a step it depends on") {
+    val steps = Seq[Step with ASTRewriterFactory](
+      topDownStep("0", Set.empty, Set(condA)),
+      new GlobalStep("1", Set.empty, Set(condB), Set.empty),
+      topDownStep("2", Set(condB), Set(condC))
+    )
+    declareNonInteracting(steps)
+
+    RewriterStepFusion.groupFusable(steps) should equal(steps)
+  }
+
+  test("a fused rewriter gives the same result as the rewriters applied in sequence") {
+    val quoteStrings = new LocalStep(
+      "quoteStrings",
+      LocalASTRewriterFactory.TopDown,
+      Set.empty,
+      Set(condA),
+      Set.empty,
+      Rewriter.lift {
+        case s @ StringLiteral(value) => StringLiteral(s"'$value'")(s.position)
+      }
+    )
+    quoteStrings.declaredNonInteracting = Set(normalizeNotEquals)
+    val steps = Seq(normalizeNotEquals, quoteStrings)
+    val fused = RewriterStepFusion.fuse(steps)
+    fused should have size 1
+
+    val exceptionFactory = OpenCypherExceptionFactory(None)
+    val nameGenerator = new AnonymousVariableNameGenerator
+    val input: Expression =
+      NotEquals(StringLiteral("a")(pos), StringLiteral("b")(pos))(pos)
+
+    val fusedRewriter = fused.head.getRewriter(SemanticState.clean, Map.empty, exceptionFactory, nameGenerator)
+    val sequentialRewriter =
+      inSequence(steps.map(_.getRewriter(SemanticState.clean, Map.empty, exceptionFactory, nameGenerator)): _*)
+
+    val fusedResult = input.endoRewrite(fusedRewriter)
+    val sequentialResult = input.endoRewrite(sequentialRewriter)
+
+    fusedResult should equal(sequentialResult)
+    fusedResult should equal(Not(Equals(StringLiteral("'a'")(pos), StringLiteral("'b'")(pos))(pos))(pos))
+  }
+}
@@ -16,6 +16,10 @@
 package org.opencypher.v9_0.util
 
 import org.opencypher.v9_0.util.Rewritable.IteratorEq
+import org.opencypher.v9_0.util.attribution.Id
+import org.opencypher.v9_0.util.attribution.NodeIds
+
+import scala.util.hashing.MurmurHash3
 
 trait ASTNode extends Product with Foldable with Rewritable {
 
@@ -23,18 +27,74 @@ trait ASTNode extends Product with Foldable with Rewritable {
 
   def position: InputPosition
 
+  // AST nodes are immutable, so their structural hash can be computed once, on first use.
+  // Like String.hashCode, a race between threads only means that it is computed more than once.
+  private[this] var memoizedHashCode: Int = 0
+
+  /**
+   * The structural hash of this node, as the one generated for case classes, but cached.
+   * Subclasses that define their own equality still override this.
+   */
+  override def hashCode(): Int = {
+    var h = memoizedHashCode
+    if (h == 0) {
+      h = MurmurHash3.productHash(this)
+      memoizedHashCode = h
+    }
+    h
+  }
+
+  // Opt-in compact id, see attribution.NodeIds for how it is encoded. Volatile, since trees with ids can be shared
+  // between threads. Only changed through compareAndSetNodeIdState.
+  @volatile private[this] var idState: Int = NodeIds.NO_ID
+
+  /**
+   * The id assigned to this node by [[attribution.NodeIds]], or [[Id.INVALID_ID]].
+   *
+   * Ids are dense, so attributes of nodes can be kept in arrays indexed by id.
+   * Nodes rewritten through [[dup]] keep the id of the node they replace, so such attributes still apply to them.
+   * If a rewrite leaves several nodes with the id of one node, [[attribution.NodeIds.assign]] gives new ids to the
+   * copies, and never to a node that already got its id in a tree.
+   */
+  def nodeId: Id = Id(NodeIds.idOf(idState))
+
+  def hasNodeId: Boolean = idState != NodeIds.NO_ID
+
+  /**
+   * Gives this node the id of `original`, unless this node has an id already.
+   * Use this when creating a node that replaces `original` without going through [[dup]].
+   */
+  def withNodeIdOf(original: ASTNode): this.type = {
+    if (original.hasNodeId) inheritNodeId(original.nodeId)
+    this
+  }
+
+  private[util] def nodeIdState: Int = idState
+
+  private[util] def compareAndSetNodeIdState(expected: Int, update: Int): Boolean = synchronized {
+    val matches = idState == expected
+    if (matches) idState = update
+    matches
+  }
+
+  private def inheritNodeId(id: Id): Unit =
+    compareAndSetNodeIdState(NodeIds.NO_ID, NodeIds.inherited(id.x))
+
+  // The summary of the types in the subtree of this node, see NodeKinds. Zero until computed.
+  @volatile private[util] var memoizedSubtreeKinds: Long = 0L
+
   def dup(children: Seq[AnyRef]): this.type =
     if (children.iterator eqElements this.treeChildren)
       this
     else {
       val constructor = Rewritable.copyConstructor(this)
-      val params = constructor.getParameterTypes
-      val args = children.toVector
-      val hasExtraParam = params.length == args.length + 1
-      val lastParamIsPos = params.last.isAssignableFrom(classOf[InputPosition])
-      val ctorArgs = if (hasExtraParam && lastParamIsPos) args :+ this.position else args
-      val duped = constructor.invoke(this, ctorArgs: _*)
-      duped.asInstanceOf[self.type]
+      val hasExtraParam = constructor.parameterTypes.length == children.length + 1
+      val ctorArgs =
+        if (hasExtraParam && constructor.lastParamIsPosition) (children :+ this.position).toArray[AnyRef]
+        else children.toArray[AnyRef]
+      val duped = constructor.copy(this, ctorArgs).asInstanceOf[self.type]
+      if (hasNodeId) duped.inheritNodeId(nodeId)
+      duped
     }
 
   def asCanonicalStringVal: String = toString
@@ -186,3 +186,79 @@ final case class WorkReduction(fraction: Selectivity, minimum: Option[Cardinalit
 object WorkReduction {
   val NoReduction: WorkReduction = WorkReduction(Selectivity.ONE, None)
 }
+
+/**
+ * An allocation-free [[Cardinality]], for code that compares and combines many cardinalities in tight loops.
+ *
+ * The value classes of the cost model compute exactly what the case classes they stand for compute.
+ * Methods of a value class cannot be overloaded on other value classes of the same underlying type,
+ * so each of them only combines with the one type that it is combined with most.
+ */
+final class CardinalityValue(val amount: Double) extends AnyVal {
+  def compare(that: CardinalityValue): Int = java.lang.Double.compare(amount, that.amount)
+  def <(that: CardinalityValue): Boolean = compare(that) < 0
+  def >(that: CardinalityValue): Boolean = compare(that) > 0
+  def +(that: CardinalityValue): CardinalityValue = new CardinalityValue(amount + that.amount)
+
+  def *(that: SelectivityValue): CardinalityValue =
+    if (that.factor == 0) CardinalityValue.EMPTY else new CardinalityValue(amount * that.factor)
+
+  def toCardinality: Cardinality = Cardinality(amount)
+}
+
+object CardinalityValue {
+  val EMPTY: CardinalityValue = new CardinalityValue(0)
+
+  def apply(cardinality: Cardinality): CardinalityValue = new CardinalityValue(cardinality.amount)
+}
+
+/**
+ * An allocation-free [[Cost]], see [[CardinalityValue]].
+ */
+final class CostValue(val gummyBears: Double) extends AnyVal {
+  def compare(that: CostValue): Int = java.lang.Double.compare(gummyBears, that.gummyBears)
+  def <(that: CostValue): Boolean = compare(that) < 0
+  def >(that: CostValue): Boolean = compare(that) > 0
+  def +(that: CostValue): CostValue = new CostValue(that.gummyBears + gummyBears)
+  def *(that: MultiplierValue): CostValue = new CostValue(gummyBears * that.coefficient)
+  def toCost: Cost = Cost(gummyBears)
+}
+
+object CostValue {
+  val ZERO: CostValue = new CostValue(0)
+
+  def apply(cost: Cost): CostValue = new CostValue(cost.gummyBears)
+}
+
+/**
+ * An allocation-free [[CostPerRow]], see [[CardinalityValue]].
+ */
+final class CostPerRowValue(val cost: Double) extends AnyVal {
+  def compare(that: CostPerRowValue): Int = java.lang.Double.compare(cost, that.cost)
+  def +(that: CostPerRowValue): CostPerRowValue = new CostPerRowValue(cost + that.cost)
+
+  /** The cost for `cardinality` rows, like `cardinality * costPerRow`. */
+  def *(cardinality: CardinalityValue): CostValue = new CostValue(cardinality.amount * cost)
+  def toCostPerRow: CostPerRow = CostPerRow(cost)
+}
+
+object CostPerRowValue {
+  def apply(costPerRow: CostPerRow): CostPerRowValue = new CostPerRowValue(costPerRow.cost)
+}
+
+/**
+ * An allocation-free [[Multiplier]], see [[CardinalityValue]].
+ */
+final class MultiplierValue(val coefficient: Double) extends AnyVal {
+  def compare(that: MultiplierValue): Int = java.lang.Double.compare(coefficient, that.coefficient)
+  def +(that: MultiplierValue): MultiplierValue = new MultiplierValue(that.coefficient + coefficient)
+  def *(that: MultiplierValue): MultiplierValue = new MultiplierValue(that.coefficient * coefficient)
+  def toMultiplier: Multiplier = Multiplier(coefficient)
+}
+
+object MultiplierValue {
+  def apply(multiplier: Multiplier): MultiplierValue = new MultiplierValue(multiplier.coefficient)
+
+  /** The multiplier of a cardinality, to multiply costs with, like `cost * cardinality` with [[Cost]]. */
+  def apply(cardinality: CardinalityValue): MultiplierValue = new MultiplierValue(cardinality.amount)
+}
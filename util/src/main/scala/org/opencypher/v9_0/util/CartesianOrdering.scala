@@ -21,18 +21,28 @@ package org.opencypher.v9_0.util
  */
 object VolcanoCartesianOrdering extends CartesianOrdering {
 
-  override def compare(side0: (Cost, Cardinality), side1: (Cost, Cardinality)): Int = {
-    costFor(side0, side1).compare(costFor(side1, side0))
-  }
+  override def compare(side0: (Cost, Cardinality), side1: (Cost, Cardinality)): Int =
+    compare(side0._1.gummyBears, side0._2.amount, side1._1.gummyBears, side1._2.amount)
+
+  /**
+   * Compares two sides, given by their costs `c0`, `c1` and their cardinalities `s0`, `s1`.
+   */
+  def compare(c0: Double, s0: Double, c1: Double, s1: Double): Int =
+    java.lang.Double.compare(costFor(c0, s0, c1), costFor(c1, s1, c0))
+
+  /**
+   * The indices of the sides given by the parallel arrays `costs` and `cardinalities`,
+   * in the order in which sorting the `(Cost, Cardinality)` pairs by this ordering would put them.
+   */
+  def sortedIndices(costs: Array[Double], cardinalities: Array[Double]): Array[Int] =
+    IndexSort.sortedIndices(costs.length, (i, j) => compare(costs(i), cardinalities(i), costs(j), cardinalities(j)))
 
   /**
    * The cost for CartesianProduct(side0, side1)
    */
-  private def costFor(side0: (Cost, Cardinality), side1: (Cost, Cardinality)): Cost = (side0, side1) match {
-    case ((cost0, Cardinality(card0)), (cost1, _)) =>
-      // side0 needs to be executed once. side1 is executed card0 times.
-      cost0 + cost1 * card0
-  }
+  private def costFor(c0: Double, s0: Double, c1: Double): Double =
+    // side0 needs to be executed once. side1 is executed s0 times.
+    c0 + c1 * s0
 }
 
 /**
@@ -76,15 +86,25 @@ object VolcanoCartesianOrdering extends CartesianOrdering {
  */
 class BatchedCartesianOrdering(batchSize: Int) extends CartesianOrdering {
 
-  override def compare(side0: (Cost, Cardinality), side1: (Cost, Cardinality)): Int = {
-    costFor(side0, side1).compare(costFor(side1, side0))
-  }
+  override def compare(side0: (Cost, Cardinality), side1: (Cost, Cardinality)): Int =
+    compare(side0._1.gummyBears, side0._2.amount, side1._1.gummyBears, side1._2.amount)
+
+  /**
+   * Compares two sides, given by their costs `c0`, `c1` and their cardinalities `s0`, `s1`.
+   */
+  def compare(c0: Double, s0: Double, c1: Double, s1: Double): Int =
+    java.lang.Double.compare(costFor(c0, s0, c1), costFor(c1, s1, c0))
+
+  /**
+   * The indices of the sides given by the parallel arrays `costs` and `cardinalities`,
+   * in the order in which sorting the `(Cost, Cardinality)` pairs by this ordering would put them.
+   */
+  def sortedIndices(costs: Array[Double], cardinalities: Array[Double]): Array[Int] =
+    IndexSort.sortedIndices(costs.length, (i, j) => compare(costs(i), cardinalities(i), costs(j), cardinalities(j)))
 
   /**
    * The cost for CartesianProduct(side0, side1)
    */
-  private def costFor(side0: (Cost, Cardinality), side1: (Cost, Cardinality)): Cost = (side0, side1) match {
-    case ((cost0, Cardinality(card0)), (cost1, _)) =>
-      cost0 + cost1 * Math.ceil(card0 / batchSize)
-  }
+  private def costFor(c0: Double, s0: Double, c1: Double): Double =
+    c0 + c1 * Math.ceil(s0 / batchSize)
 }
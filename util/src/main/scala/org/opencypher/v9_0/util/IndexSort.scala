@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.util
+
+/**
+ * Sorts the indices of elements that are stored in parallel arrays of primitives, without boxing them into tuples.
+ *
+ * The indices are sorted with `java.util.Arrays.sort`, which is what sorting a Scala collection with an [[Ordering]]
+ * does. The comparator is asked the same comparisons in the same order as the ordering would be, so the result is the
+ * same even for comparisons that are not transitive, such as comparisons with a tolerance.
+ */
+private[util] object IndexSort {
+
+  /**
+   * Compares the elements at two indices.
+   */
+  trait IndexComparator {
+    def compare(i: Int, j: Int): Int
+  }
+
+  /**
+   * The indices `0 until size`, sorted by `comparator`.
+   */
+  def sortedIndices(size: Int, comparator: IndexComparator): Array[Int] = {
+    val boxed = new Array[Integer](size)
+    var i = 0
+    while (i < size) {
+      boxed(i) = Integer.valueOf(i)
+      i += 1
+    }
+    java.util.Arrays.sort(boxed, (a: Integer, b: Integer) => comparator.compare(a.intValue(), b.intValue()))
+
+    val indices = new Array[Int](size)
+    i = 0
+    while (i < size) {
+      indices(i) = boxed(i).intValue()
+      i += 1
+    }
+    indices
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.util
+
+import org.opencypher.v9_0.util.Foldable.TreeAny
+
+import scala.collection.mutable
+
+/**
+ * A set of AST node types, which can be looked for in a tree without traversing it.
+ *
+ * Every type that is used in some [[NodeKinds]] is registered and gets a bit of its own.
+ * Each [[ASTNode]] caches a summary of its subtree, with the bits of all registered types that any node of the subtree
+ * is an instance of. Whether a tree contains an instance of these types is then answered from the summary of its root.
+ *
+ * Summaries are computed on first use, and only for the types that were registered at that point.
+ * A summary that predates the registration of some of the types is computed again, so registering types late is
+ * correct, but costs a traversal of the trees whose summaries are already known. Types are best registered once,
+ * in a `val` of the code that looks for them.
+ *
+ * Only [[NodeKinds.Capacity]] types get a bit. Beyond that, lookups fall back to traversing the tree.
+ */
+final class NodeKinds private (private val types: Array[Class[_]], private val mask: Long) {
+
+  private val exact = (mask & NodeKinds.Unknown) == 0
+
+  // the number of registered types a summary has to have been computed with to cover these types
+  private val generation = 64 - java.lang.Long.numberOfLeadingZeros(mask & NodeKinds.KindBits)
+
+  private def isInstance(node: Any): Boolean = types.exists(_.isInstance(node))
+
+  /**
+   * Whether the tree contains an instance of one of these types. For AST nodes, this takes constant time once the
+   * summary of the node is known.
+   */
+  def existIn(tree: Any): Boolean = tree match {
+    case node: ASTNode if exact => (NodeKinds.subtreeKinds(node, generation) & mask) != 0
+    case node: ASTNode          => node.folder.treeExists { case x if isInstance(x) => true }
+    case other                  => other.treeChildren.exists(existIn)
+  }
+
+  /**
+   * False if the tree is an AST node that does not contain an instance of one of these types. True otherwise.
+   */
+  def mightExistIn(tree: Any): Boolean = tree match {
+    case node: ASTNode if exact => (NodeKinds.subtreeKinds(node, generation) & mask) != 0
+    case _                      => true
+  }
+
+  def union(other: NodeKinds): NodeKinds = NodeKinds(types.toSeq ++ other.types: _*)
+
+  override def toString: String = types.map(_.getSimpleName).mkString("NodeKinds(", ", ", ")")
+}
+
+object NodeKinds {
+
+  /**
+   * The number of types that get a bit of their own.
+   */
+  val Capacity = 48
+
+  private val KindBits = (1L << Capacity) - 1
+  private val GenerationShift = Capacity
+  private val GenerationBits = 0xffL << GenerationShift
+
+  // Set in the mask of kinds with a type that did not get a bit. Set in summaries to tell them apart from no summary.
+  private val Unknown = Long.MinValue
+
+  private val registered = new Array[Class[_]](Capacity)
+  @volatile private var registeredCount = 0
+  private val bitOfType = mutable.Map.empty[Class[_], Long]
+
+  def apply(types: Class[_]*): NodeKinds = {
+    val mask = types.foldLeft(0L)((mask, t) => mask | register(t))
+    new NodeKinds(types.distinct.toArray, mask)
+  }
+
+  private def register(t: Class[_]): Long = synchronized {
+    bitOfType.getOrElseUpdate(
+      t, {
+        val count = registeredCount
+        if (count < Capacity) {
+          registered(count) = t
+          registeredCount = count + 1
+          1L << count
+        } else {
+          Unknown
+        }
+      }
+    )
+  }
+
+  /**
+   * The bits of the registered types, among the first `generation` ones, that the class is a subtype of.
+   */
+  final private class ClassKinds(cls: Class[_]) {
+    @volatile private var kinds: Long = 0L
+
+    def apply(generation: Int): Long = {
+      val known = kinds
+      if (generationOf(known) >= generation) {
+        known
+      } else {
+        val count = registeredCount
+        var computed = Unknown | (count.toLong << GenerationShift)
+        var i = 0
+        while (i < count) {
+          if (registered(i).isAssignableFrom(cls)) computed |= 1L << i
+          i += 1
+        }
+        kinds = computed
+        computed
+      }
+    }
+  }
+
+  private val classKinds = new ClassValue[ClassKinds] {
+    override def computeValue(cls: Class[_]): ClassKinds = new ClassKinds(cls)
+  }
+
+  private def generationOf(kinds: Long): Int =
+    if ((kinds & Unknown) == 0) -1 else ((kinds & GenerationBits) >>> GenerationShift).toInt
+
+  /**
+   * The summary of the subtree of `root`, computed with at least `generation` registered types.
+   */
+  private[util] def subtreeKinds(root: ASTNode, generation: Int): Long = {
+    val known = root.memoizedSubtreeKinds
+    if (generationOf(known) >= generation) known
+    else computeSubtreeKinds(root, generation)
+  }
+
+  // Computes the summaries of all nodes in the subtree that are missing or too old, children first,
+  // with an explicit stack so that deep trees do not overflow the call stack.
+  private def computeSubtreeKinds(root: ASTNode, generation: Int): Long = {
+    val stack = mutable.ArrayBuffer[ASTNode](root)
+    while (stack.nonEmpty) {
+      val node = stack.last
+      if (generationOf(node.memoizedSubtreeKinds) >= generation) {
+        stack.remove(stack.size - 1)
+      } else {
+        val children = astChildren(node)
+        val pending = children.filter(child => generationOf(child.memoizedSubtreeKinds) < generation)
+        if (pending.isEmpty) {
+          var kinds = classKinds.get(node.getClass)(generation)
+          val newGeneration = generationOf(kinds)
+          children.foreach { child =>
+            val childKinds = child.memoizedSubtreeKinds
+            // A child summarised with fewer types than the class of this node was is recomputed next time.
+            kinds = (kinds | (childKinds & KindBits)) & ~GenerationBits |
+              (math.min(newGeneration, generationOf(childKinds)).toLong << GenerationShift)
+          }
+          node.memoizedSubtreeKinds = kinds
+          stack.remove(stack.size - 1)
+        } else {
+          stack ++= pending
+        }
+      }
+    }
+    root.memoizedSubtreeKinds
+  }
+
+  // The AST nodes directly below `node`, looking through collections, options and tuples.
+  private def astChildren(node: ASTNode): Seq[ASTNode] = {
+    val result = mutable.ArrayBuffer.empty[ASTNode]
+    val remaining = mutable.ArrayBuffer.empty[AnyRef]
+    remaining ++= node.treeChildren
+    while (remaining.nonEmpty) {
+      remaining.remove(remaining.size - 1) match {
+        case child: ASTNode => result += child
+        case other          => remaining ++= other.treeChildren
+      }
+    }
+    result.toSeq
+  }
+}
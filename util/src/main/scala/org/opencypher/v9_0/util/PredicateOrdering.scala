@@ -54,12 +54,29 @@ package org.opencypher.v9_0.util
  */
 object PredicateOrdering extends Ordering[(CostPerRow, Selectivity)] {
 
-  override def compare(predicate0: (CostPerRow, Selectivity), predicate1: (CostPerRow, Selectivity)): Int = {
-    val cost01 = costFor(predicate0, predicate1)
-    val cost10 = costFor(predicate1, predicate0)
+  override def compare(predicate0: (CostPerRow, Selectivity), predicate1: (CostPerRow, Selectivity)): Int =
+    compare(predicate0._1.cost, predicate0._2.factor, predicate1._1.cost, predicate1._2.factor)
+
+  /**
+   * Compares two predicates, given by their costs per row `c0`, `c1` and their selectivities `s0`, `s1`.
+   */
+  def compare(c0: Double, s0: Double, c1: Double, s1: Double): Int = {
+    val cost01 = costFor(c0, s0, c1)
+    val cost10 = costFor(c1, s1, c0)
     compareWithTolerance(cost01, cost10)
   }
 
+  /**
+   * The indices of the predicates given by the parallel arrays `costsPerRow` and `selectivities`,
+   * in the order in which sorting the `(CostPerRow, Selectivity)` pairs by this ordering would put them.
+   * This holds even for costs that are equal within the tolerance of this ordering, which is not transitive.
+   */
+  def sortedIndices(costsPerRow: Array[Double], selectivities: Array[Double]): Array[Int] =
+    IndexSort.sortedIndices(
+      costsPerRow.length,
+      (i, j) => compare(costsPerRow(i), selectivities(i), costsPerRow(j), selectivities(j))
+    )
+
   private def compareWithTolerance(a: Double, b: Double): Int = {
     if (math.abs(a - b) <= 0.000001) 0
     else if (a < b) -1
@@ -69,11 +86,8 @@ object PredicateOrdering extends Ordering[(CostPerRow, Selectivity)] {
   /**
    * The cost per row for evaluating first predicate0 and then predicate1.
    */
-  private def costFor(predicate0: (CostPerRow, Selectivity), predicate1: (CostPerRow, Selectivity)): Double =
-    (predicate0, predicate1) match {
-      case ((CostPerRow(c0), Selectivity(s0)), (CostPerRow(c1), _)) =>
-        // predicate0 needs to be evaluated on all rows.
-        // predicate1 only on those where predicate0==true
-        c0 + c1 * s0
-    }
+  private def costFor(c0: Double, s0: Double, c1: Double): Double =
+    // predicate0 needs to be evaluated on all rows.
+    // predicate1 only on those where predicate0==true
+    c0 + c1 * s0
 }
@@ -18,22 +18,51 @@ package org.opencypher.v9_0.util
 import org.opencypher.v9_0.util.Foldable.TreeAny
 import org.opencypher.v9_0.util.Rewritable.RewritableAny
 
+import java.lang.invoke.MethodHandle
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType
 import java.lang.reflect.Method
 
-import scala.annotation.tailrec
 import scala.collection.IterableFactory
 import scala.collection.immutable.ListSet
 import scala.collection.mutable
-import scala.collection.mutable.ListBuffer
 
 object Rewriter {
 
   def lift(f: PartialFunction[AnyRef, AnyRef]): Rewriter =
     f.orElse({ case x => x })
 
+  /**
+   * Declares that `rewriter` only changes nodes that are instances of `types`, and leaves all other nodes as they are.
+   * [[topDown]], [[bottomUp]] and [[bottomUpWithRecorder]] then skip the subtrees that contain no such node.
+   */
+  def targeting(types: Class[_]*)(rewriter: Rewriter): Rewriter =
+    new TargetedRewriter(NodeKinds(types: _*), rewriter)
+
   val noop: Rewriter = Rewriter.lift(PartialFunction.empty)
 }
 
+/**
+ * A rewriter that only changes nodes that are instances of `targets`, see [[Rewriter.targeting]].
+ */
+final class TargetedRewriter(val targets: NodeKinds, rewriter: Rewriter) extends Rewriter {
+  override def apply(that: AnyRef): AnyRef = rewriter(that)
+}
+
+object TargetedRewriter {
+
+  /**
+   * The stopper for a traversal that applies `rewriter` at every node:
+   * if `rewriter` is targeted, the traversal also stops at subtrees without any of its targets.
+   */
+  private[util] def pruning(rewriter: Rewriter, stopper: AnyRef => Boolean): AnyRef => Boolean = rewriter match {
+    case targeted: TargetedRewriter =>
+      val targets = targeted.targets
+      node => stopper(node) || !targets.mightExistIn(node)
+    case _ => stopper
+  }
+}
+
 object RewriterWithParent {
 
   def lift(f: PartialFunction[(AnyRef, Option[AnyRef]), AnyRef]): RewriterWithParent =
@@ -53,28 +82,46 @@ object Rewritable {
     }
   }
 
-  private val productCopyConstructors = new ThreadLocal[mutable.HashMap[Class[_], Method]]() {
-
-    override def initialValue: mutable.HashMap[Class[_], Method] =
-      new mutable.HashMap[Class[_], Method]
+  /**
+   * The `copy` method of a case class, adapted into a [[MethodHandle]] that takes the new children as an array.
+   *
+   * Compared to [[Method.invoke]], this avoids access checks, the varargs wrapping and the exception wrapping
+   * on every call, and lets the JIT inline the call site once it is hot.
+   */
+  final class CopyConstructor private[Rewritable] (method: Method) {
+    val parameterTypes: Array[Class[_]] = method.getParameterTypes
+
+    /**
+     * Whether the last parameter of the copy method can take an [[InputPosition]].
+     */
+    val lastParamIsPosition: Boolean =
+      parameterTypes.nonEmpty && parameterTypes.last.isAssignableFrom(classOf[InputPosition])
+
+    private val handle: MethodHandle =
+      MethodHandles.lookup()
+        .unreflect(method)
+        .asType(MethodType.genericMethodType(parameterTypes.length + 1))
+        .asSpreader(classOf[Array[AnyRef]], parameterTypes.length)
+
+    def copy(product: AnyRef, args: Array[AnyRef]): AnyRef =
+      handle.invokeExact(product, args): AnyRef
   }
 
-  def copyConstructor(product: Product): Method = {
-    def getCopyMethod(productClass: Class[_ <: Product]): Method = {
-      try {
-        productClass.getMethods.find(_.getName == "copy").get
-      } catch {
-        case _: NoSuchElementException =>
-          throw new IllegalStateException(
-            s"Failed trying to rewrite $productClass - this class does not have a `copy` method"
-          )
+  private val productCopyConstructors = new ClassValue[CopyConstructor] {
+
+    override def computeValue(productClass: Class[_]): CopyConstructor = {
+      val copyMethod = productClass.getMethods.find(_.getName == "copy").getOrElse {
+        throw new IllegalStateException(
+          s"Failed trying to rewrite $productClass - this class does not have a `copy` method"
+        )
       }
+      new CopyConstructor(copyMethod)
     }
-
-    val productClass = product.getClass
-    productCopyConstructors.get.getOrElseUpdate(productClass, getCopyMethod(productClass))
   }
 
+  def copyConstructor(product: Product): CopyConstructor =
+    productCopyConstructors.get(product.getClass)
+
   def dupAny(that: AnyRef, children: Seq[AnyRef]): AnyRef =
     try {
       if (children.iterator eqElements that.treeChildren) {
@@ -96,13 +143,13 @@ object Rewritable {
           case _: collection.Map[_, _] =>
             children.map(value => value.asInstanceOf[(String, AnyRef)]).toMap
           case p: Product =>
-            copyConstructor(p).invoke(p, children: _*)
+            copyConstructor(p).copy(p, children.toArray[AnyRef])
           case t =>
             t
         }
       }
     } catch {
-      case e: IllegalArgumentException =>
+      case e @ (_: IllegalArgumentException | _: ClassCastException) =>
         throw new IllegalStateException(s"Failed rewriting $that\nTried using children: ${children.mkString(",")}", e)
     }
 
@@ -113,7 +160,7 @@ object Rewritable {
       if (children.iterator eqElements product.treeChildren)
         product
       else
-        copyConstructor(product).invoke(product, children: _*).asInstanceOf[Product]
+        copyConstructor(product).copy(product, children.toArray[AnyRef]).asInstanceOf[Product]
   }
 
   implicit class RewritableAny[T <: AnyRef](val that: T) extends AnyVal {
@@ -174,65 +221,185 @@ object inSequence {
     }
   }
 
-  def apply(rewriters: Rewriter*): Rewriter =
-    new InSequenceRewriter(rewriters)
+  /**
+   * If all rewriters are targeted, so is the sequence, at the union of their targets:
+   * a node that none of them targets is left unchanged by the first one, and so on.
+   */
+  def apply(rewriters: Rewriter*): Rewriter = {
+    val sequence = new InSequenceRewriter(rewriters)
+    if (rewriters.nonEmpty && rewriters.forall(_.isInstanceOf[TargetedRewriter])) {
+      val targets = rewriters.map(_.asInstanceOf[TargetedRewriter].targets).reduce(_ union _)
+      new TargetedRewriter(targets, sequence)
+    } else {
+      sequence
+    }
+  }
 
   def apply(cancellation: CancellationChecker)(rewriters: Rewriter*): Rewriter =
     new InSequenceRewriterWithCancel(rewriters, cancellation)
 }
 
-object topDown {
+/**
+ * The traversal shared by [[topDown]], [[topDownWithParent]], [[bottomUp]] and [[bottomUpWithRecorder]].
+ *
+ * The nodes whose children are being rewritten are kept on array-backed stacks, together with an iterator over their
+ * children. A buffer for the new children of a node is only allocated once one of them has actually changed,
+ * so that subtrees which are left unchanged are neither copied nor cause any allocation apart from the iterators.
+ */
+private[util] abstract class StackRewriter(stopper: AnyRef => Boolean, cancellation: CancellationChecker)
+    extends Rewriter {
+
+  /**
+   * Called before the children of `node` are rewritten.
+   *
+   * @param parent the node (as returned by this method) whose children `node` is one of, or null for the root.
+   * @return the node whose children should be rewritten.
+   */
+  protected def beforeChildren(node: AnyRef, parent: AnyRef): AnyRef
+
+  /**
+   * Called with a node, after its children have been rewritten.
+   */
+  protected def afterChildren(node: AnyRef): AnyRef
+
+  override def apply(that: AnyRef): AnyRef = {
+    cancellation.throwIfCancelled()
+    if (stopper(that)) {
+      that
+    } else {
+      val stack = new StackRewriter.Stack
+      stack.push(beforeChildren(that, null))
+      var result: AnyRef = null
+      var done = false
+      while (!done) {
+        cancellation.throwIfCancelled()
+        if (stack.hasNextChild) {
+          val child = stack.nextChild()
+          if (stopper(child)) {
+            stack.childDone(child)
+          } else {
+            stack.push(beforeChildren(child, stack.top))
+          }
+        } else {
+          val node = afterChildren(stack.pop())
+          if (stack.isEmpty) {
+            result = node
+            done = true
+          } else {
+            stack.childDone(node)
+          }
+        }
+      }
+      result
+    }
+  }
+}
 
-  private class TopDownRewriter(rewriter: Rewriter, stopper: AnyRef => Boolean, cancellation: CancellationChecker)
-      extends Rewriter {
+private[util] object StackRewriter {
+
+  private val initialCapacity = 16
+
+  /**
+   * A stack of nodes whose children are being rewritten, stored in parallel arrays.
+   * Only the top node can take and complete children.
+   */
+  private final class Stack {
+    private var size = 0
+    private var nodes = new Array[AnyRef](initialCapacity)
+    private var children = new Array[Iterator[AnyRef]](initialCapacity)
+    // the child that was last taken from `children`, and how many children have been taken
+    private var currentChild = new Array[AnyRef](initialCapacity)
+    private var taken = new Array[Int](initialCapacity)
+    // the rewritten children, or null as long as all children have been left unchanged
+    private var newChildren = new Array[mutable.ArrayBuffer[AnyRef]](initialCapacity)
+
+    def isEmpty: Boolean = size == 0
+
+    def top: AnyRef = nodes(size - 1)
+
+    def push(node: AnyRef): Unit = {
+      if (size == nodes.length) grow()
+      nodes(size) = node
+      children(size) = node.treeChildren
+      size += 1
+    }
 
-    override def apply(that: AnyRef): AnyRef = {
-      val initialStack = mutable.Stack((List(that), new mutable.ListBuffer[AnyRef]()))
-      val result = rec(initialStack)
-      assert(result.size == 1)
-      result.head
+    def hasNextChild: Boolean = children(size - 1).hasNext
+
+    def nextChild(): AnyRef = {
+      val i = size - 1
+      val child = children(i).next()
+      currentChild(i) = child
+      taken(i) += 1
+      child
     }
 
-    @tailrec
-    private def rec(stack: mutable.Stack[(List[AnyRef], mutable.ListBuffer[AnyRef])]): mutable.ListBuffer[AnyRef] = {
-      cancellation.throwIfCancelled()
-      val (currentJobs, _) = stack.top
-      if (currentJobs.isEmpty) {
-        val (_, newChildren) = stack.pop()
-        if (stack.isEmpty) {
-          newChildren
-        } else {
-          stack.pop() match {
-            case (job :: jobs, doneJobs) =>
-              val doneJob = Rewritable.dupAny(job, newChildren.toSeq)
-              stack.push((jobs, doneJobs += doneJob))
-              rec(stack)
-            case _ => throw new IllegalStateException("Empty job")
-          }
-        }
-      } else {
-        stack.pop() match {
-          case (newJob :: jobs, doneJobs) =>
-            if (stopper(newJob)) {
-              stack.push((jobs, doneJobs += newJob))
-            } else {
-              val rewrittenJob = newJob.rewrite(rewriter)
-              stack.push((rewrittenJob :: jobs, doneJobs))
-              stack.push((rewrittenJob.treeChildren.toList, new mutable.ListBuffer()))
-            }
-            rec(stack)
-          case _ => throw new IllegalStateException("Empty job")
+    /**
+     * Completes the child that was last taken from the top node, with `rewritten` as its new value.
+     */
+    def childDone(rewritten: AnyRef): Unit = {
+      val i = size - 1
+      val buffer = newChildren(i)
+      if (buffer != null) {
+        buffer += rewritten
+      } else if (!(rewritten eq currentChild(i))) {
+        // The first changed child: copy the unchanged children before it.
+        val newBuffer = new mutable.ArrayBuffer[AnyRef]()
+        val unchanged = nodes(i).treeChildren
+        var remaining = taken(i) - 1
+        while (remaining > 0) {
+          newBuffer += unchanged.next()
+          remaining -= 1
         }
+        newBuffer += rewritten
+        newChildren(i) = newBuffer
       }
+      currentChild(i) = null
+    }
+
+    /**
+     * Removes the top node, and returns it with its new children.
+     */
+    def pop(): AnyRef = {
+      size -= 1
+      val node = nodes(size)
+      val buffer = newChildren(size)
+      nodes(size) = null
+      children(size) = null
+      currentChild(size) = null
+      taken(size) = 0
+      newChildren(size) = null
+      if (buffer == null) node
+      else Rewritable.dupAny(node, buffer.toList)
+    }
+
+    private def grow(): Unit = {
+      val capacity = nodes.length * 2
+      nodes = java.util.Arrays.copyOf(nodes, capacity)
+      children = java.util.Arrays.copyOf(children, capacity)
+      currentChild = java.util.Arrays.copyOf(currentChild, capacity)
+      taken = java.util.Arrays.copyOf(taken, capacity)
+      newChildren = java.util.Arrays.copyOf(newChildren, capacity)
     }
   }
+}
+
+object topDown {
+
+  private class TopDownRewriter(rewriter: Rewriter, stopper: AnyRef => Boolean, cancellation: CancellationChecker)
+      extends StackRewriter(stopper, cancellation) {
+
+    override protected def beforeChildren(node: AnyRef, parent: AnyRef): AnyRef = node.rewrite(rewriter)
+
+    override protected def afterChildren(node: AnyRef): AnyRef = node
+  }
 
   def apply(
     rewriter: Rewriter,
     stopper: AnyRef => Boolean = _ => false,
     cancellation: CancellationChecker = CancellationChecker.NeverCancelled
   ): Rewriter =
-    new TopDownRewriter(rewriter, stopper, cancellation)
+    new TopDownRewriter(rewriter, TargetedRewriter.pruning(rewriter, stopper), cancellation)
 }
 
 /**
@@ -244,55 +411,12 @@ object topDownWithParent {
     rewriter: RewriterWithParent,
     stopper: AnyRef => Boolean,
     cancellation: CancellationChecker
-  ) extends Rewriter {
+  ) extends StackRewriter(stopper, cancellation) {
 
-    override def apply(that: AnyRef): AnyRef = {
-      val initialStack = mutable.Stack((List(that), new ListBuffer[AnyRef]()))
-      val result = rec(initialStack)
-      assert(result.size == 1)
-      result.head
-    }
+    override protected def beforeChildren(node: AnyRef, parent: AnyRef): AnyRef =
+      node.rewrite(rewriter, Option(parent))
 
-    @tailrec
-    private def rec(stack: mutable.Stack[(List[AnyRef], mutable.ListBuffer[AnyRef])]): mutable.ListBuffer[AnyRef] = {
-      cancellation.throwIfCancelled()
-      val (currentJobs, _) = stack.top
-      if (currentJobs.isEmpty) {
-        val (_, newChildren) = stack.pop()
-        if (stack.isEmpty) {
-          newChildren
-        } else {
-          stack.pop() match {
-            case (job :: jobs, doneJobs) =>
-              val doneJob = Rewritable.dupAny(job, newChildren.toSeq)
-              stack.push((jobs, doneJobs += doneJob))
-              rec(stack)
-            case _ => throw new IllegalStateException(s"Empty job")
-          }
-        }
-      } else {
-        stack.pop() match {
-          case (newJob :: jobs, doneJobs) =>
-            if (stopper(newJob)) {
-              stack.push((jobs, doneJobs += newJob))
-            } else {
-              val maybeParent = {
-                if (stack.isEmpty) {
-                  None
-                } else {
-                  val (parentJobs, _) = stack.top
-                  parentJobs.headOption
-                }
-              }
-              val rewrittenJob = newJob.rewrite(rewriter, maybeParent)
-              stack.push((rewrittenJob :: jobs, doneJobs))
-              stack.push((rewrittenJob.treeChildren.toList, new ListBuffer()))
-            }
-            rec(stack)
-          case _ => throw new IllegalStateException("Empty jobs")
-        }
-      }
-    }
+    override protected def afterChildren(node: AnyRef): AnyRef = node
   }
 
   def apply(
@@ -306,46 +430,11 @@ object topDownWithParent {
 object bottomUp {
 
   private class BottomUpRewriter(rewriter: Rewriter, stopper: AnyRef => Boolean, cancellation: CancellationChecker)
-      extends Rewriter {
+      extends StackRewriter(stopper, cancellation) {
 
-    override def apply(that: AnyRef): AnyRef = {
-      val initialStack = mutable.Stack((List(that), new ListBuffer[AnyRef]()))
-      val result = rec(initialStack)
-      assert(result.size == 1)
-      result.head
-    }
+    override protected def beforeChildren(node: AnyRef, parent: AnyRef): AnyRef = node
 
-    @tailrec
-    private def rec(stack: mutable.Stack[(List[AnyRef], mutable.ListBuffer[AnyRef])]): mutable.ListBuffer[AnyRef] = {
-      cancellation.throwIfCancelled()
-      val (currentJobs, _) = stack.top
-      if (currentJobs.isEmpty) {
-        val (_, newChildren) = stack.pop()
-        if (stack.isEmpty) {
-          newChildren
-        } else {
-          stack.pop() match {
-            case (job :: jobs, doneJobs) =>
-              val doneJob = Rewritable.dupAny(job, newChildren.toSeq)
-              val rewrittenDoneJob = doneJob.rewrite(rewriter)
-              stack.push((jobs, doneJobs += rewrittenDoneJob))
-              rec(stack)
-            case _ => throw new IllegalStateException("No jobs")
-          }
-        }
-      } else {
-        val next = currentJobs.head
-        if (stopper(next)) {
-          stack.pop() match {
-            case (job :: jobs, doneJobs) => stack.push((jobs, doneJobs += job))
-            case _                       => throw new IllegalStateException("No jobs")
-          }
-        } else {
-          stack.push((next.treeChildren.toList, new ListBuffer()))
-        }
-        rec(stack)
-      }
-    }
+    override protected def afterChildren(node: AnyRef): AnyRef = node.rewrite(rewriter)
   }
 
   def apply(
@@ -353,7 +442,7 @@ object bottomUp {
     stopper: AnyRef => Boolean = _ => false,
     cancellation: CancellationChecker = CancellationChecker.NeverCancelled
   ): Rewriter =
-    new BottomUpRewriter(rewriter, stopper, cancellation)
+    new BottomUpRewriter(rewriter, TargetedRewriter.pruning(rewriter, stopper), cancellation)
 }
 
 object bottomUpWithRecorder {
@@ -363,47 +452,15 @@ object bottomUpWithRecorder {
     stopper: AnyRef => Boolean,
     recorder: (AnyRef, AnyRef) => Unit,
     cancellation: CancellationChecker
-  ) extends Rewriter {
+  ) extends StackRewriter(stopper, cancellation) {
 
-    override def apply(that: AnyRef): AnyRef = {
-      val initialStack = mutable.Stack((List(that), new ListBuffer[AnyRef]()))
-      val result = rec(initialStack)
-      assert(result.size == 1)
-      result.head
-    }
+    override protected def beforeChildren(node: AnyRef, parent: AnyRef): AnyRef = node
 
-    @tailrec
-    private def rec(stack: mutable.Stack[(List[AnyRef], mutable.ListBuffer[AnyRef])]): mutable.ListBuffer[AnyRef] = {
-      cancellation.throwIfCancelled()
-      val (currentJobs, _) = stack.top
-      if (currentJobs.isEmpty) {
-        val (_, newChildren) = stack.pop()
-        if (stack.isEmpty) {
-          newChildren
-        } else {
-          stack.pop() match {
-            case (job :: jobs, doneJobs) =>
-              val doneJob = Rewritable.dupAny(job, newChildren.toSeq)
-              val rewrittenDoneJob = doneJob.rewrite(rewriter)
-              if (!(doneJob eq rewrittenDoneJob))
-                recorder(doneJob, rewrittenDoneJob)
-              stack.push((jobs, doneJobs += rewrittenDoneJob))
-              rec(stack)
-            case _ => throw new IllegalStateException("Empty jobs")
-          }
-        }
-      } else {
-        val next = currentJobs.head
-        if (stopper(next)) {
-          stack.pop() match {
-            case (job :: jobs, doneJobs) => stack.push((jobs, doneJobs += job))
-            case _                       => throw new IllegalStateException("Empty jobs")
-          }
-        } else {
-          stack.push((next.treeChildren.toList, new ListBuffer()))
-        }
-        rec(stack)
-      }
+    override protected def afterChildren(node: AnyRef): AnyRef = {
+      val rewritten = node.rewrite(rewriter)
+      if (!(node eq rewritten))
+        recorder(node, rewritten)
+      rewritten
     }
   }
 
@@ -413,5 +470,5 @@ object bottomUpWithRecorder {
     recorder: (AnyRef, AnyRef) => Unit = (_, _) => (),
     cancellation: CancellationChecker = CancellationChecker.NeverCancelled
   ): Rewriter =
-    new BottomUpRewriter(rewriter, stopper, recorder, cancellation)
+    new BottomUpRewriter(rewriter, TargetedRewriter.pruning(rewriter, stopper), recorder, cancellation)
 }
@@ -47,3 +47,23 @@ object Selectivity {
   implicit def turnSeqIntoSingleSelectivity(p: Seq[Selectivity]): Selectivity =
     p.reduceOption(_ * _).getOrElse(Selectivity(1))
 }
+
+/**
+ * An allocation-free [[Selectivity]], see [[CardinalityValue]].
+ * Unlike [[Selectivity]], it does not check that the factor is between 0 and 1 on every operation,
+ * but only when converted with [[SelectivityValue.of]] or back with [[toSelectivity]].
+ */
+final class SelectivityValue(val factor: Double) extends AnyVal {
+  def compare(that: SelectivityValue): Int = java.lang.Double.compare(factor, that.factor)
+  def *(that: SelectivityValue): SelectivityValue = new SelectivityValue(that.factor * factor)
+  def toSelectivity: Selectivity = Selectivity(factor)
+}
+
+object SelectivityValue {
+  val ZERO: SelectivityValue = new SelectivityValue(0.0d)
+  val ONE: SelectivityValue = new SelectivityValue(1.0d)
+
+  def apply(selectivity: Selectivity): SelectivityValue = new SelectivityValue(selectivity.factor)
+
+  def of(value: Double): Option[SelectivityValue] = Selectivity.of(value).map(apply)
+}
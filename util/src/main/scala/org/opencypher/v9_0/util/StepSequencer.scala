@@ -173,6 +173,34 @@ case class StepSequencer[S <: Step, ACC](stepAccumulator: StepAccumulator[S, ACC
     // Put steps together
     AccumulatedSteps(sortedSteps.foldLeft(stepAccumulator.empty)(stepAccumulator.addNext), postConditions)
   }
+
+  /**
+   * Combine steps in an order that was computed ahead of time, typically at build time, instead of ordering them again.
+   *
+   * The precomputed order is only used if it still fits the steps, as checked by [[StepSequencer.replayOrder]].
+   * Otherwise, and whenever assertions are enabled (so that tests keep discovering missing dependencies through
+   * random orders), this falls back to [[orderSteps]].
+   *
+   * @param steps             the steps to order.
+   * @param initialConditions conditions that hold before any of the steps.
+   * @param precomputedOrder  the names of the steps, as given by their `toString`, in the order they should run.
+   */
+  def orderSteps(
+    steps: Set[S],
+    initialConditions: Set[Condition],
+    precomputedOrder: Option[Seq[String]]
+  ): AccumulatedSteps[ACC] = {
+    val precomputed =
+      if (AssertionRunner.isAssertionsEnabled) None
+      else precomputedOrder.flatMap(StepSequencer.replayOrder(steps, initialConditions, _).toOption)
+
+    precomputed match {
+      case Some(AccumulatedSteps(sortedSteps, postConditions)) =>
+        AccumulatedSteps(sortedSteps.foldLeft(stepAccumulator.empty)(stepAccumulator.addNext), postConditions)
+      case None =>
+        orderSteps(steps, initialConditions)
+    }
+  }
 }
 
 object StepSequencer {
@@ -219,6 +247,61 @@ object StepSequencer {
 
   case class AccumulatedSteps[ACC](steps: ACC, postConditions: Set[Condition])
 
+  /**
+   * Replay an order of steps, given by their names, and check that it is a valid sequence for the given steps.
+   *
+   * An order is valid if it names each step at least once, if every step first runs when its pre-conditions hold
+   * (and its negated pre-conditions do not), and if all post-conditions of all steps are met at the end.
+   *
+   * @return the resolved steps together with the conditions that hold at the end, or a description of why the order is invalid.
+   */
+  def replayOrder[S <: Step](
+    steps: Set[S],
+    initialConditions: Set[Condition],
+    order: Seq[String]
+  ): Either[String, AccumulatedSteps[Seq[S]]] = {
+    val stepsByName = steps.groupBy(_.toString)
+    val sortedSteps = new ArrayBuffer[S](order.size)
+    val currentConditions = initialConditions.to(mutable.Set)
+
+    def replayStep(name: String): Option[String] = stepsByName.get(name) match {
+      case None => Some(s"There is no step named $name.")
+      case Some(named) if named.size > 1 => Some(s"Multiple steps are named $name.")
+      case Some(named) =>
+        val step = named.head
+        // Like orderSteps, only the first run of a step is guaranteed to see its pre-conditions.
+        // Steps that run again only do so to restore their post-conditions.
+        val preConditions = if (sortedSteps.contains(step)) Set.empty[Condition] else step.preConditions
+        val violation = preConditions.collectFirst {
+          case n @ NegatedCondition(inner) if currentConditions.contains(inner) =>
+            s"$step has $n as a pre-condition, but it runs after $inner has been introduced."
+          case condition if !condition.isInstanceOf[NegatedCondition] && !currentConditions.contains(condition) =>
+            s"$step has $condition as a pre-condition, but it runs before $condition is met."
+        }
+        if (violation.isEmpty) {
+          currentConditions ++= step.postConditions
+          currentConditions --= step.invalidatedConditions
+          sortedSteps += step
+        }
+        violation
+    }
+
+    val allPostConditions = steps.flatMap(_.postConditions)
+    order.iterator.map(replayStep).collectFirst { case Some(violation) => violation } match {
+      case Some(violation) =>
+        Left(violation)
+      case None if steps.exists(!sortedSteps.contains(_)) =>
+        Left(s"The order does not include the steps ${steps.filterNot(sortedSteps.contains)}.")
+      case None if !allPostConditions.subsetOf(currentConditions) =>
+        Left(
+          s"The order does not lead to a state where all conditions $allPostConditions are met. " +
+            s"Only meeting $currentConditions."
+        )
+      case None =>
+        Right(AccumulatedSteps(sortedSteps.toSeq, currentConditions.toSet))
+    }
+  }
+
   private case class AdjacencyList[S](outgoing: mutable.Set[S], incoming: mutable.Set[S])
 
   private object MutableDirectedGraph {
@@ -22,7 +22,8 @@ import scala.reflect.ClassTag
 
 trait Attribute[KEY, VALUE] {
 
-  private val array: ArrayBuffer[Unchangeable[VALUE]] = new ArrayBuffer[Unchangeable[VALUE]]()
+  // Lazy, so that attributes that override the storage, like PrimitiveAttribute, do not allocate it
+  private lazy val array: ArrayBuffer[Unchangeable[VALUE]] = new ArrayBuffer[Unchangeable[VALUE]]()
 
   /**
    * Create a clone of this attribute, holding the same data initially.
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.util.attribution
+
+import org.opencypher.v9_0.util.ASTNode
+
+import java.util
+
+/**
+ * Opt-in stable ids for AST nodes.
+ *
+ * Once a tree has ids, attributes of its nodes can be kept in arrays indexed by [[ASTNode.nodeId]], e.g. in an
+ * [[Attribute]], instead of maps keyed by the nodes themselves. Rewrites through [[ASTNode.dup]] keep ids, so such
+ * attributes need not be re-keyed after a rewrite. Nodes created from scratch by a rewriter have no id until
+ * [[assign]] is called again.
+ */
+object NodeIds {
+
+  // The id state of a node is NO_ID, an id that was assigned to the node as part of a tree, or the id of the node it
+  // was copied from, encoded as inherited(id). Assigned ids never change. Inherited ones are assigned or replaced by
+  // the next call to assign on a tree that contains the node.
+  private[util] val NO_ID: Int = Id.INVALID_ID.x
+
+  private[util] def inherited(id: Int): Int = -id - 2
+
+  private[util] def idOf(state: Int): Int = if (state >= NO_ID) state else -state - 2
+
+  private def isInherited(state: Int): Boolean = state < NO_ID
+
+  /**
+   * Gives every node of the tree that has no id yet a new one, above all ids already in the tree,
+   * in the order of a top-down traversal.
+   *
+   * A node keeps an id once it got one as part of a tree, so trees that share nodes, e.g. a cached statement and trees
+   * rewritten from it, never change each other's ids. A rewriter can leave several nodes with the same id, e.g. by
+   * rewriting two copies of a subtree differently. Copies made by [[ASTNode.dup]] keep their id if they are the only
+   * node with it in the tree, or else the first one of them in a top-down traversal does if no node already has it.
+   * The others get new ids. The same instance in several places of the tree keeps its id.
+   *
+   * Calls do not lock: ids are set with a compare-and-set on each node, and a call that finds a node changed by
+   * another call since it looked at the tree starts over. Concurrent calls on the same tree end with the ids that a
+   * single call would assign.
+   *
+   * @return an upper bound for the ids in the tree, i.e. all of them are in `[0, bound)`
+   */
+  def assign(root: ASTNode): Int = {
+    val nodes = root.folder.findAllByClass[ASTNode].toArray
+    var bound = tryAssign(nodes)
+    while (bound < 0) bound = tryAssign(nodes)
+    bound
+  }
+
+  // Returns -1 if another call changed a node in the meantime
+  private def tryAssign(nodes: Array[ASTNode]): Int = {
+    val states = nodes.map(_.nodeIdState)
+    var next = 0
+    states.foreach { state =>
+      next = math.max(next, idOf(state) + 1)
+    }
+    // The node that has each id that is already in the tree: an assigned node if there is one, else the first copy
+    val owners = new Array[ASTNode](next)
+    var i = 0
+    while (i < nodes.length) {
+      if (states(i) > NO_ID && owners(states(i)) == null) owners(states(i)) = nodes(i)
+      i += 1
+    }
+    // The nodes changed by this call, for instances in several places of the tree
+    val changed = new util.IdentityHashMap[ASTNode, java.lang.Boolean]()
+    i = 0
+    while (i < nodes.length) {
+      val node = nodes(i)
+      val state = states(i)
+      if (!changed.containsKey(node)) {
+        val update =
+          if (state == NO_ID) {
+            next += 1
+            next - 1
+          } else if (isInherited(state)) {
+            val id = idOf(state)
+            if (owners(id) == null) {
+              owners(id) = node
+              id
+            } else {
+              next += 1
+              next - 1
+            }
+          } else {
+            state
+          }
+        if (update != state) {
+          if (!node.compareAndSetNodeIdState(state, update)) return -1
+          changed.put(node, java.lang.Boolean.TRUE)
+        }
+      }
+      i += 1
+    }
+    next
+  }
+}
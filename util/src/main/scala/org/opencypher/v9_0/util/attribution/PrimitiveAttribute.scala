@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.util.attribution
+
+import org.opencypher.v9_0.util.Unchangeable
+
+import scala.reflect.ClassTag
+
+/**
+ * An [[Attribute]] that stores its values as primitive longs instead of in one [[Unchangeable]] per id.
+ *
+ * It behaves like any other attribute, including that values cannot be changed once they have been seen,
+ * but keeps which values are defined and seen in bitsets, and the values themselves in pages of 64 ids.
+ * Clones share these pages until one of them writes to a page, which then gets a copy of its own.
+ */
+abstract class PrimitiveAttribute[KEY, VALUE] extends Attribute[KEY, VALUE] {
+
+  import PrimitiveAttribute.PageMask
+  import PrimitiveAttribute.PageShift
+  import PrimitiveAttribute.PageSize
+
+  // One page of values, and one word of the defined and seen bits, for every 64 ids
+  private var pages: Array[Array[Long]] = Array.empty
+  private var defined: Array[Long] = Array.empty
+  private var seen: Array[Long] = Array.empty
+  // Whether the page is only used by this attribute, so that it can be written to
+  private var owned: Array[Boolean] = Array.empty
+  // The largest id that was set, plus one
+  private var length = 0
+
+  protected def encode(value: VALUE): Long
+
+  protected def decode(bits: Long): VALUE
+
+  protected def sameValue(bits0: Long, bits1: Long): Boolean = bits0 == bits1
+
+  protected def valueHashCode(bits: Long): Int = java.lang.Long.hashCode(bits)
+
+  protected def getBits(id: Id): Long = {
+    val i = id.x
+    if (i < 0 || i >= length) throw new IndexOutOfBoundsException(s"$i is out of bounds (min 0, max ${length - 1})")
+    val page = i >>> PageShift
+    val bit = 1L << (i & PageMask)
+    if ((defined(page) & bit) == 0) throw new IllegalStateException("Value still not set")
+    seen(page) |= bit
+    pages(page)(i & PageMask)
+  }
+
+  protected def setBits(id: Id, bits: Long): Unit = {
+    val i = id.x
+    if (i < 0) throw new IndexOutOfBoundsException(s"$i is out of bounds (min 0)")
+    val page = i >>> PageShift
+    val bit = 1L << (i & PageMask)
+    ensureCapacity(page + 1)
+    if ((seen(page) & bit) != 0) throw new IllegalStateException("Can't change a seen value")
+    writablePage(page)(i & PageMask) = bits
+    defined(page) |= bit
+    if (i >= length) length = i + 1
+  }
+
+  private def ensureCapacity(pageCount: Int): Unit =
+    if (pages.length < pageCount) {
+      val capacity = Math.max(pageCount, pages.length * 2)
+      pages = java.util.Arrays.copyOf(pages, capacity)
+      defined = java.util.Arrays.copyOf(defined, capacity)
+      seen = java.util.Arrays.copyOf(seen, capacity)
+      owned = java.util.Arrays.copyOf(owned, capacity)
+    }
+
+  private def writablePage(page: Int): Array[Long] = {
+    if (pages(page) == null) {
+      pages(page) = new Array[Long](PageSize)
+      owned(page) = true
+    } else if (!owned(page)) {
+      pages(page) = pages(page).clone()
+      owned(page) = true
+    }
+    pages(page)
+  }
+
+  private def pageCount: Int = (length + PageSize - 1) >>> PageShift
+
+  /**
+   * Create a clone of this attribute, holding the same data initially.
+   * The clone shares the pages of values with this attribute, until either of them writes to them.
+   */
+  override def clone[T <: Attribute[KEY, VALUE]](implicit tag: ClassTag[T]): T = {
+    val to = tag.runtimeClass.getConstructor().newInstance().asInstanceOf[T]
+    to match {
+      case that: PrimitiveAttribute[_, _] =>
+        java.util.Arrays.fill(owned, false)
+        that.pages = pages.clone()
+        that.defined = defined.clone()
+        that.seen = seen.clone()
+        that.owned = new Array[Boolean](pages.length)
+        that.length = length
+      case _ =>
+        throw new IllegalArgumentException(
+          s"Cannot clone ${getClass.getSimpleName} into ${tag.runtimeClass.getSimpleName}"
+        )
+    }
+    to
+  }
+
+  override def set(id: Id, t: VALUE): Unit = setBits(id, encode(t))
+
+  override def get(id: Id): VALUE = decode(getBits(id))
+
+  override def isDefinedAt(id: Id): Boolean = {
+    val i = id.x
+    i >= 0 && i < length && (defined(i >>> PageShift) & (1L << (i & PageMask))) != 0
+  }
+
+  override def iterator: Iterator[(Id, VALUE)] =
+    Iterator.range(0, length).map(Id(_)).filter(isDefinedAt).map(id => (id, get(id)))
+
+  // Like the size of other attributes, which iterates over their values, this makes all values seen
+  override def size: Int = {
+    var count = 0
+    var page = 0
+    while (page < pageCount) {
+      count += java.lang.Long.bitCount(defined(page))
+      seen(page) |= defined(page)
+      page += 1
+    }
+    count
+  }
+
+  override def copy(from: Id, to: Id): Unit = {
+    if (isDefinedAt(from))
+      setBits(to, getBits(from))
+  }
+
+  override def toString: String = {
+    val sb = new StringBuilder
+    sb ++= this.getClass.getSimpleName + "\n"
+    for (i <- 0 until length) {
+      val value = if (isDefinedAt(Id(i))) decode(pages(i >>> PageShift)(i & PageMask)).toString else "NOT SET"
+      sb ++= s"$i : Unchangeable($value)\n"
+    }
+    sb.result()
+  }
+
+  override def toSeq: Seq[Unchangeable[VALUE]] =
+    (0 until length).map { i =>
+      val copied = new Unchangeable[VALUE]()
+      if (isDefinedAt(Id(i))) copied.value = get(Id(i))
+      copied
+    }
+
+  override def hashCode(): Int = {
+    var hash = length
+    var page = 0
+    while (page < pageCount) {
+      hash = 31 * hash + java.lang.Long.hashCode(defined(page))
+      hash = 31 * hash + java.lang.Long.hashCode(seen(page))
+      var bits = defined(page)
+      while (bits != 0) {
+        hash = 31 * hash + valueHashCode(pages(page)(java.lang.Long.numberOfTrailingZeros(bits)))
+        bits &= bits - 1
+      }
+      page += 1
+    }
+    hash
+  }
+
+  override def equals(obj: Any): Boolean = {
+    obj match {
+      case that: PrimitiveAttribute[_, _] =>
+        if (this eq that) return true
+        length == that.length && (0 until pageCount).forall { page =>
+          defined(page) == that.defined(page) && seen(page) == that.seen(page) && {
+            var bits = defined(page)
+            var same = true
+            while (same && bits != 0) {
+              val i = java.lang.Long.numberOfTrailingZeros(bits)
+              same = sameValue(pages(page)(i), that.pages(page)(i))
+              bits &= bits - 1
+            }
+            same
+          }
+        }
+      case _ => false
+    }
+  }
+}
+
+object PrimitiveAttribute {
+  private val PageShift = 6
+  private val PageSize = 1 << PageShift
+  private val PageMask = PageSize - 1
+}
+
+/**
+ * An [[Attribute]] with values that are stored as doubles, such as cardinalities and costs.
+ * [[getDouble]] and [[setDouble]] access them without converting them from and to `VALUE`.
+ * Like [[get]] in [[Attribute]], [[getDouble]] does not use the default value of [[Default]].
+ */
+abstract class DoubleAttribute[KEY, VALUE](toDouble: VALUE => Double, fromDouble: Double => VALUE)
+    extends PrimitiveAttribute[KEY, VALUE] {
+
+  def getDouble(id: Id): Double = java.lang.Double.longBitsToDouble(getBits(id))
+
+  def setDouble(id: Id, value: Double): Unit = setBits(id, java.lang.Double.doubleToRawLongBits(value))
+
+  override protected def encode(value: VALUE): Long = java.lang.Double.doubleToRawLongBits(toDouble(value))
+
+  override protected def decode(bits: Long): VALUE = fromDouble(java.lang.Double.longBitsToDouble(bits))
+
+  override protected def sameValue(bits0: Long, bits1: Long): Boolean =
+    java.lang.Double.longBitsToDouble(bits0) == java.lang.Double.longBitsToDouble(bits1)
+
+  override protected def valueHashCode(bits: Long): Int = java.lang.Double.longBitsToDouble(bits).##
+}
+
+/**
+ * An [[Attribute]] with values that are stored as longs, see [[DoubleAttribute]].
+ */
+abstract class LongAttribute[KEY, VALUE](toLong: VALUE => Long, fromLong: Long => VALUE)
+    extends PrimitiveAttribute[KEY, VALUE] {
+
+  def getLong(id: Id): Long = getBits(id)
+
+  def setLong(id: Id, value: Long): Unit = setBits(id, value)
+
+  override protected def encode(value: VALUE): Long = toLong(value)
+
+  override protected def decode(bits: Long): VALUE = fromLong(bits)
+}
+
+/**
+ * An [[Attribute]] with values that are stored as ints, see [[DoubleAttribute]].
+ */
+abstract class IntAttribute[KEY, VALUE](toInt: VALUE => Int, fromInt: Int => VALUE)
+    extends PrimitiveAttribute[KEY, VALUE] {
+
+  def getInt(id: Id): Int = getBits(id).toInt
+
+  def setInt(id: Id, value: Int): Unit = setBits(id, value.toLong)
+
+  override protected def encode(value: VALUE): Long = toInt(value).toLong
+
+  override protected def decode(bits: Long): VALUE = fromInt(bits.toInt)
+}
@@ -19,6 +19,15 @@ import org.opencypher.v9_0.util.CancellationChecker
 
 import scala.annotation.tailrec
 
+/**
+ * Applies a function until its result does not change anymore.
+ *
+ * [[fixedPoint.apply]] compares successive results with `==`. For trees, that can mean a deep comparison on every
+ * iteration. [[fixedPoint.untilIdentical]] instead stops as soon as the function returns its argument itself, which
+ * the tree traversals ([[org.opencypher.v9_0.util.topDown]], [[org.opencypher.v9_0.util.bottomUp]], ...) do exactly
+ * when none of their rules fired. It must only be used with functions that return their argument when there is
+ * nothing left to do, and not an equal copy of it.
+ */
 object fixedPoint {
 
   def apply[A](f: A => A): A => A = inner(f, _)
@@ -43,4 +52,28 @@ object fixedPoint {
     else
       innerWithCancel(f, t, cancellation)
   }
+
+  def untilIdentical[A <: AnyRef](f: A => A): A => A = innerIdentical(f, _)
+
+  @tailrec
+  private def innerIdentical[A <: AnyRef](f: A => A, that: A): A = {
+    val t = f(that)
+    if (t eq that)
+      t
+    else
+      innerIdentical(f, t)
+  }
+
+  def untilIdentical[A <: AnyRef](cancellation: CancellationChecker)(f: A => A): A => A =
+    innerIdenticalWithCancel(f, _, cancellation)
+
+  @tailrec
+  private def innerIdenticalWithCancel[A <: AnyRef](f: A => A, that: A, cancellation: CancellationChecker): A = {
+    cancellation.throwIfCancelled()
+    val t = f(that)
+    if (t eq that)
+      t
+    else
+      innerIdenticalWithCancel(f, t, cancellation)
+  }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.util
+
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+import scala.util.Random
+
+class CartesianOrderingTest extends CypherFunSuite {
+
+  private val random = new Random(42)
+
+  private def sides(size: Int): IndexedSeq[(Cost, Cardinality)] =
+    // Few distinct values, so that there are many ties. Costs are positive, as the orderings require.
+    IndexedSeq.fill(size)((Cost((1 + random.nextInt(5)) * 10.0), Cardinality(random.nextInt(5) * 100.0)))
+
+  test("should sort indices of sides in the same order as the volcano ordering") {
+    for (size <- Seq(0, 1, 2, 15, 16, 17, 100, 1000)) {
+      val components = sides(size)
+
+      val indices = VolcanoCartesianOrdering.sortedIndices(
+        components.map(_._1.gummyBears).toArray,
+        components.map(_._2.amount).toArray
+      )
+
+      indices.toSeq shouldBe components.indices.sortBy(components)(VolcanoCartesianOrdering)
+    }
+  }
+
+  test("should sort indices of sides in the same order as the batched ordering") {
+    val ordering = new BatchedCartesianOrdering(128)
+    for (size <- Seq(0, 1, 2, 15, 16, 17, 100, 1000)) {
+      val components = sides(size)
+
+      val indices = ordering.sortedIndices(
+        components.map(_._1.gummyBears).toArray,
+        components.map(_._2.amount).toArray
+      )
+
+      indices.toSeq shouldBe components.indices.sortBy(components)(ordering)
+    }
+  }
+
+  test("value classes should compute the same as the cost model classes") {
+    val cardinality = Cardinality(12.5)
+    val selectivity = Selectivity(0.3)
+    val cost = Cost(7.25)
+    val costPerRow = CostPerRow(0.1)
+
+    (CardinalityValue(cardinality) * SelectivityValue(selectivity)).toCardinality shouldBe cardinality * selectivity
+    (CardinalityValue(cardinality) * SelectivityValue.ZERO).toCardinality shouldBe cardinality * Selectivity.ZERO
+    (CostValue(cost) + CostValue(cost) * MultiplierValue(CardinalityValue(cardinality))).toCost shouldBe
+      cost + cost * cardinality.amount
+    (CostPerRowValue(costPerRow) * CardinalityValue(cardinality)).toCost shouldBe cardinality * costPerRow
+    CostValue(cost).compare(CostValue(Cost(8))) shouldBe cost.compare(Cost(8))
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.util
+
+import org.opencypher.v9_0.util.NodeKindsTest.LateMarker
+import org.opencypher.v9_0.util.NodeKindsTest.Leaf
+import org.opencypher.v9_0.util.NodeKindsTest.Marked
+import org.opencypher.v9_0.util.NodeKindsTest.Marker
+import org.opencypher.v9_0.util.NodeKindsTest.Parent
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+import scala.collection.mutable
+
+object NodeKindsTest {
+  trait Marker
+  trait LateMarker
+
+  case class Leaf(value: Int)(val position: InputPosition) extends ASTNode
+  case class Marked(value: Int)(val position: InputPosition) extends ASTNode with Marker with LateMarker
+  case class Parent(children: Seq[ASTNode], child: Option[ASTNode])(val position: InputPosition) extends ASTNode
+}
+
+class NodeKindsTest extends CypherFunSuite {
+
+  private val pos = InputPosition.NONE
+
+  private def leaf(value: Int) = Leaf(value)(pos)
+  private def marked(value: Int) = Marked(value)(pos)
+  private def parent(children: ASTNode*) = Parent(children, None)(pos)
+
+  test("should find instances of types and their subtypes below collections and options") {
+    val markers = NodeKinds(classOf[Marker])
+    val leaves = NodeKinds(classOf[Leaf])
+
+    markers.existIn(parent(leaf(1), parent(leaf(2), marked(3)))) should be(true)
+    markers.existIn(Parent(Seq(leaf(1)), Some(marked(2)))(pos)) should be(true)
+    markers.existIn(parent(leaf(1), parent(leaf(2)))) should be(false)
+    markers.existIn(marked(1)) should be(true)
+    leaves.existIn(marked(1)) should be(false)
+    markers.existIn(Seq(leaf(1), marked(2))) should be(true)
+  }
+
+  test("should find types that were registered after the summaries were computed") {
+    val tree = parent(leaf(1), parent(leaf(2), marked(3)))
+    NodeKinds(classOf[Leaf]).existIn(tree) should be(true)
+
+    NodeKinds(classOf[LateMarker]).existIn(tree) should be(true)
+    NodeKinds(classOf[LateMarker]).existIn(parent(leaf(1))) should be(false)
+  }
+
+  test("should only rule out AST nodes") {
+    val markers = NodeKinds(classOf[Marker])
+
+    markers.mightExistIn(parent(leaf(1))) should be(false)
+    markers.mightExistIn(parent(marked(1))) should be(true)
+    markers.mightExistIn(Seq(leaf(1))) should be(true)
+  }
+
+  test("targeted rewriters should skip subtrees without targets") {
+    val visited = mutable.ArrayBuffer.empty[AnyRef]
+    val rewriter = Rewriter.targeting(classOf[Marked])(Rewriter.lift {
+      case m: Marked => visited += m; Leaf(m.value)(m.position)
+      case x         => visited += x; x
+    })
+    val untouched = parent(leaf(1), leaf(2))
+    val tree = parent(untouched, parent(marked(3)))
+
+    val rewritten = tree.endoRewrite(bottomUp(rewriter))
+
+    rewritten should equal(parent(untouched, parent(leaf(3))))
+    rewritten.children.head should be theSameInstanceAs untouched
+    visited.exists(_ eq untouched) should be(false)
+    visited.collect { case l: Leaf => l } should be(empty)
+
+    visited.clear()
+    tree.endoRewrite(topDown(rewriter)) should equal(parent(untouched, parent(leaf(3))))
+    visited.exists(_ eq untouched) should be(false)
+  }
+
+  test("a sequence of targeted rewriters should be targeted at all their targets") {
+    val first = Rewriter.targeting(classOf[Marked])(Rewriter.noop)
+    val second = Rewriter.targeting(classOf[Leaf])(Rewriter.noop)
+
+    inSequence(first, second) match {
+      case targeted: TargetedRewriter =>
+        targeted.targets.existIn(leaf(1)) should be(true)
+        targeted.targets.existIn(marked(1)) should be(true)
+      case other => fail(s"Expected a targeted rewriter, got $other")
+    }
+    inSequence(first, Rewriter.noop) should not be a[TargetedRewriter]
+  }
+}
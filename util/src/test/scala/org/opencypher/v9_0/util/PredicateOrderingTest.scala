@@ -17,6 +17,8 @@ package org.opencypher.v9_0.util
 
 import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
 
+import scala.util.Try
+
 class PredicateOrderingTest extends CypherFunSuite {
 
   test("should not break transitivity due to floating point precision") {
@@ -29,4 +31,41 @@ class PredicateOrderingTest extends CypherFunSuite {
     PredicateOrdering.equiv(b, c) shouldBe true
     PredicateOrdering.equiv(a, c) shouldBe true
   }
+
+  test("should sort indices of predicates in the same order as the ordering") {
+    val random = new scala.util.Random(42)
+    for (size <- Seq(0, 1, 2, 15, 16, 17, 100, 1000)) {
+      // Few distinct values, so that there are many ties. Costs are positive, as the ordering requires.
+      val predicates = IndexedSeq.fill(size)(
+        (CostPerRow(1.0 + random.nextInt(5)), Selectivity(random.nextInt(5) / 4.0))
+      )
+
+      val indices = PredicateOrdering.sortedIndices(
+        predicates.map(_._1.cost).toArray,
+        predicates.map(_._2.factor).toArray
+      )
+
+      indices.toSeq shouldBe predicates.indices.sortBy(predicates)(PredicateOrdering)
+    }
+  }
+
+  test("should sort indices of predicates in the same order as the ordering when costs are within its tolerance") {
+    val random = new scala.util.Random(42)
+    for (size <- Seq(2, 15, 16, 17, 33, 100, 1000)) {
+      // Neighbouring costs compare as equal, costs two steps apart do not, so the ordering is not transitive
+      val predicates = IndexedSeq.fill(size)(
+        (CostPerRow(1.0 + random.nextInt(4) * 0.0000015), Selectivity(0.5))
+      )
+
+      // Sorting might fail on a comparison that is not transitive, in which case both should fail
+      val indices = Try(
+        PredicateOrdering.sortedIndices(
+          predicates.map(_._1.cost).toArray,
+          predicates.map(_._2.factor).toArray
+        ).toSeq
+      )
+
+      indices.toOption shouldBe Try(predicates.indices.sortBy(predicates)(PredicateOrdering)).toOption
+    }
+  }
 }
@@ -21,6 +21,7 @@ import org.opencypher.v9_0.util.RewritableTest.Add
 import org.opencypher.v9_0.util.RewritableTest.Exp
 import org.opencypher.v9_0.util.RewritableTest.ExpList
 import org.opencypher.v9_0.util.RewritableTest.Options
+import org.opencypher.v9_0.util.RewritableTest.Plain
 import org.opencypher.v9_0.util.RewritableTest.Pos
 import org.opencypher.v9_0.util.RewritableTest.Sum
 import org.opencypher.v9_0.util.RewritableTest.Val
@@ -64,6 +65,8 @@ object RewritableTest {
     def dup(children: Seq[AnyRef]): this.type =
       ExpList(children.head.asInstanceOf[List[Exp]]).asInstanceOf[this.type]
   }
+
+  case class Plain(name: String, count: Int)
 }
 
 class RewritableTest extends CypherFunSuite {
@@ -454,4 +457,114 @@ class RewritableTest extends CypherFunSuite {
 
     assert(e.getMessage === cancellation.message)
   }
+
+  List[(String, Rewriter => Rewriter)](
+    "topDown" -> (rewriter => topDown(rewriter)),
+    "topDownWithParent" -> (rewriter => topDownWithParent(RewriterWithParent.lift { case (x, _) => rewriter(x) })),
+    "bottomUp" -> (rewriter => bottomUp(rewriter)),
+    "bottomUpWithRecorder" -> (rewriter => bottomUpWithRecorder(rewriter))
+  ) foreach { case (name, traversal) =>
+    test(s"$name should return the same instance when no rule matches") {
+      val ast = Add(Val(1), Sum(Seq(Val(2), Add(Val(3), Val(4)))))
+
+      val result = ast.rewrite(traversal(Rewriter.noop))
+
+      result should be theSameInstanceAs ast
+    }
+
+    test(s"$name should only copy the nodes above a changed node") {
+      val unchanged = Sum(Seq(Val(1), Val(2)))
+      val ast = Add(unchanged, Add(Val(3), Val(4)))
+
+      val result = ast.rewrite(traversal(Rewriter.lift {
+        case Val(4) => Val(5)
+      }))
+
+      result should equal(Add(unchanged, Add(Val(3), Val(5))))
+      result.asInstanceOf[Add].lhs should be theSameInstanceAs unchanged
+    }
+
+    test(s"$name should rewrite deep trees") {
+      val depth = 100000
+      val ast = (1 to depth).foldLeft[Exp](Val(0)) { case (acc, i) => Add(acc, Val(i)) }
+
+      val result = ast.rewrite(traversal(Rewriter.lift {
+        case Val(0) => Val(-1)
+      }))
+
+      var leftmost: Exp = result.asInstanceOf[Exp]
+      var count = 0
+      while (leftmost.isInstanceOf[Add]) {
+        leftmost = leftmost.asInstanceOf[Add].lhs
+        count += 1
+      }
+      count should equal(depth)
+      leftmost should equal(Val(-1))
+    }
+  }
+
+  test("topDown should not rewrite below nodes matched by the stopper") {
+    val ast = Add(Val(1), Add(Val(2), Val(3)))
+
+    val result = ast.rewrite(topDown(
+      Rewriter.lift {
+        case Val(x) => Val(x + 10)
+      },
+      stopper = {
+        case Add(Val(2), _) => true
+        case _              => false
+      }
+    ))
+
+    result should equal(Add(Val(11), Add(Val(2), Val(3))))
+  }
+
+  test("bottomUp should not rewrite below nodes matched by the stopper") {
+    val ast = Add(Val(1), Add(Val(2), Val(3)))
+
+    val result = ast.rewrite(bottomUp(
+      Rewriter.lift {
+        case Val(x) => Val(x + 10)
+      },
+      stopper = {
+        case Add(Val(2), _) => true
+        case _              => false
+      }
+    ))
+
+    result should equal(Add(Val(11), Add(Val(2), Val(3))))
+  }
+
+  test("dupAny should copy case classes that are not Rewritable, including primitive fields") {
+    val plain = Plain("a", 1)
+
+    val result = Rewritable.dupAny(plain, Seq("b", 2: java.lang.Integer))
+
+    result should equal(Plain("b", 2))
+  }
+
+  test("dupAny should return the same instance when the children are unchanged") {
+    val plain = Plain("a", 1)
+
+    val result = Rewritable.dupAny(plain, plain.productIterator.map(_.asInstanceOf[AnyRef]).toSeq)
+
+    result should be theSameInstanceAs plain
+  }
+
+  test("dupAny should fail with a helpful message when the children do not fit the copy method") {
+    val plain = Plain("a", 1)
+
+    an[IllegalStateException] should be thrownBy Rewritable.dupAny(plain, Seq("b"))
+    an[IllegalStateException] should be thrownBy Rewritable.dupAny(plain, Seq("b", "c"))
+  }
+
+  test("copyConstructor should be shared between threads") {
+    val plain = Plain("a", 1)
+    var fromOtherThread: Rewritable.CopyConstructor = null
+    val thread = new Thread(() => fromOtherThread = Rewritable.copyConstructor(plain))
+    thread.start()
+    thread.join()
+
+    Rewritable.copyConstructor(plain) should be theSameInstanceAs fromOtherThread
+  }
 }
@@ -413,6 +413,67 @@ class StepSequencerTest extends CypherFunSuite {
     postConditions should equal(steps.flatMap(_.postConditions).toSet)
   }
 
+  test("replays a valid order") {
+    val steps = Seq(
+      new TestStep("0", Set(), Set(condA), Set()),
+      new TestStep("1", Set(condA), Set(condB), Set()),
+      new TestStep("2", Set(condB), Set(condC), Set(condB))
+    )
+    val order = Seq("TestStep(0)", "TestStep(1)", "TestStep(2)", "TestStep(1)")
+    StepSequencer.replayOrder(steps.toSet, Set.empty, order) should equal(
+      Right(AccumulatedSteps(Seq(steps(0), steps(1), steps(2), steps(1)), Set(condA, condB, condC)))
+    )
+  }
+
+  test("replaying an order fails if a pre-condition is not met") {
+    val steps = Seq(
+      new TestStep("0", Set(), Set(condA), Set()),
+      new TestStep("1", Set(condA), Set(condB), Set())
+    )
+    StepSequencer.replayOrder(steps.toSet, Set.empty, Seq("TestStep(1)", "TestStep(0)")) should be(Symbol("left"))
+  }
+
+  test("replaying an order fails if a negated pre-condition is not met") {
+    val steps = Seq(
+      new TestStep("0", Set(), Set(condA), Set()),
+      new TestStep("1", Set(!condA), Set(condB), Set())
+    )
+    StepSequencer.replayOrder(steps.toSet, Set.empty, Seq("TestStep(0)", "TestStep(1)")) should be(Symbol("left"))
+  }
+
+  test("replaying an order fails if a step is missing or unknown") {
+    val steps = Seq(
+      new TestStep("0", Set(), Set(condA), Set()),
+      new TestStep("1", Set(), Set(condB), Set())
+    )
+    StepSequencer.replayOrder(steps.toSet, Set.empty, Seq("TestStep(0)")) should be(Symbol("left"))
+    StepSequencer.replayOrder(steps.toSet, Set.empty, Seq("TestStep(0)", "TestStep(1)", "TestStep(2)")) should be(
+      Symbol("left")
+    )
+  }
+
+  test("replaying an order fails if post-conditions are invalidated at the end") {
+    val steps = Seq(
+      new TestStep("0", Set(), Set(condA), Set()),
+      new TestStep("1", Set(condA), Set(condB), Set(condA))
+    )
+    StepSequencer.replayOrder(steps.toSet, Set.empty, Seq("TestStep(0)", "TestStep(1)")) should be(Symbol("left"))
+  }
+
+  test("replaying orders computed by orderSteps succeeds") {
+    val steps = Seq(
+      new TestStep("0", Set(), Set(condA), Set()),
+      new TestStep("1", Set(condA), Set(condB), Set()),
+      new TestStep("2", Set(condB), Set(condC), Set(condA)),
+      new TestStep("3", Set(!condE), Set(condD), Set(condB)),
+      new TestStep("4", Set(condA), Set(condE), Set())
+    )
+    val AccumulatedSteps(orderedSteps, postConditions) = sequencer.orderSteps(steps.toSet)
+    StepSequencer.replayOrder(steps.toSet, Set.empty, orderedSteps.map(_.toString)) should equal(
+      Right(AccumulatedSteps(orderedSteps, postConditions))
+    )
+  }
+
   implicit class Indexer[S](s: Seq[S]) {
 
     def indexOfOrFail(elem: S): Int = {
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.util.attribution
+
+import org.opencypher.v9_0.util.ASTNode
+import org.opencypher.v9_0.util.InputPosition
+import org.opencypher.v9_0.util.Rewriter
+import org.opencypher.v9_0.util.attribution.NodeIdsTest.Leaf
+import org.opencypher.v9_0.util.attribution.NodeIdsTest.Pair
+import org.opencypher.v9_0.util.bottomUp
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+object NodeIdsTest {
+  case class Leaf(value: Int)(val position: InputPosition) extends ASTNode
+  case class Pair(lhs: ASTNode, rhs: ASTNode)(val position: InputPosition) extends ASTNode
+}
+
+class NodeIdsTest extends CypherFunSuite {
+
+  private val pos = InputPosition.NONE
+
+  class Names extends Attribute[ASTNode, String]
+
+  test("nodes have no id unless assigned") {
+    val leaf = Leaf(1)(pos)
+
+    leaf.hasNodeId should be(false)
+    leaf.nodeId should be(Id.INVALID_ID)
+  }
+
+  test("should assign dense ids top-down") {
+    val one = Leaf(1)(pos)
+    val two = Leaf(2)(pos)
+    val pair = Pair(one, two)(pos)
+
+    NodeIds.assign(pair) should be(3)
+
+    pair.nodeId should be(Id(0))
+    one.nodeId should be(Id(1))
+    two.nodeId should be(Id(2))
+  }
+
+  test("should only assign ids to nodes without one, above the existing ids") {
+    val one = Leaf(1)(pos)
+    NodeIds.assign(one)
+    val two = Leaf(2)(pos)
+    val pair = Pair(one, two)(pos)
+
+    NodeIds.assign(pair) should be(3)
+
+    one.nodeId should be(Id(0))
+    pair.nodeId should be(Id(1))
+    two.nodeId should be(Id(2))
+  }
+
+  test("should assign one id to a node that occurs more than once") {
+    val leaf = Leaf(1)(pos)
+    val pair = Pair(leaf, leaf)(pos)
+
+    NodeIds.assign(pair) should be(2)
+    leaf.nodeId should be(Id(1))
+  }
+
+  test("rewritten nodes should keep their ids, so attributes by id still apply") {
+    val pair = Pair(Leaf(1)(pos), Leaf(2)(pos))(pos)
+    NodeIds.assign(pair)
+    val names = new Names
+    names.set(pair.nodeId, "pair")
+
+    val rewritten = pair.endoRewrite(bottomUp(Rewriter.lift {
+      case l @ Leaf(1) => Leaf(10)(l.position)
+    }))
+
+    rewritten should not be theSameInstanceAs(pair)
+    rewritten.nodeId should be(pair.nodeId)
+    names.get(rewritten.nodeId) should be("pair")
+    rewritten.lhs.hasNodeId should be(false)
+    rewritten.rhs.nodeId should be(Id(2))
+
+    NodeIds.assign(rewritten) should be(4)
+    rewritten.lhs.nodeId should be(Id(3))
+  }
+
+  test("should give new ids to distinct nodes that share an id, except for the first one") {
+    val two = Leaf(2)(pos)
+    val inner = Pair(Leaf(1)(pos), two)(pos)
+    NodeIds.assign(inner)
+    val copy1 = inner.dup(Seq(Leaf(10)(pos), two))
+    val copy2 = inner.dup(Seq(Leaf(20)(pos), two))
+    copy1.nodeId should be(copy2.nodeId)
+    val outer = Pair(copy1, copy2)(pos)
+
+    NodeIds.assign(outer) should be(7)
+
+    outer.nodeId should be(Id(3))
+    copy1.nodeId should be(Id(0))
+    copy1.lhs.nodeId should be(Id(4))
+    two.nodeId should be(Id(2))
+    copy2.nodeId should be(Id(5))
+    copy2.lhs.nodeId should be(Id(6))
+  }
+
+  test("should not change the ids of a tree that shares nodes with the assigned one") {
+    def ids(root: ASTNode): Seq[Id] = root.folder.findAllByClass[ASTNode].map(_.nodeId)
+    val two = Leaf(2)(pos)
+    val inner = Pair(Leaf(1)(pos), two)(pos)
+    val original = Pair(inner, Leaf(3)(pos))(pos)
+    NodeIds.assign(original)
+    val idsBefore = ids(original)
+    val copy = inner.dup(Seq(Leaf(10)(pos), two))
+    copy.nodeId should be(inner.nodeId)
+    // The copy comes before the shared node that has its id
+    val rewritten = Pair(copy, inner)(pos)
+
+    NodeIds.assign(rewritten) should be(8)
+
+    ids(original) should equal(idsBefore)
+    rewritten.nodeId should be(Id(5))
+    copy.nodeId should be(Id(6))
+    copy.lhs.nodeId should be(Id(7))
+    inner.nodeId should be(Id(1))
+    two.nodeId should be(Id(3))
+  }
+
+  test("should assign the same ids when called concurrently") {
+    def tree(depth: Int): ASTNode =
+      if (depth == 0) Leaf(depth)(pos) else Pair(tree(depth - 1), tree(depth - 1))(pos)
+    def ids(root: ASTNode): Seq[Id] = root.folder.findAllByClass[ASTNode].map(_.nodeId)
+
+    val expected = tree(10)
+    NodeIds.assign(expected)
+    val shared = tree(10)
+    val threads = (0 until 4).map(_ => new Thread(() => NodeIds.assign(shared)))
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+
+    ids(shared) should equal(ids(expected))
+  }
+
+  test("withNodeIdOf should not change an assigned id") {
+    val one = Leaf(1)(pos)
+    val two = Leaf(2)(pos)
+    NodeIds.assign(Pair(one, two)(pos))
+
+    Leaf(3)(pos).withNodeIdOf(one).nodeId should be(one.nodeId)
+    two.withNodeIdOf(one).nodeId should be(Id(2))
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) Neo4j Sweden AB (http://neo4j.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.opencypher.v9_0.util.attribution
+
+import org.opencypher.v9_0.util.Cardinality
+import org.opencypher.v9_0.util.test_helpers.CypherFunSuite
+
+class PrimitiveAttributeTest extends CypherFunSuite {
+
+  case class TestKey(override val id: Id) extends Identifiable
+
+  class Cardinalities extends DoubleAttribute[TestKey, Cardinality](_.amount, Cardinality(_))
+
+  class Counts extends LongAttribute[TestKey, Long](identity, identity)
+
+  class Ints extends IntAttribute[TestKey, Int](identity, identity)
+
+  class Generic extends Attribute[TestKey, Int]
+
+  test("should set and get values") {
+    val attr = new Cardinalities
+    attr.set(Id(2), Cardinality(33.5))
+    attr.setDouble(Id(100), 1.25)
+
+    attr.get(Id(2)) should be(Cardinality(33.5))
+    attr.getDouble(Id(2)) should be(33.5)
+    attr.get(Id(100)) should be(Cardinality(1.25))
+    a[Exception] should be thrownBy attr.get(Id(1))
+    a[Exception] should be thrownBy attr.get(Id(101))
+    a[Exception] should be thrownBy attr.get(Id(-1))
+  }
+
+  test("should behave like an attribute of wrapped values") {
+    val primitive = new Ints
+    val generic = new Generic
+    for (attr <- Seq[Attribute[TestKey, Int]](primitive, generic)) {
+      attr.set(Id(2), 33)
+      attr.set(Id(70), -27)
+      attr.set(Id(3), 1)
+      attr.set(Id(3), 2)
+      attr.copy(Id(70), Id(71))
+      attr.copy(Id(5), Id(6))
+    }
+
+    primitive.isDefinedAt(Id(3)) shouldBe true
+    primitive.isDefinedAt(Id(4)) shouldBe false
+    primitive.isDefinedAt(Id(6)) shouldBe false
+    primitive.getOption(Id(3)) shouldBe Some(2)
+    primitive.iterator.toList shouldBe generic.iterator.toList
+    primitive.size shouldBe generic.size
+    primitive.toString.replace("Ints", "") shouldBe generic.toString.replace("Generic", "")
+    primitive.toSeq shouldBe generic.toSeq
+  }
+
+  test("should not change a seen value") {
+    val attr = new Counts
+    attr.set(Id(4), 27L)
+    attr.set(Id(4), 28L)
+    attr.getLong(Id(4)) should be(28L)
+
+    an[IllegalStateException] should be thrownBy attr.set(Id(4), 29L)
+    attr.get(Id(4)) should be(28L)
+  }
+
+  test("size should count the defined values and make them seen, like for other attributes") {
+    val primitive = new Ints
+    val generic = new Generic
+    for (attr <- Seq[Attribute[TestKey, Int]](primitive, generic)) {
+      attr.set(Id(1), 1)
+      attr.set(Id(100), 2)
+
+      attr.size shouldBe 2
+      an[IllegalStateException] should be thrownBy attr.set(Id(100), 3)
+    }
+  }
+
+  test("clones should not see each others changes") {
+    val attr = new Cardinalities
+    (0 until 200).foreach(i => attr.setDouble(Id(i), i.toDouble))
+
+    val clone = attr.clone[Cardinalities]
+    clone shouldEqual attr
+    clone.setDouble(Id(10), -1)
+    attr.setDouble(Id(11), -2)
+    attr.setDouble(Id(300), 300)
+
+    clone.getDouble(Id(10)) should be(-1)
+    clone.getDouble(Id(11)) should be(11)
+    clone.isDefinedAt(Id(300)) shouldBe false
+    attr.getDouble(Id(10)) should be(10)
+    attr.getDouble(Id(11)) should be(-2)
+  }
+
+  test("clones should keep which values were seen") {
+    val attr = new Ints
+    attr.set(Id(1), 1)
+    attr.set(Id(2), 2)
+    attr.get(Id(1))
+
+    val clone = attr.clone[Ints]
+    an[IllegalStateException] should be thrownBy clone.set(Id(1), 3)
+    clone.set(Id(2), 3)
+    clone.get(Id(2))
+    attr.set(Id(2), 4)
+
+    attr.get(Id(2)) should be(4)
+    clone.get(Id(2)) should be(3)
+  }
+
+  test("test equals") {
+    val attr = new Cardinalities
+    val attrSameValue = new Cardinalities
+    val differentValue = new Cardinalities
+    val differentId = new Cardinalities
+
+    attr.set(Id(4), Cardinality(27))
+    attrSameValue.set(Id(4), Cardinality(27))
+    differentValue.set(Id(4), Cardinality(26))
+    differentId.set(Id(2), Cardinality(26))
+
+    attr.shouldEqual(attrSameValue)
+    attr.hashCode() shouldBe attrSameValue.hashCode()
+    attrSameValue.get(Id(4))
+    attr.equals(attrSameValue) shouldBe false // now attrSameValue has been seen whereas attr has not
+    attr.equals(differentValue) shouldBe false
+    attr.equals(differentId) shouldBe false
+  }
+}